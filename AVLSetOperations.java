@@ -0,0 +1,202 @@
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * ---AVLSetOperations---
+ * Union, intersection and difference of two AVL Trees (by keys),
+ * using the join-based divide and conquer algorithms:
+ * split the second tree by the first tree's root key, solve both sides (in parallel),
+ * and join the two results back (with or without the root).
+ *
+ * Work - O(m * log(n/m + 1)) (m <= n are the sizes of the trees), Span - O(log^2 n)
+ * the two recursive calls are forked on a ForkJoinPool as long as the subproblem
+ * has more than cutoff items, smaller subproblems run sequentially.
+ *
+ * all operations consume both of their input trees (their nodes are reused by the result).
+ * the result keeps the augmentation of the operands (see AVLTree.setAugmentation), so both
+ * operands must have the same one (or none).
+ *
+ * if a or b is a multiset the result is a multiset, and a key's copies are counted as in a bag:
+ * union - the sum of its counts, intersection - the smaller count,
+ * difference - its count in a minus its count in b (gone if that is not positive).
+ * the item (info) of a key that is in a is always a's item.
+ */
+public class AVLSetOperations {
+
+	public static final int DEFAULT_CUTOFF = 4096;
+
+	private static final int UNION = 0, INTERSECTION = 1, DIFFERENCE = 2;
+
+	private AVLSetOperations() {
+	}
+
+	/**
+	 * --UNION--
+	 * @post a & b are emptied
+	 * @return a tree with the items of a and the items of b whose keys are not in a
+	 *         (multiset: the counts of a key are added)
+	 */
+	public static AVLTree union(AVLTree a, AVLTree b) {
+		return union(a, b, DEFAULT_CUTOFF);
+	}
+
+	public static AVLTree union(AVLTree a, AVLTree b, int cutoff) {
+		return run(UNION, a, b, cutoff);
+	}
+
+	/**
+	 * --INTERSECTION--
+	 * @post a & b are emptied
+	 * @return a tree with the items of a whose keys are in b
+	 *         (multiset: a key has the smaller of its counts)
+	 */
+	public static AVLTree intersection(AVLTree a, AVLTree b) {
+		return intersection(a, b, DEFAULT_CUTOFF);
+	}
+
+	public static AVLTree intersection(AVLTree a, AVLTree b, int cutoff) {
+		return run(INTERSECTION, a, b, cutoff);
+	}
+
+	/**
+	 * --DIFFERENCE--
+	 * @post a & b are emptied
+	 * @return a tree with the items of a whose keys are not in b
+	 *         (multiset: a key has its count in a minus its count in b, if that is positive)
+	 */
+	public static AVLTree difference(AVLTree a, AVLTree b) {
+		return difference(a, b, DEFAULT_CUTOFF);
+	}
+
+	public static AVLTree difference(AVLTree a, AVLTree b, int cutoff) {
+		return run(DIFFERENCE, a, b, cutoff);
+	}
+
+	/**
+	 * --run--
+	 * @param cutoff - subproblems with at most cutoff items (in both trees) are not forked
+	 * @return the result tree (with the operands' augmentation, a multiset if a or b is one), a & b are emptied
+	 * @throws IllegalArgumentException if a == b or a & b have different augmentations
+	 */
+	private static AVLTree run(int op, AVLTree a, AVLTree b, int cutoff) {
+		if (a == b) {
+			throw new IllegalArgumentException("the operands must be different trees");
+		}
+		AVLTree.Augmentation aug = a.getAugmentation();
+		if (b.getAugmentation() != aug) {
+			throw new IllegalArgumentException("the operands must have the same augmentation");
+		}
+		boolean multiset = a.isMultiset() || b.isMultiset();
+		AVLTree.AVLNode ra = (AVLTree.AVLNode) a.getRoot();
+		AVLTree.AVLNode rb = (AVLTree.AVLNode) b.getRoot();
+		a.clear();
+		b.clear();
+
+		AVLTree.AVLNode res;
+		if (size(ra) + size(rb) <= cutoff) {
+			res = new SetTask(op, ra, rb, cutoff, aug, multiset).compute();
+		} else {
+			res = ForkJoinPool.commonPool().invoke(new SetTask(op, ra, rb, cutoff, aug, multiset));
+		}
+		return AVLTree.ofRoot(res, multiset, aug);
+	}
+
+	private static int size(AVLTree.AVLNode node) {
+		return (node == null) ? 0 : node.getSize();
+	}
+
+	/**
+	 * --DETACH--
+	 * @post node (if not null) has no parent
+	 */
+	private static AVLTree.AVLNode detach(AVLTree.AVLNode node) {
+		if (node != null) {
+			node.setParent(null);
+		}
+		return node;
+	}
+
+	/**
+	 * --SET TASK--
+	 * computes op(t1, t2) of two subtrees (roots without parents),
+	 * every split & join keeps the aggregates of aug (null = none),
+	 * in multiset mode the counts of a key in t1 & t2 are combined by op
+	 * @return root of the result (without parent)
+	 */
+	private static class SetTask extends RecursiveTask<AVLTree.AVLNode> {
+
+		private static final long serialVersionUID = 1L;
+
+		private final int op, cutoff;
+		private final AVLTree.AVLNode t1, t2;
+		private final AVLTree.Augmentation aug;
+		private final boolean multiset;
+
+		SetTask(int op, AVLTree.AVLNode t1, AVLTree.AVLNode t2, int cutoff, AVLTree.Augmentation aug, boolean multiset) {
+			this.op = op;
+			this.t1 = t1;
+			this.t2 = t2;
+			this.cutoff = cutoff;
+			this.aug = aug;
+			this.multiset = multiset;
+		}
+
+		@Override
+		protected AVLTree.AVLNode compute() {
+			// base cases
+			if (this.t1 == null) {
+				return (this.op == UNION) ? this.t2 : null;
+			}
+			if (this.t2 == null) {
+				return (this.op == INTERSECTION) ? null : this.t1;
+			}
+
+			boolean parallel = size(this.t1) + size(this.t2) > this.cutoff;
+
+			// union & intersection split t2 by t1's root, difference splits t1 by t2's root
+			AVLTree.AVLNode pivot = (this.op == DIFFERENCE) ? this.t2 : this.t1;
+			AVLTree.AVLNode other = (this.op == DIFFERENCE) ? this.t1 : this.t2;
+			AVLTree.AVLNode pivot_left = detach(pivot.getLeft());
+			AVLTree.AVLNode pivot_right = detach(pivot.getRight());
+			AVLTree.AVLNode[] parts = AVLTree.splitRoot(other, pivot.getKey(), this.aug);
+
+			SetTask left_task, right_task;
+			if (this.op == DIFFERENCE) {
+				left_task = new SetTask(this.op, parts[0], pivot_left, this.cutoff, this.aug, this.multiset);
+				right_task = new SetTask(this.op, parts[2], pivot_right, this.cutoff, this.aug, this.multiset);
+			} else {
+				left_task = new SetTask(this.op, pivot_left, parts[0], this.cutoff, this.aug, this.multiset);
+				right_task = new SetTask(this.op, pivot_right, parts[2], this.cutoff, this.aug, this.multiset);
+			}
+
+			AVLTree.AVLNode left_res, right_res;
+			if (parallel) {
+				left_task.fork();
+				right_res = right_task.compute();
+				left_res = left_task.join();
+			} else {
+				left_res = left_task.compute();
+				right_res = right_task.compute();
+			}
+
+			AVLTree.AVLNode found = parts[1];
+			if (this.multiset && found != null) { // the key is in both trees --> combine its counts
+				if (this.op == UNION) {
+					AVLTree.setCount(pivot, pivot.getCount() + found.getCount());
+				} else if (this.op == INTERSECTION) {
+					AVLTree.setCount(pivot, Math.min(pivot.getCount(), found.getCount()));
+				} else if (found.getCount() > pivot.getCount()) { // difference: a's node keeps the rest of its copies
+					AVLTree.setCount(found, found.getCount() - pivot.getCount());
+					return AVLTree.joinNodes(left_res, found, right_res, this.aug);
+				}
+			}
+
+			boolean keep_pivot = (this.op == UNION) || (this.op == INTERSECTION && found != null);
+			if (keep_pivot) {
+				return AVLTree.joinNodes(left_res, pivot, right_res, this.aug);
+			}
+			return AVLTree.joinNodes(left_res, right_res, this.aug);
+		}
+	}
+
+}
@@ -0,0 +1,353 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.zip.CRC32C;
+
+/**
+ * ---AVLSnapshot---
+ * A versioned binary snapshot file of an AVLTree (dictionary) or a TreeList (list).
+ *
+ * file layout (little endian):
+ *   header (HEADER_BYTES bytes):
+ *     magic "AVLS" | version (short) | kind (short, TREE / LIST) | n - number of items (int) |
+ *     reserved (int) | blob length (long) | body length (long) | CRC32C of the body (int) | reserved (int)
+ *   body:
+ *     keys       - n ints (sorted for a TREE, in list order for a LIST)
+ *     blob       - the UTF-8 bytes of all the infos one after another, then padding to 4 bytes
+ *     offsets    - n + 1 ints, info j is blob[offsets[j] : offsets[j+1]]
+ *     null bitmap - (n + 7) / 8 bytes, bit j is set if info j is null
+ *
+ * write streams the file through a FileChannel (one direct buffer, the body's CRC is computed on
+ * the way): every section is one in-order pass over the nodes, so no O(n) array is built.
+ * it goes into a temporary file next to path, forces it to the disk, renames it over path and
+ * then forces the directory, so path always holds a whole snapshot (the old one or the new one),
+ * also after a crash.
+ * read memory-maps the file, checks the CRC, and rebuilds a perfectly balanced tree in O(n)
+ * (AVLTree.fromSorted / TreeList.fromArrays). the body is mapped at once, so it must be smaller than 2GB.
+ */
+public final class AVLSnapshot {
+
+	public static final int MAGIC = 0x534C5641; // "AVLS" in little endian
+	public static final short VERSION = 1;
+	public static final short TREE = 0, LIST = 1;
+	public static final int HEADER_BYTES = 40;
+
+	private static final int BUFFER_BYTES = 1 << 20;
+
+	private AVLSnapshot() {
+	}
+
+	/**
+	 * --WRITE--
+	 * Complexity - O(n)
+	 * @post path holds a snapshot of tree (replaced atomically if it existed, durable once write returns)
+	 * @throws IllegalArgumentException if tree is a multiset (a snapshot holds distinct keys)
+	 */
+	public static void write(AVLTree tree, Path path) throws IOException {
+		if (tree.isMultiset()) {
+			throw new IllegalArgumentException("a multiset tree can not be written to a snapshot");
+		}
+		write(TREE, tree, path);
+	}
+
+	public static void write(TreeList list, Path path) throws IOException {
+		write(LIST, list.backingTree(), path);
+	}
+
+	/**
+	 * --READ TREE--
+	 * Complexity - O(n)
+	 * @return the tree saved in path
+	 * @throws IOException if path can not be read, is not a TREE snapshot or is corrupted
+	 */
+	public static AVLTree readTree(Path path) throws IOException {
+		Contents c = read(path, TREE);
+		try {
+			return AVLTree.fromSorted(c.keys, c.infos);
+		} catch (IllegalArgumentException e) { // passed the CRC, but was not written by write()
+			throw new IOException("corrupted snapshot " + path + ": " + e.getMessage(), e);
+		}
+	}
+
+	/**
+	 * --READ LIST--
+	 * Complexity - O(n)
+	 * @return the list saved in path
+	 * @throws IOException if path can not be read, is not a LIST snapshot or is corrupted
+	 */
+	public static TreeList readList(Path path) throws IOException {
+		Contents c = read(path, LIST);
+		return TreeList.fromArrays(c.keys, c.infos);
+	}
+
+	/**
+	 * --WRITE - HELPER--
+	 * Complexity - O(n)
+	 * @pre tree is not changed while it is written
+	 */
+	private static void write(short kind, AVLTree tree, Path path) throws IOException {
+		int n = tree.size();
+		long fixed = 4L * n + 4L * (n + 1) + (n + 7) / 8 + 3; // body bytes other than the blob (+ max padding)
+		CRC32C crc = new CRC32C();
+
+		Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+		try (FileChannel ch = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING)) {
+			Writer out = new Writer(ch, crc);
+			ch.position(HEADER_BYTES); // the header is written last (it needs the lengths & the CRC)
+
+			for (Iterator<AVLTree.AVLNode> it = tree.nodeIterator(); it.hasNext();) {
+				out.putInt(it.next().getKey());
+			}
+
+			long blob = 0;
+			for (Iterator<AVLTree.AVLNode> it = tree.nodeIterator(); it.hasNext();) {
+				String info = it.next().getValue();
+				if (info != null) {
+					byte[] bytes = info.getBytes(StandardCharsets.UTF_8);
+					out.put(bytes);
+					blob += bytes.length;
+					if (fixed + blob > Integer.MAX_VALUE) {
+						throw new IOException("the tree is too big for a snapshot (more than 2GB)");
+					}
+				}
+			}
+			for (long pad = blob; (pad & 3) != 0; pad++) {
+				out.put((byte) 0);
+			}
+
+			int off = 0; // offsets are recomputed from the lengths instead of being kept from the blob pass
+			out.putInt(off);
+			for (Iterator<AVLTree.AVLNode> it = tree.nodeIterator(); it.hasNext();) {
+				String info = it.next().getValue();
+				if (info != null) {
+					off += utf8Length(info);
+				}
+				out.putInt(off);
+			}
+
+			int bits = 0, j = 0;
+			for (Iterator<AVLTree.AVLNode> it = tree.nodeIterator(); it.hasNext(); j++) {
+				if (it.next().getValue() == null) {
+					bits |= 1 << (j & 7);
+				}
+				if ((j & 7) == 7) {
+					out.put((byte) bits);
+					bits = 0;
+				}
+			}
+			if ((j & 7) != 0) {
+				out.put((byte) bits);
+			}
+			if (j != n || off != blob) {
+				throw new ConcurrentModificationException("the tree was changed while it was written");
+			}
+			long body = out.flush();
+
+			ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+			header.putInt(MAGIC).putShort(VERSION).putShort(kind).putInt(n).putInt(0);
+			header.putLong(blob).putLong(body).putInt((int) crc.getValue()).putInt(0);
+			header.flip();
+			ch.position(0);
+			while (header.hasRemaining()) {
+				ch.write(header);
+			}
+			ch.force(true);
+		} catch (IOException | RuntimeException e) {
+			Files.deleteIfExists(tmp);
+			throw e;
+		}
+		Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		Path dir = path.toAbsolutePath().getParent();
+		if (dir != null) {
+			WriteAheadLog.syncDirectory(dir); // the rename itself must survive a crash
+		}
+	}
+
+	/**
+	 * --UTF-8 LENGTH--
+	 * Complexity - O(s.length())
+	 * @return s.getBytes(UTF_8).length, without encoding s (a lone surrogate is encoded as '?')
+	 */
+	private static int utf8Length(String s) {
+		int len = 0;
+		for (int i = 0; i < s.length(); i++) {
+			char c = s.charAt(i);
+			if (c < 0x80) {
+				len += 1;
+			} else if (c < 0x800) {
+				len += 2;
+			} else if (Character.isHighSurrogate(c) && i + 1 < s.length() && Character.isLowSurrogate(s.charAt(i + 1))) {
+				len += 4;
+				i++;
+			} else if (Character.isSurrogate(c)) {
+				len += 1;
+			} else {
+				len += 3;
+			}
+		}
+		return len;
+	}
+
+	/**
+	 * --READ - HELPER--
+	 * Complexity - O(n)
+	 * @return the keys & infos of the snapshot in path
+	 */
+	private static Contents read(Path path, short kind) throws IOException {
+		try (FileChannel ch = FileChannel.open(path, StandardOpenOption.READ)) {
+			long file_size = ch.size();
+			if (file_size < HEADER_BYTES) {
+				throw new IOException("not an AVL snapshot (too short): " + path);
+			}
+			ByteBuffer header = ch.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+			if (header.getInt() != MAGIC) {
+				throw new IOException("not an AVL snapshot (bad magic): " + path);
+			}
+			short version = header.getShort();
+			if (version != VERSION) {
+				throw new IOException("unsupported snapshot version " + version + ": " + path);
+			}
+			short file_kind = header.getShort();
+			if (file_kind != kind) {
+				throw new IOException("snapshot " + path + " holds a " + ((file_kind == TREE) ? "tree" : "list"));
+			}
+			int n = header.getInt();
+			header.getInt(); // reserved
+			long blob = header.getLong();
+			long body = header.getLong();
+			int expected_crc = header.getInt();
+
+			long pad_blob = (blob + 3) & ~3L;
+			if (n < 0 || blob < 0 || body > Integer.MAX_VALUE
+					|| body != 4L * n + pad_blob + 4L * (n + 1) + (n + 7) / 8 || HEADER_BYTES + body != file_size) {
+				throw new IOException("corrupted snapshot (bad lengths): " + path);
+			}
+
+			MappedByteBuffer map = ch.map(FileChannel.MapMode.READ_ONLY, HEADER_BYTES, body);
+			map.order(ByteOrder.LITTLE_ENDIAN);
+			CRC32C crc = new CRC32C();
+			crc.update(map.duplicate());
+			if ((int) crc.getValue() != expected_crc) {
+				throw new IOException("corrupted snapshot (checksum mismatch): " + path);
+			}
+
+			int[] keys = new int[n];
+			map.position(0);
+			IntBuffer ints = map.slice().order(ByteOrder.LITTLE_ENDIAN).asIntBuffer();
+			ints.get(keys);
+
+			byte[] bytes = new byte[(int) blob];
+			map.position(4 * n);
+			map.get(bytes);
+
+			int[] offsets = new int[n + 1];
+			map.position((int) (4L * n + pad_blob));
+			map.slice().order(ByteOrder.LITTLE_ENDIAN).asIntBuffer().get(offsets);
+
+			byte[] nulls = new byte[(n + 7) / 8];
+			map.position((int) (4L * n + pad_blob + 4L * (n + 1)));
+			map.get(nulls);
+
+			String[] infos = new String[n];
+			for (int j = 0; j < n; j++) {
+				int from = offsets[j], to = offsets[j + 1];
+				if (from < 0 || to < from || to > blob) {
+					throw new IOException("corrupted snapshot (bad offsets): " + path);
+				}
+				if ((nulls[j >>> 3] & (1 << (j & 7))) == 0) {
+					infos[j] = new String(bytes, from, to - from, StandardCharsets.UTF_8);
+				}
+			}
+			return new Contents(keys, infos);
+		}
+	}
+
+	private static final class Contents {
+		private final int[] keys;
+		private final String[] infos;
+
+		private Contents(int[] keys, String[] infos) {
+			this.keys = keys;
+			this.infos = infos;
+		}
+	}
+
+	/**
+	 * --WRITER--
+	 * buffers the body in one direct buffer and writes it to the channel when it is full,
+	 * every written byte also goes into the CRC
+	 */
+	private static final class Writer {
+
+		private final FileChannel ch;
+		private final CRC32C crc;
+		private final ByteBuffer buf;
+		private long written;
+
+		private Writer(FileChannel ch, CRC32C crc) {
+			this.ch = ch;
+			this.crc = crc;
+			this.buf = ByteBuffer.allocateDirect(BUFFER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+		}
+
+		private void putInt(int v) throws IOException {
+			if (this.buf.remaining() < 4) {
+				this.drain();
+			}
+			this.buf.putInt(v);
+		}
+
+		private void put(byte v) throws IOException {
+			if (!this.buf.hasRemaining()) {
+				this.drain();
+			}
+			this.buf.put(v);
+		}
+
+		private void put(byte[] bytes) throws IOException {
+			if (this.buf.remaining() < bytes.length) {
+				this.drain();
+				if (bytes.length > this.buf.capacity()) { // too big for the buffer --> straight to the file
+					ByteBuffer big = ByteBuffer.wrap(bytes);
+					this.crc.update(bytes, 0, bytes.length);
+					while (big.hasRemaining()) {
+						this.ch.write(big);
+					}
+					this.written += bytes.length;
+					return;
+				}
+			}
+			this.buf.put(bytes);
+		}
+
+		/**
+		 * @return number of body bytes written so far
+		 */
+		private long flush() throws IOException {
+			this.drain();
+			return this.written;
+		}
+
+		private void drain() throws IOException {
+			this.buf.flip();
+			this.written += this.buf.remaining();
+			this.crc.update(this.buf.duplicate());
+			while (this.buf.hasRemaining()) {
+				this.ch.write(this.buf);
+			}
+			this.buf.clear();
+		}
+	}
+
+}
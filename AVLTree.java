@@ -1,16 +1,41 @@
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.function.LongBinaryOperator;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
 /**
  * ---AVLTree---
  * An implementation of a AVL Tree with
  * distinct integer keys and info
+ * (or, in multiset mode, integer keys with multiplicities - see AVLTree(boolean))
  * 
  *@author Matan Ben Tov & Shir Frenkel
  *@version Final-1
  */
-
 public class AVLTree {
 
 	private AVLNode root, min, max;
 
+	// rebalance statistics (insert / delete / insertByIndex / deleteByIndex on this tree)
+	private long rebalanceOps, retraceSteps, sizeOnlySteps, totalRotations;
+	private int lastRetraceLength, lastSizeOnlyLength, lastRotations;
+
+	private int epoch; // changed whenever the tree gives its nodes away (clear), so old fingers become invalid
+
+	// optional direct mapped search cache: slot of key k -> node that had key k (null = empty / disabled)
+	private AVLNode[] cacheNodes;
+	private int cacheShift;
+	private long cacheHits, cacheMisses;
+
+	// optional user aggregate kept in every node (null = no aggregate), see setAugmentation
+	private Augmentation aug;
+
+	private boolean multiset; // inserting an existing key adds a copy of it (see AVLTree(boolean))
 
 	/**
 	 * --CONSTRUCTOR--
@@ -22,6 +47,97 @@ public class AVLTree {
 		this.max = null;
 	}
 
+	/**
+	 * --CONSTRUCTOR-- (multiset mode)
+	 * Complexity - O(1)
+	 * @param multiset - if true, every node keeps the multiplicity of its key: insert of an existing
+	 *        key adds a copy (no new node), delete removes one copy, and size, rank / select,
+	 *        ranges, keysToArray, infoToArray and the spliterator count every copy.
+	 *        the info of a key is the one it was first inserted with
+	 */
+	public AVLTree(boolean multiset) {
+		this();
+		this.multiset = multiset;
+	}
+
+	/**
+	 * --IS MULTISET--
+	 * Complexity - O(1)
+	 */
+	public boolean isMultiset() {
+		return this.multiset;
+	}
+
+	/**
+	 * --FROM SORTED-- (bulk construction)
+	 * Complexity - O(n)
+	 * @param keys - strictly increasing keys
+	 * @param infos - infos[j] is the info of keys[j], infos.length == keys.length
+	 * @return a perfectly balanced tree that contains all the given items
+	 * @throws IllegalArgumentException if the keys are not strictly increasing (unsorted or
+	 *         duplicates) or if the arrays lengths differ
+	 */
+	public static AVLTree fromSorted(int[] keys, String[] infos) {
+		if (keys.length != infos.length) {
+			throw new IllegalArgumentException("keys and infos lengths differ: " + keys.length + " != " + infos.length);
+		}
+		for (int j = 1; j < keys.length; j++) {
+			if (keys[j - 1] >= keys[j]) {
+				throw new IllegalArgumentException("keys are not strictly increasing at index " + j);
+			}
+		}
+		return fromOrdered(keys, infos);
+	}
+
+	/**
+	 * --FROM ORDERED-- (bulk construction, no checks)
+	 * Complexity - O(n)
+	 * @pre keys.length == infos.length
+	 * @return a perfectly balanced tree whose in order items are the given items in the given order
+	 *         (a search tree only if the keys are strictly increasing, otherwise a tree of a TreeList)
+	 */
+	static AVLTree fromOrdered(int[] keys, String[] infos) {
+		AVLTree tree = new AVLTree();
+		tree.root = buildBalanced(keys, infos, 0, keys.length - 1);
+		if (tree.root != null) {
+			tree.root.setParent(null);
+			tree.min = tree.root;
+			while (tree.min.getLeft() != null) {
+				tree.min = tree.min.getLeft();
+			}
+			tree.max = tree.root;
+			while (tree.max.getRight() != null) {
+				tree.max = tree.max.getRight();
+			}
+		}
+		return tree;
+	}
+
+	/**
+	 * --FROM SORTED HELPER: buildBalanced--
+	 * Complexity - O(hi - lo)
+	 * @return root of a perfectly balanced tree of the items in [lo, hi] (null if lo > hi),
+	 *         with updated sizes & heights. the root's parent is NOT set
+	 */
+	private static AVLNode buildBalanced(int[] keys, String[] infos, int lo, int hi) {
+		if (lo > hi) {
+			return null;
+		}
+		int mid = (lo + hi) >>> 1;
+		AVLNode node = new AVLNode(keys[mid], infos[mid]);
+		AVLNode left = buildBalanced(keys, infos, lo, mid - 1);
+		AVLNode right = buildBalanced(keys, infos, mid + 1, hi);
+		if (left != null) {
+			left.setParent(node);
+		}
+		if (right != null) {
+			right.setParent(node);
+		}
+		node.setLeft(left);
+		node.setRight(right); // updates node's size & height
+		return node;
+	}
+
 	/**
 	 * --EMPTY--
 	 * Complexity - O(1)
@@ -36,10 +152,11 @@ public class AVLTree {
 	 * @return the info of the AVLNode with the smallest key
 	 */
 	public String min() {
-		if (this.min == null) {  // this.empty() == true
+		AVLNode node = this.min;
+		if (node == null) {  // this.empty() == true
 			return null;
 		}
-		return this.min.getValue();
+		return node.getValue();
 	}
 
 	/**
@@ -47,10 +164,11 @@ public class AVLTree {
 	 * @return the info of the AVLNode with the biggest key
 	 */
 	public String max() {
-		if (this.max == null) {  // this.empty() == true
+		AVLNode node = this.max;
+		if (node == null) {  // this.empty() == true
 			return null;
 		}
-		return this.max.getValue();
+		return node.getValue();
 	}
 
 
@@ -83,25 +201,40 @@ public class AVLTree {
 	 * @param k - key to be inserted
 	 * @param i - info value to be inserted
 	 * @post if key not in the the tree: inserts key to the tree, else nothing
-	 * @return number of rotations done
+	 *       (in multiset mode: adds a copy of key)
+	 * @return number of rotations done (-1 if key is already in the tree and this is not a multiset)
 	 */
 	public int insert(int k, String i) {
 
 		AVLNode parent = findByKey(k);
 
+		if (parent != null && parent.getKey() == k) {// key is already in the tree
+			return this.addCopy(parent);
+		}
+
+		return this.insertNode(parent, new AVLNode(k, i, parent));
+	}
+
+	/**
+	 * --INSERT HELPER: insertNode--
+	 * Complexity - O(logn)
+	 * @pre parent is the suitable parent for new_node (null for empty tree),
+	 *      new_node.getParent() == parent
+	 * @post new_node is in the tree
+	 * @return number of rotations done
+	 */
+	private int insertNode(AVLNode parent, AVLNode new_node) {
+		int k = new_node.getKey();
+		this.updateAgg(new_node);
+
 		if (parent == null) {// empty tree
-			this.root = new AVLNode(k, i);
+			this.root = new_node;
 			this.max = this.root;
 			this.min = this.root;
 			return 0;
 		}
 
-		if (parent.getKey() == k) {// key is already in the tree
-			return -1;
-		}
-
 		// insert the item:
-		AVLNode new_node = new AVLNode(k, i, parent);
 		if (k < parent.getKey()) {
 			parent.setLeft(new_node);
 		} else {
@@ -117,7 +250,46 @@ public class AVLTree {
 		}
 
 		// rebalances and returns the rotations counter:
-		return rebalanceUpwards(new_node);
+		return rebalanceUpwards(parent, 1);
+	}
+
+	/**
+	 * --INSERT HELPER: addCopy--
+	 * Complexity - O(logn)
+	 * @pre node is in the tree
+	 * @post in multiset mode: node has one more copy, otherwise nothing
+	 * @return 0 (no rotations) in multiset mode, otherwise -1
+	 */
+	private int addCopy(AVLNode node) {
+		if (!this.multiset) {
+			return -1;
+		}
+		this.addToCount(node, 1);
+		return 0;
+	}
+
+	/**
+	 * --MULTISET HELPER: addToCount--
+	 * Complexity - O(logn)
+	 * @pre node is in the tree, node.getCount() + delta >= 1
+	 * @post node's count and the sizes of node and all its ancestors are changed by delta
+	 *       (no heights change, so no rebalance)
+	 */
+	private void addToCount(AVLNode node, int delta) {
+		node.addToCount(delta);
+		for (AVLNode curr = node; curr != null; curr = curr.getParent()) {
+			curr.addToSize(delta);
+		}
+	}
+
+	/**
+	 * --COUNT--
+	 * Complexity - O(logn)
+	 * @return number of copies of k in the tree (0 or 1 if this is not a multiset)
+	 */
+	public int count(int k) {
+		AVLNode node = this.lookup(k);
+		return (node != null && node.getKey() == k) ? node.getCount() : 0;
 	}
 
 	/**
@@ -126,7 +298,7 @@ public class AVLTree {
 	 * @param k - key to be searched
 	 */
 		public String search(int k) {
-			AVLNode node = findByKey(k); // can be the node or the suitable parent
+			AVLNode node = this.lookup(k); // can be the node or the suitable parent
 			if (node == null) {
 				return null;
 			}
@@ -144,7 +316,17 @@ public class AVLTree {
 	 *         else: the suitable parent for new AVLNode with key == k
 	 */
 	public AVLNode findByKey(int k) {
-		AVLNode node = this.root, parent = null;
+		return findFrom(this.root, k);
+	}
+
+	/**
+	 * --FIND FROM--
+	 * Complexity - O(node.height)
+	 * @pre k is in the key range that node's subtree covers
+	 * @return like findByKey, but the search goes down from node instead of the root
+	 */
+	private static AVLNode findFrom(AVLNode node, int k) {
+		AVLNode parent = null;
 
 		while (node != null) {
 			parent = node;
@@ -154,9 +336,9 @@ public class AVLTree {
 			}
 
 			if (k < node.getKey()) {
-				node = (AVLNode) node.getLeft();
+				node = node.getLeft();
 			} else {
-				node = (AVLNode) node.getRight();
+				node = node.getRight();
 			}
 		}
 
@@ -165,28 +347,176 @@ public class AVLTree {
 	}
 
 
+	/**
+	 * --SEARCH CACHE--
+	 * an optional direct mapped table (Fibonacci hashing of the key) in front of search & delete:
+	 * a hit returns the cached node without going down from the root, a miss goes down
+	 * as usual and caches the node it found. a node is taken out of the table when
+	 * deleteNode removes it, and the whole table is emptied when the tree gives its nodes away.
+	 * every hit is also checked against the node's key, so a changed node is never returned.
+	 */
+
+	/**
+	 * --ENABLE SEARCH CACHE--
+	 * Complexity - O(capacity)
+	 * @param capacity - number of slots (rounded up to a power of 2, at least 2)
+	 * @post the cache is empty and used by search & delete, hit counters are reset
+	 * @throws IllegalArgumentException if capacity < 1 or capacity > 2^30
+	 */
+	public void enableSearchCache(int capacity) {
+		if (capacity < 1 || capacity > (1 << 30)) {
+			throw new IllegalArgumentException("illegal cache capacity: " + capacity);
+		}
+		int bits = Math.max(1, 32 - Integer.numberOfLeadingZeros(capacity - 1));
+		this.cacheNodes = new AVLNode[1 << bits];
+		this.cacheShift = 32 - bits;
+		this.cacheHits = 0;
+		this.cacheMisses = 0;
+	}
+
+	/**
+	 * --DISABLE SEARCH CACHE--
+	 * Complexity - O(1)
+	 */
+	public void disableSearchCache() {
+		this.cacheNodes = null;
+	}
+
+	/**
+	 * --CACHE STATISTICS--
+	 * Complexity - O(1)
+	 * @return hits / misses of the search cache since it was enabled,
+	 *         hit rate := hits / (hits + misses) (0 if there were no lookups)
+	 */
+	public long getCacheHits() {
+		return this.cacheHits;
+	}
+
+	public long getCacheMisses() {
+		return this.cacheMisses;
+	}
+
+	public double getCacheHitRate() {
+		long total = this.cacheHits + this.cacheMisses;
+		return (total == 0) ? 0 : (double) this.cacheHits / total;
+	}
+
+	/**
+	 * --LOOKUP--
+	 * Complexity - O(1) on a cache hit, O(logn) otherwise
+	 * @return same as findByKey(k)
+	 */
+	private AVLNode lookup(int k) {
+		AVLNode[] cache = this.cacheNodes;
+		if (cache == null) {
+			return this.findByKey(k);
+		}
+		int slot = (k * 0x9E3779B9) >>> this.cacheShift;
+		AVLNode node = cache[slot];
+		if (node != null && node.getKey() == k) {
+			this.cacheHits++;
+			return node;
+		}
+		this.cacheMisses++;
+		node = this.findByKey(k);
+		if (node != null && node.getKey() == k) {
+			cache[slot] = node;
+		}
+		return node;
+	}
+
+	/**
+	 * --LOOKUP (counting)-- (for InstrumentedAVLTree)
+	 * Complexity - O(1) on a cache hit, O(logn) otherwise
+	 * @param path - path[0] := number of nodes the lookup read (1 on a cache hit)
+	 * @return same as lookup(k), through the same search cache
+	 */
+	AVLNode lookup(int k, int[] path) {
+		AVLNode[] cache = this.cacheNodes;
+		int slot = 0;
+		if (cache != null) {
+			slot = (k * 0x9E3779B9) >>> this.cacheShift;
+			AVLNode node = cache[slot];
+			if (node != null && node.getKey() == k) {
+				this.cacheHits++;
+				path[0] = 1;
+				return node;
+			}
+			this.cacheMisses++;
+		}
+		AVLNode node = this.root, parent = null;
+		int read = 0;
+		while (node != null) {
+			parent = node;
+			read++;
+			if (k == node.getKey()) {
+				break;
+			}
+			node = (k < node.getKey()) ? node.getLeft() : node.getRight();
+		}
+		path[0] = read;
+		if (cache != null && parent != null && parent.getKey() == k) {
+			cache[slot] = parent;
+		}
+		return parent;
+	}
+
+	/**
+	 * --UNCACHE--
+	 * Complexity - O(1)
+	 * @post node is not in the search cache
+	 */
+	private void uncache(AVLNode node) {
+		AVLNode[] cache = this.cacheNodes;
+		if (cache != null) {
+			int slot = (node.getKey() * 0x9E3779B9) >>> this.cacheShift;
+			if (cache[slot] == node) {
+				cache[slot] = null;
+			}
+		}
+	}
+
 	/**
 	 * --REBALANCE UPWARDS-- 
 	 * Complexity - O(logn)
+	 * @param node - the lowest node whose children were changed
+	 * @param sizeDelta - how much the size of node's subtree was changed by
 	 * @post fixed tree (no AVL criminals & updated sizes+heights)
+	 *       heights are fixed only until a subtree keeps its old height (nothing above it
+	 *       can change), from there only sizeDelta is added to the sizes up to the root
+	 * @return number of rotations done
+	 */
+	private int rebalanceUpwards(AVLNode node, int sizeDelta) {
+		return this.rebalanceUpwards(node, sizeDelta, true);
+	}
+
+	/**
+	 * --REBALANCE UPWARDS-- (stats := false for bulk operations, which are not counted)
 	 */
-	private int rebalanceUpwards(AVLNode node) {
-		AVLNode curr_parent = (AVLNode) node;
+	private int rebalanceUpwards(AVLNode node, int sizeDelta, boolean stats) {
+		AVLNode curr_parent = node;
 
 		int rotation_cou = 0;
+		int retrace = 0;
 
 		while (curr_parent != null) {
 
-			// updates height and size
+			// node's height may already be updated (by setLeft/setRight), so it is never
+			// compared, every node above it still has its old height
+			int old_height = (curr_parent == node) ? -2 : curr_parent.getHeight();
+			retrace++;
+
+			// updates height, size and aggregate
 			curr_parent.updateHeight();
 			curr_parent.updateSize();
+			this.updateAgg(curr_parent);
 
 			int curr_BF = curr_parent.getBF();
 
 			// IF AVL criminal found, 4 cases possible:
 			if (Math.abs(curr_BF) == 2) {
 				if (curr_BF < 0) { // -->subtree tends to the Right
-					AVLNode right_child = (AVLNode) curr_parent.getRight();
+					AVLNode right_child = curr_parent.getRight();
 
 					if (right_child.getBF() <= 0) { // RR Case
 						curr_parent = rotateLeft(curr_parent);
@@ -199,7 +529,7 @@ public class AVLTree {
 				}
 
 				if (curr_BF > 0) { // -->subtree tends to the Left
-					AVLNode left_child = (AVLNode) curr_parent.getLeft();
+					AVLNode left_child = curr_parent.getLeft();
 
 					if (left_child.getBF() >= 0) { // LL Case
 						curr_parent = rotateRight(curr_parent);
@@ -214,14 +544,104 @@ public class AVLTree {
 			} 
 			// end of criminal cases
 
+			boolean height_unchanged = curr_parent.getHeight() == old_height;
 
 			// go up the path:
-			curr_parent = (AVLNode) curr_parent.getParent();
+			curr_parent = curr_parent.getParent();
 
+			if (height_unchanged) { // the rest of the path is balanced with correct heights
+				break;
+			}
 		}
+
+		// only the sizes (and aggregates) above are left
+		int size_only = 0;
+		while (curr_parent != null) {
+			curr_parent.addToSize(sizeDelta);
+			this.updateAgg(curr_parent);
+			curr_parent = curr_parent.getParent();
+			size_only++;
+		}
+
+		if (!stats) {
+			return rotation_cou;
+		}
+		this.rebalanceOps++;
+		this.retraceSteps += retrace;
+		this.sizeOnlySteps += size_only;
+		this.totalRotations += rotation_cou;
+		this.lastRetraceLength = retrace;
+		this.lastSizeOnlyLength = size_only;
+		this.lastRotations = rotation_cou;
 		return rotation_cou;
 	}
 
+	/**
+	 * --REBALANCE STATISTICS--
+	 * Complexity - O(1)
+	 * counted for every rebalance of insert, delete, insertByIndex and deleteByIndex
+	 * (bulk operations - fromSorted, join, split, insertAll - are not counted)
+	 */
+	public long getRebalanceCount() {
+		return this.rebalanceOps;
+	}
+
+	/**
+	 * @return total number of nodes whose height was recomputed while rebalancing
+	 */
+	public long getRetraceSteps() {
+		return this.retraceSteps;
+	}
+
+	/**
+	 * @return total number of nodes that only got a size update while rebalancing
+	 */
+	public long getSizeOnlySteps() {
+		return this.sizeOnlySteps;
+	}
+
+	/**
+	 * @return total number of rotations
+	 */
+	public long getTotalRotations() {
+		return this.totalRotations;
+	}
+
+	/**
+	 * @return retrace length (nodes whose height was recomputed) of the last operation
+	 */
+	public int getLastRetraceLength() {
+		return this.lastRetraceLength;
+	}
+
+	/**
+	 * @return number of size only updates of the last operation
+	 */
+	public int getLastSizeOnlyLength() {
+		return this.lastSizeOnlyLength;
+	}
+
+	/**
+	 * @return number of rotations of the last operation
+	 */
+	public int getLastRotations() {
+		return this.lastRotations;
+	}
+
+	/**
+	 * --RESET REBALANCE STATISTICS--
+	 * Complexity - O(1)
+	 */
+	public void resetRebalanceStats() {
+		this.rebalanceOps = 0;
+		this.retraceSteps = 0;
+		this.sizeOnlySteps = 0;
+		this.totalRotations = 0;
+		this.lastRetraceLength = 0;
+		this.lastSizeOnlyLength = 0;
+		this.lastRotations = 0;
+	}
+
 	/**
 	 * --REBALANCE HELPER: ROTATE LEFT--
 	 * Complexity - O(1)
@@ -232,7 +652,7 @@ public class AVLTree {
 	 */
 	private AVLNode rotateLeft(AVLNode node) // will return the new parent
 	{// edge case updates root
-		AVLNode new_parent = (AVLNode) node.getRight();
+		AVLNode new_parent = node.getRight();
 
 		// rotation - part 1 of 2:
 		node.setRight(new_parent.getLeft());
@@ -243,12 +663,7 @@ public class AVLTree {
 		if (new_parent.getParent() == null) {// node was the root
 			this.root = new_parent;
 		} else {// node had a parent
-			if (new_parent.getParent().getLeft() == node) {
-				new_parent.getParent().setLeft(new_parent);
-			}
-			if (new_parent.getParent().getRight() == node) {
-				new_parent.getParent().setRight(new_parent);
-			}
+			new_parent.getParent().replaceChild(node, new_parent); // its height & size are updated by rebalanceUpwards
 
 		}
 
@@ -259,6 +674,8 @@ public class AVLTree {
 
 		// rotation - part 2 of 2:
 		new_parent.setLeft(node);
+		this.updateAgg(node);
+		this.updateAgg(new_parent);
 		
 		return new_parent;
 	}
@@ -272,7 +689,7 @@ public class AVLTree {
 	 * @return substitute of the given node, after being rotated
 	 */
 	private AVLNode rotateRight(AVLNode node) {
-		AVLNode new_parent = (AVLNode) node.getLeft();
+		AVLNode new_parent = node.getLeft();
 
 		// rotation - part 1 of 2:
 		node.setLeft(new_parent.getRight());
@@ -282,12 +699,7 @@ public class AVLTree {
 		if (new_parent.getParent() == null) {// node was the root
 			this.root = new_parent;
 		} else { // node had a parent
-			if (new_parent.getParent().getLeft() == node) {
-				new_parent.getParent().setLeft(new_parent);
-			}
-			if (new_parent.getParent().getRight() == node) {
-				new_parent.getParent().setRight(new_parent);
-			}
+			new_parent.getParent().replaceChild(node, new_parent); // its height & size are updated by rebalanceUpwards
 		}
 
 		node.setParent(new_parent);
@@ -297,6 +709,8 @@ public class AVLTree {
 
 		// rotation - part 2 of 2:
 		new_parent.setRight(node);
+		this.updateAgg(node);
+		this.updateAgg(new_parent);
 
 		return new_parent;
 	}
@@ -306,17 +720,20 @@ public class AVLTree {
 	 * Complexity - O(logn)
 	 * @pre nodeToDel != null
 	 * @param nodeToDel := the node that need to be deleted
-	 * @post delete nodeToDel, @return number of rotations done
+	 * @post delete nodeToDel (with all its copies in multiset mode), @return number of rotations done
 	 * 
 	 */
 	public int deleteNode(AVLNode deleteNode) {
-		
+
+		// the node leaves the tree (a moved successor keeps its node, so its entry stays right)
+		this.uncache(deleteNode);
+
 		// update min or max if needed
 		if (deleteNode == this.max) {
-			this.max = (AVLNode) this.getPredecessor(this.max); // works for root too
+			this.max = this.getPredecessor(this.max); // works for root too
 		}
 		if (deleteNode == this.min) {
-			this.min = (AVLNode) this.getSuccessor(this.min); // works for root too
+			this.min = this.getSuccessor(this.min); // works for root too
 		}
 
 		// option 1 - deleteNode is leaf
@@ -366,8 +783,8 @@ public class AVLTree {
 		
 		if(deleteNode.getParent() != null) {
 			// set deleteNode's parent as del_succes parent instead
-			boolean side = ((AVLNode) deleteNode.getParent()).getSideOf(deleteNode);  
-			((AVLNode) deleteNode.getParent()).setSide(side, del_succes);
+			boolean side = deleteNode.getParent().getSideOf(deleteNode);  
+			deleteNode.getParent().setSide(side, del_succes);
 			del_succes.setParent(deleteNode.getParent());
 		}
 		
@@ -376,6 +793,15 @@ public class AVLTree {
 		deleteNode.setLeft(null);
 		deleteNode.setRight(null);
 		
+		// the sizes above del_succes lost del_succes's copies instead of deleteNode's copies (multiset),
+		// and the aggregates from del_succes up still count deleteNode's value
+		if (del_succes.getCount() != deleteNode.getCount() || this.aug != null) {
+			for (AVLNode node = del_succes; node != null; node = node.getParent()) {
+				node.updateSize();
+				this.updateAgg(node);
+			}
+		}
+		
 		return rotationCount;  
 		
 	}
@@ -389,13 +815,17 @@ public class AVLTree {
 	 * 
 	 */
 	public int delete(int k) {
-		AVLNode deleteNode = this.findByKey(k);
+		AVLNode deleteNode = this.lookup(k);
 		if (deleteNode == null) {
 			return -1;
 		}
 		if (deleteNode.getKey() != k) { // k is not in this tree
 			return -1;
 		}
+		if (deleteNode.getCount() > 1) { // multiset: only one copy goes
+			this.addToCount(deleteNode, -1);
+			return 0;
+		}
 
 		return this.deleteNode(deleteNode);
 
@@ -413,11 +843,11 @@ public class AVLTree {
 			this.root = null;
 			return 0; // tree --> empty
 		}
-		AVLNode del_parent = (AVLNode) deleteNode.getParent(); // del_parent is the parent of deleteNode
+		AVLNode del_parent = deleteNode.getParent(); // del_parent is the parent of deleteNode
 		boolean side = del_parent.getSideOf(deleteNode);
 		this.disconnect(del_parent, side);
 		// rebalances and returns the rotations counter:
-		return rebalanceUpwards(del_parent);
+		return rebalanceUpwards(del_parent, -deleteNode.getCount());
 	}
 
 	/**
@@ -429,7 +859,7 @@ public class AVLTree {
 	 */
 	private int deleteNodeOneChild(AVLNode deleteNode) {
 		AVLNode del_child = deleteNode.getOnlyChild(); // del_child := deleteNode's child
-		AVLNode del_parent = (AVLNode) deleteNode.getParent(); // del_parent := deleteNode's parent
+		AVLNode del_parent = deleteNode.getParent(); // del_parent := deleteNode's parent
 		if (del_parent == null) { // deleteNode == this.root
 			this.root = del_child;
 			del_child.setParent(null);
@@ -441,7 +871,7 @@ public class AVLTree {
 			this.root = del_child;
 		}
 		// rebalances and returns the rotations counter:
-		return rebalanceUpwards(del_parent);
+		return rebalanceUpwards(del_parent, -deleteNode.getCount());
 	}
 
 	/**
@@ -488,18 +918,18 @@ public class AVLTree {
 	 */
 	private AVLNode getSuccessor(AVLNode node) {
 		if (node.getRight() != null) { // Go right once, and then left all the way
-			node = (AVLNode) node.getRight();
+			node = node.getRight();
 			while (node.getLeft() != null) {
-				node = (AVLNode) node.getLeft();
+				node = node.getLeft();
 			}
 			return node;
 		}
 
 		// Go up from node until the first turn right
-		AVLNode nodePar = (AVLNode) node.getParent();
+		AVLNode nodePar = node.getParent();
 		while (nodePar != null && (nodePar.getSideOf(node))) { // while nodePar != null && side of father is right (turn left from child)
 			node = nodePar;
-			nodePar = (AVLNode) node.getParent();
+			nodePar = node.getParent();
 		}
 		return nodePar;
 	}
@@ -512,162 +942,793 @@ public class AVLTree {
 	 */
 	private AVLNode getPredecessor(AVLNode node) {
 		if (node.getLeft() != null) { // Go left once, and then right all the way
-			node = (AVLNode) node.getLeft();
+			node = node.getLeft();
 			while (node.getRight() != null) {  
-				node = (AVLNode) node.getRight();
+				node = node.getRight();
 			}
 			return node;
 		}
 
 		// Go up from node until the first turn left
-		AVLNode nodePar = (AVLNode) node.getParent();
+		AVLNode nodePar = node.getParent();
 		while (nodePar != null && (!nodePar.getSideOf(node))) {  // while nodePar != null && side of father is left (turn right from child)
 			node = nodePar;
-			nodePar = (AVLNode) node.getParent();
+			nodePar = node.getParent();
 		}
 		return nodePar;
 	}
 
 
 	/**
-	 * --KEYS TO ARRAY-- calls keysToArrayRec()
-	 * Complexity - O(n)
+	 * --KEYS TO ARRAY--
+	 * Complexity - O(n) (in order walk with getSuccessor: every edge is passed twice)
 	 * @return sorted array which contains all keys in the tree, or an empty array
 	 *         if the tree is empty.
 	 */
 	public int[] keysToArray() {
-		return this.keysToArrayRec(this.root);
-	}
-
-	/**
-	 * --KEYS TO ARRAY - REC--
-	 * Complexity - O(n)
-	 * @return int[] res (a sorted array which contains all keys in the tree that
-	 *         node is it's root) res.length == node.getSize
-	 */
-
-	private int[] keysToArrayRec(AVLNode node) {
-		if (node == null) {
-			return new int[0];
+		int[] res = new int[this.size()];
+		AVLNode node = this.min;
+		for (int j = 0; j < res.length; node = this.getSuccessor(node)) {
+			for (int c = node.getCount(); c > 0; c--) { // every copy (multiset)
+				res[j++] = node.getKey();
+			}
 		}
-		AVLNode left = (AVLNode) (node.getLeft());
-		AVLNode right = (AVLNode) (node.getRight());
-		int[] leftArr ,rightArr;
-
-		leftArr = keysToArrayRec(left);
-		rightArr = keysToArrayRec(right);
-
-		int[] res = new int[node.getSize()];
-		System.arraycopy(leftArr, 0, res, 0, leftArr.length); // res[0:leftArr.length] = leftArr
-		res[leftArr.length] = node.getKey();
-		System.arraycopy(rightArr, 0, res, leftArr.length + 1, rightArr.length); // res[leftArr.length + 1:] = rightArr
-
 		return res;
 	}
 
 	/**
-	 * --INFO TO ARRAY-- calls infoToArrayRec()
-	 * Complexity - O(n)
+	 * --INFO TO ARRAY--
+	 * Complexity - O(n) (in order walk with getSuccessor: every edge is passed twice)
 	 * @return an array which contains all info in the tree, sorted by their
 	 *         respective keys, or an empty array if the tree is empty.
 	 */
 	public String[] infoToArray() {
-		return this.infoToArrayRec(this.root);
+		String[] res = new String[this.size()];
+		AVLNode node = this.min;
+		for (int j = 0; j < res.length; node = this.getSuccessor(node)) {
+			for (int c = node.getCount(); c > 0; c--) { // every copy (multiset)
+				res[j++] = node.getValue();
+			}
+		}
+		return res;
 	}
 
 	/**
-	 * --INFO TO ARRAY - REC--
+	 * --FREEZE--
 	 * Complexity - O(n)
-	 * @return String[] res- an array which contains all info in the tree(*), sorted
-	 *         by their respective keys 
-	 *         (*)tree that node is it's root
-	 *         res.length == node.getSize
-	 * 
+	 * @return an immutable read optimized copy of the tree (later changes of this tree are not seen)
+	 * @throws IllegalStateException if the tree has 2^30 items or more
 	 */
-	private String[] infoToArrayRec(AVLNode node) {
-		if (node == null) {
-			return new String[0];
+	public FrozenAVLTree freeze() {
+		if (this.size() >= (1 << 30)) {
+			throw new IllegalStateException("the tree is too big to freeze: " + this.size());
 		}
-		AVLNode left = (AVLNode) (node.getLeft());
-		AVLNode right = (AVLNode) (node.getRight());
-		String[] leftArr,rightArr;
-
-		leftArr = infoToArrayRec(left);
-		rightArr = infoToArrayRec(right);
-
-		String[] res = new String[node.getSize()];
-		System.arraycopy(leftArr, 0, res, 0, leftArr.length); // res[0:leftArr.length) = leftArr
-		res[leftArr.length] = node.getValue();
-		System.arraycopy(rightArr, 0, res, leftArr.length + 1, rightArr.length); // res[leftArr.length + 1:] = rightArr
+		return new FrozenAVLTree(this.keysToArray(), this.infoToArray());
+	}
 
-		return res;
+	/**
+	 * --NODE ITERATOR--
+	 * Complexity - O(1) to create, O(n) to pass over the whole tree, O(1) extra space
+	 * @return iterator over the nodes of the tree, sorted by their keys
+	 *         (the tree should not be modified while iterating)
+	 */
+	public Iterator<AVLNode> nodeIterator() {
+		return new InOrderIterator(this.min);
 	}
 
-	
 	/**
-	 * --SELECT--
-	 * O(log n)
-	 * @param k - rank to be looked for
-	 * @pre 1 <= k <= size (=max-rank)!
-	 * @pre tree is not empty (if it is empty, the input is invalid)
-	 * @return node ranked with k
+	 * --IN ORDER ITERATOR--
+	 * a cursor that only keeps the next node, and moves with getSuccessor (parent pointers)
 	 */
-	public AVLNode selectNodeByRank(int k)
-	{
-		if (k == 1) {// rank 1 is minimun
-			return this.min;
+	private class InOrderIterator implements Iterator<AVLNode> {
+
+		private AVLNode next;
+
+		InOrderIterator(AVLNode first) {
+			this.next = first;
 		}
-		if (k == this.size()) {// rank size is maximum
-			return this.max;
+
+		@Override
+		public boolean hasNext() {
+			return this.next != null;
 		}
-		
-		AVLNode node=this.root;
-		while(node!=null)
-		{
-			int curr_rank = node.getSubtreeRank();
-			if (k == curr_rank) {
-				return node;
-			}
-			
-			if (k < curr_rank) {
-				node = (AVLNode) node.getLeft();
-			}
-			
-			else {// k > curr_rank
-				node = (AVLNode) node.getRight();
-				k = k - curr_rank;
+
+		@Override
+		public AVLNode next() {
+			if (this.next == null) {
+				throw new NoSuchElementException();
 			}
+			AVLNode curr = this.next;
+			this.next = AVLTree.this.getSuccessor(curr);
+			return curr;
 		}
-		System.out.println("erorrrrrr");
-		return null; //shouldn't be here if input is valid
 	}
-	
+
 	/**
-	 * --SELECT ITEM--
-	 *SAME as selectNode, returns *ITEM* instead of node
+	 * --SPLITERATOR--
+	 * Complexity - O(1) to create, trySplit - O(1), O(n) to pass over the whole tree
+	 * @return spliterator over the items of the tree, sorted by their keys,
+	 *         that splits at subtree roots and knows its exact size from the subtree sizes
+	 *         (the tree should not be modified while it is used)
 	 */
-	public Item selectItemByRank(int k)
-	{
-		AVLNode selected=selectNodeByRank(k);
-		if(selected==null)
-			return null;//shouldnt be here
-		return selected.getItem();
+	public Spliterator<Item> spliterator() {
+		return new TreeSpliterator(null, this.root, this.size());
 	}
-	
-	
+
 	/**
-	 *--INSERT BY INDEX--
-	 * !WARNING! this function is not maintaining keys order, designed for implementing TreeList insert
-	 *@param i := index to insert new item (index = rank - 1)
-	 *@param k := key of the new item
-	 *@param s := info of new item
-	 *if 0 <= i <= this.size() @return 0 & insert new item(k,s) in i'th position, otherwise @return -1
+	 * --ENTRIES--
+	 * Complexity - O(1) to create
+	 * @return a stream of the items of the tree, sorted by their keys
+	 *         (call parallel() on it to split the tree between threads)
 	 */
-	public int insertByIndex(int i, int k, String s) {
-		if(i < 0 || this.size() < i ) { 
+	public Stream<Item> entries() {
+		return StreamSupport.stream(this.spliterator(), false);
+	}
+
+	/**
+	 * --TREE SPLITERATOR--
+	 * covers head (if not null) and then the whole subtree sub, where sub is head's right child.
+	 * trySplit gives away (head, sub.left) and keeps (sub, sub.right) - both have the same form.
+	 * traversal starts at head (or at sub's minimum) and moves with getSuccessor,
+	 * remaining says when to stop (it counts every copy of a multiset key).
+	 */
+	private class TreeSpliterator implements Spliterator<Item> {
+
+		private AVLNode head, sub;
+		private AVLNode curr; // next node to return (null until the traversal starts)
+		private int copies; // copies of curr that were not returned yet
+		private int remaining;
+
+		TreeSpliterator(AVLNode head, AVLNode sub, int remaining) {
+			this.head = head;
+			this.sub = sub;
+			this.curr = null;
+			this.remaining = remaining;
+		}
+
+		@Override
+		public boolean tryAdvance(Consumer<? super Item> action) {
+			if (this.remaining == 0) {
+				return false;
+			}
+			if (this.curr == null) { // first call
+				this.curr = this.head;
+				if (this.curr == null) {
+					this.curr = this.sub;
+					while (this.curr.getLeft() != null) {
+						this.curr = this.curr.getLeft();
+					}
+				}
+				this.copies = this.curr.getCount();
+			}
+			AVLNode node = this.curr;
+			this.remaining--;
+			if (--this.copies == 0) {
+				this.curr = (this.remaining > 0) ? AVLTree.this.getSuccessor(node) : null;
+				this.copies = (this.curr == null) ? 0 : this.curr.getCount();
+			}
+			action.accept(node.getItem());
+			return true;
+		}
+
+		@Override
+		public Spliterator<Item> trySplit() {
+			if (this.curr != null || this.sub == null) { // already started, or nothing to split
+				return null;
+			}
+			int prefix_size = (this.head == null ? 0 : this.head.getCount()) + (this.sub.getSubtreeRank() - 1);
+			if (prefix_size == 0) {
+				return null;
+			}
+			TreeSpliterator prefix = new TreeSpliterator(this.head, this.sub.getLeft(), prefix_size);
+			this.head = this.sub;
+			this.sub = this.sub.getRight();
+			this.remaining -= prefix_size;
+			return prefix;
+		}
+
+		@Override
+		public long estimateSize() {
+			return this.remaining;
+		}
+
+		@Override
+		public int characteristics() {
+			int res = ORDERED | SORTED | SIZED | SUBSIZED | NONNULL;
+			return AVLTree.this.multiset ? res : (res | DISTINCT);
+		}
+
+		@Override
+		public Comparator<? super Item> getComparator() {
+			return Comparator.comparingInt(Item::getKey);
+		}
+	}
+
+	/**
+	 * --FINGER--
+	 * Complexity - O(1)
+	 * @return a cursor on this tree that starts at the minimum (see Finger)
+	 */
+	public Finger finger() {
+		return new Finger(this.min);
+	}
+
+	/**
+	 * --FINGER CLASS--
+	 * a cursor that remembers the last node it touched. a lookup climbs (parent pointers)
+	 * from that node only until it reaches the subtree that covers the wanted key,
+	 * and goes down from there. so for a key at distance d (in rank) from the cursor
+	 * it costs O(log d) in the usual case, and at most O(logn) (when the path between
+	 * them passes a high node, e.g. the root).
+	 *
+	 * the finger stays valid after any insert / delete of other keys (also through the tree).
+	 * it becomes invalid if its node is deleted by the tree itself, or if the tree gives
+	 * its nodes away (split / join / set operations), an invalid finger restarts from the root.
+	 */
+	public class Finger {
+
+		private AVLNode node;
+		private int epoch;
+
+		private Finger(AVLNode node) {
+			this.node = node;
+			this.epoch = AVLTree.this.epoch;
+		}
+
+		/**
+		 * --IS VALID--
+		 * Complexity - O(1)
+		 * @return true if the finger points at a node that is still in the tree
+		 */
+		public boolean isValid() {
+			AVLNode curr = this.node;
+			return curr != null && this.epoch == AVLTree.this.epoch
+					&& (curr == AVLTree.this.root || curr.getParent() != null);
+		}
+
+		/**
+		 * --GET KEY-- / --GET VALUE--
+		 * Complexity - O(1)
+		 * @throws IllegalStateException if the finger is not valid
+		 */
+		public int getKey() {
+			return this.current().getKey();
+		}
+
+		public String getValue() {
+			return this.current().getValue();
+		}
+
+		/**
+		 * --SEARCH--
+		 * Complexity - O(log d) (see the class comment)
+		 * @post the finger is on k's node, or on the node where the search stopped
+		 * @return info of k if k in the tree, otherwise null
+		 */
+		public String search(int k) {
+			AVLNode node = this.locate(k);
+			return (node != null && node.getKey() == k) ? node.getValue() : null;
+		}
+
+		/**
+		 * --NEXT-- / --PREV--
+		 * Complexity - O(1) amortized over a scan
+		 * @post the finger moved to the successor / predecessor (if there is one)
+		 * @return false if there was none (the finger did not move)
+		 * @throws IllegalStateException if the finger is not valid
+		 */
+		public boolean next() {
+			AVLNode succ = AVLTree.this.getSuccessor(this.current());
+			if (succ == null) {
+				return false;
+			}
+			this.node = succ;
+			return true;
+		}
+
+		public boolean prev() {
+			AVLNode pred = AVLTree.this.getPredecessor(this.current());
+			if (pred == null) {
+				return false;
+			}
+			this.node = pred;
+			return true;
+		}
+
+		/**
+		 * --INSERT--
+		 * Complexity - O(log d) to find the place + O(logn) worst case (O(1) amortized) to rebalance
+		 * @post if k is not in the tree: it is inserted and the finger is on it
+		 *       (in multiset mode: a copy of k is added, and the finger is on k anyway)
+		 * @return number of rotations done, -1 if k is already in the tree (and this is not a multiset)
+		 */
+		public int insert(int k, String i) {
+			AVLNode parent = this.locate(k);
+			if (parent != null && parent.getKey() == k) {
+				int res = AVLTree.this.addCopy(parent);
+				if (res == 0) {
+					this.node = parent;
+				}
+				return res;
+			}
+			AVLNode new_node = new AVLNode(k, i, parent);
+			int res = AVLTree.this.insertNode(parent, new_node);
+			this.node = new_node;
+			return res;
+		}
+
+		/**
+		 * --DELETE--
+		 * Complexity - O(log d) to find the node + O(logn) worst case to rebalance
+		 * @post if k is in the tree: it is deleted and the finger is on its successor
+		 *       (or its predecessor if k was the maximum). if k has more copies (multiset),
+		 *       one copy is deleted and the finger is on k
+		 * @return number of rotations done, -1 if k is not in the tree
+		 */
+		public int delete(int k) {
+			AVLNode del = this.locate(k);
+			if (del == null || del.getKey() != k) {
+				return -1;
+			}
+			if (del.getCount() > 1) {
+				AVLTree.this.addToCount(del, -1);
+				this.node = del;
+				return 0;
+			}
+			AVLNode succ = AVLTree.this.getSuccessor(del);
+			this.node = (succ != null) ? succ : AVLTree.this.getPredecessor(del);
+			// deleteNode moves the successor node itself into del's place, so it stays valid
+			return AVLTree.this.deleteNode(del);
+		}
+
+		private AVLNode current() {
+			if (!this.isValid()) {
+				throw new IllegalStateException("the finger does not point at a node of the tree");
+			}
+			return this.node;
+		}
+
+		/**
+		 * --LOCATE--
+		 * Complexity - O(log d)
+		 * @post the finger is on the returned node
+		 * @return like findByKey(k), starting from the finger
+		 */
+		private AVLNode locate(int k) {
+			AVLNode node;
+			if (this.isValid()) {
+				node = this.node;
+			} else {
+				node = AVLTree.this.root;
+				this.epoch = AVLTree.this.epoch;
+			}
+			if (node == null) { // empty tree
+				this.node = null;
+				return null;
+			}
+
+			// climb until the subtree of low covers k. for k > low's key: going up through right
+			// children does not bound anything, the first time node is a left child its parent's
+			// key bounds all of that chain from above. if k is beyond that bound the parent is
+			// the new low (the opposite for k < low's key)
+			AVLNode low = node, parent;
+			if (k > node.getKey()) {
+				while ((parent = node.getParent()) != null) {
+					if (parent.getLeft() == node) {
+						if (k < parent.getKey()) {
+							break;
+						}
+						low = parent;
+						if (k == parent.getKey()) {
+							break;
+						}
+					}
+					node = parent;
+				}
+			} else if (k < node.getKey()) {
+				while ((parent = node.getParent()) != null) {
+					if (parent.getRight() == node) {
+						if (k > parent.getKey()) {
+							break;
+						}
+						low = parent;
+						if (k == parent.getKey()) {
+							break;
+						}
+					}
+					node = parent;
+				}
+			}
+
+			this.node = findFrom(low, k);
+			return this.node;
+		}
+	}
+
+	/**
+	 * --COUNT IN RANGE--
+	 * Complexity - O(logn)
+	 * @return number of keys k in the tree such that lo <= k <= hi
+	 */
+	public int countInRange(int lo, int hi) {
+		if (lo > hi) {
+			return 0;
+		}
+		return this.countAtMost(hi) - this.countLess(lo);
+	}
+
+	/**
+	 * --RANGE KEYS--
+	 * Complexity - O(logn + r), r := number of keys in the range
+	 * @return sorted array of the keys k in the tree such that lo <= k <= hi
+	 */
+	public int[] rangeKeys(int lo, int hi) {
+		int[] res = new int[this.countInRange(lo, hi)];
+		AVLNode node = this.lowerBound(lo);
+		for (int j = 0; j < res.length; node = this.getSuccessor(node)) {
+			for (int c = node.getCount(); c > 0; c--) {
+				res[j++] = node.getKey();
+			}
+		}
+		return res;
+	}
+
+	/**
+	 * --RANGE INFOS--
+	 * Complexity - O(logn + r), r := number of keys in the range
+	 * @return array of the infos of the keys k in the tree such that lo <= k <= hi,
+	 *         sorted by their respective keys
+	 */
+	public String[] rangeInfos(int lo, int hi) {
+		String[] res = new String[this.countInRange(lo, hi)];
+		AVLNode node = this.lowerBound(lo);
+		for (int j = 0; j < res.length; node = this.getSuccessor(node)) {
+			for (int c = node.getCount(); c > 0; c--) {
+				res[j++] = node.getValue();
+			}
+		}
+		return res;
+	}
+
+	/**
+	 * --RANK--
+	 * Complexity - O(logn)
+	 * @return number of keys in the tree that are smaller than or equal to k
+	 */
+	public int rank(int k) {
+		return this.countAtMost(k);
+	}
+
+	/**
+	 * --QUANTILE--
+	 * Complexity - O(logn)
+	 * @param q - 0 <= q <= 1
+	 * @return the item of the q-quantile by the nearest rank method: the item ranked
+	 *         ceil(q * size) (the minimum for q == 0), null if the tree is empty
+	 * @throws IllegalArgumentException if q is not in [0, 1]
+	 */
+	public Item quantile(double q) {
+		if (!(q >= 0 && q <= 1)) { // NaN too
+			throw new IllegalArgumentException("quantile " + q + " is not in [0, 1]");
+		}
+		if (this.empty()) {
+			return null;
+		}
+		int k = (int) Math.ceil(q * this.size());
+		return this.selectItemByRank(Math.max(k, 1));
+	}
+
+	/**
+	 * --KTH AFTER--
+	 * Complexity - O(logn)
+	 * @return the item with the k'th smallest key that is bigger than key (k == 1 - the successor
+	 *         of key), null if k < 1 or there are less than k such keys
+	 */
+	public Item kthAfter(int key, int k) {
+		long r = (long) this.countAtMost(key) + k; // key does not have to be in the tree
+		if (k < 1 || r > this.size()) {
+			return null;
+		}
+		return this.selectItemByRank((int) r);
+	}
+
+	/**
+	 * --SET AUGMENTATION--
+	 * Complexity - O(n)
+	 * @param augmentation - the aggregate every node keeps of its subtree from now on (null = none)
+	 * @post every node's aggregate is computed, insert / delete / rotations / join / split keep it
+	 *       up to date in O(logn) calls of augmentation.value & augmentation.combine.
+	 *       (setItem on a node bypasses the tree - call setAugmentation again after it)
+	 */
+	public void setAugmentation(Augmentation augmentation) {
+		this.aug = augmentation;
+		if (augmentation != null) {
+			this.updateAggRec(this.root);
+		}
+	}
+
+	public Augmentation getAugmentation() {
+		return this.aug;
+	}
+
+	/**
+	 * --AGGREGATE--
+	 * Complexity - O(1)
+	 * @return the aggregate of all the items (in key order), identity if the tree is empty
+	 * @throws IllegalStateException if no augmentation is set
+	 */
+	public long aggregate() {
+		this.checkAugmentation();
+		return this.aggOf(this.root);
+	}
+
+	/**
+	 * --AGGREGATE (range)--
+	 * Complexity - O(logn)
+	 * @return the aggregate of the items with keys k such that lo <= k <= hi (in key order),
+	 *         identity if there are none
+	 * @throws IllegalStateException if no augmentation is set
+	 */
+	public long aggregate(int lo, int hi) {
+		this.checkAugmentation();
+
+		// find the highest node in the range, the range is a suffix of its left subtree,
+		// the node itself and a prefix of its right subtree
+		AVLNode top = this.root;
+		while (top != null && (top.getKey() < lo || top.getKey() > hi)) {
+			top = (top.getKey() < lo) ? top.getRight() : top.getLeft();
+		}
+		if (top == null) {
+			return this.aug.identity();
+		}
+
+		long suffix = this.aug.identity(); // keys >= lo in top's left subtree
+		AVLNode node = top.getLeft();
+		while (node != null) {
+			if (node.getKey() >= lo) { // node and its right subtree are in, smaller pieces come first
+				suffix = this.aug.combine(this.aug.combine(this.valueOf(node), this.aggOf(node.getRight())), suffix);
+				node = node.getLeft();
+			} else {
+				node = node.getRight();
+			}
+		}
+
+		long prefix = this.aug.identity(); // keys <= hi in top's right subtree
+		node = top.getRight();
+		while (node != null) {
+			if (node.getKey() <= hi) { // node and its left subtree are in, bigger pieces come last
+				prefix = this.aug.combine(prefix, this.aug.combine(this.aggOf(node.getLeft()), this.valueOf(node)));
+				node = node.getRight();
+			} else {
+				node = node.getLeft();
+			}
+		}
+
+		return this.aug.combine(this.aug.combine(suffix, this.valueOf(top)), prefix);
+	}
+
+	/**
+	 * --AGGREGATE HELPERS--
+	 * Complexity - O(1) (updateAggRec - O(size(node)))
+	 * updateAgg recomputes node's aggregate from its children's aggregates (nothing if there is
+	 * no augmentation)
+	 */
+	private void updateAgg(AVLNode node) {
+		if (this.aug != null) {
+			node.agg = this.aug.combine(this.aug.combine(this.aggOf(node.getLeft()), this.valueOf(node)),
+					this.aggOf(node.getRight()));
+		}
+	}
+
+	private void updateAggRec(AVLNode node) {
+		if (node == null) {
+			return;
+		}
+		this.updateAggRec(node.getLeft());
+		this.updateAggRec(node.getRight());
+		this.updateAgg(node);
+	}
+
+	private long aggOf(AVLNode node) {
+		return (node == null) ? this.aug.identity() : node.agg;
+	}
+
+	private long valueOf(AVLNode node) {
+		return this.aug.value(node.getKey(), node.getValue());
+	}
+
+	private void checkAugmentation() {
+		if (this.aug == null) {
+			throw new IllegalStateException("no augmentation is set (see setAugmentation)");
+		}
+	}
+
+	/**
+	 * --AUGMENTATION--
+	 * An associative aggregate of the items: value maps an item to a long, combine must be
+	 * associative and identity must be its neutral element (combine does not have to be
+	 * commutative - the items are always combined in key order).
+	 * in a multiset every key is aggregated once, whatever its number of copies.
+	 * value is called again on every update, so it should be cheap.
+	 */
+	public interface Augmentation {
+		public long identity();
+
+		public long value(int key, String info);
+
+		public long combine(long left, long right);
+
+		/**
+		 * @return the sum of payload over the items (overflow wraps around)
+		 */
+		public static Augmentation sum(Payload payload) {
+			return of(0, Long::sum, payload);
+		}
+
+		/**
+		 * @return the minimum of payload over the items (Long.MAX_VALUE if there are none)
+		 */
+		public static Augmentation min(Payload payload) {
+			return of(Long.MAX_VALUE, Math::min, payload);
+		}
+
+		/**
+		 * @return the maximum of payload over the items (Long.MIN_VALUE if there are none)
+		 */
+		public static Augmentation max(Payload payload) {
+			return of(Long.MIN_VALUE, Math::max, payload);
+		}
+
+		public static Augmentation of(long identity, LongBinaryOperator combine, Payload payload) {
+			return new Augmentation() {
+				@Override
+				public long identity() {
+					return identity;
+				}
+
+				@Override
+				public long value(int key, String info) {
+					return payload.of(key, info);
+				}
+
+				@Override
+				public long combine(long left, long right) {
+					return combine.applyAsLong(left, right);
+				}
+			};
+		}
+	}
+
+	/**
+	 * --PAYLOAD-- the number an item contributes to an Augmentation
+	 */
+	@FunctionalInterface
+	public interface Payload {
+		public long of(int key, String info);
+	}
+
+	/**
+	 * --RANGE HELPER: countLess--
+	 * Complexity - O(logn)
+	 * @return number of keys in the tree that are smaller than k
+	 */
+	private int countLess(int k) {
+		int count = 0;
+		AVLNode node = this.root;
+		while (node != null) {
+			if (node.getKey() < k) { // node (all its copies) and its left subtree are smaller than k
+				count += node.getSubtreeRank() + node.getCount() - 1;
+				node = node.getRight();
+			} else {
+				node = node.getLeft();
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * --RANGE HELPER: countAtMost--
+	 * Complexity - O(logn)
+	 * @return number of keys in the tree that are smaller than or equal to k
+	 */
+	private int countAtMost(int k) {
+		int count = 0;
+		AVLNode node = this.root;
+		while (node != null) {
+			if (node.getKey() <= k) { // node (all its copies) and its left subtree are at most k
+				count += node.getSubtreeRank() + node.getCount() - 1;
+				node = node.getRight();
+			} else {
+				node = node.getLeft();
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * --RANGE HELPER: lowerBound--
+	 * Complexity - O(logn)
+	 * @return the node with the smallest key that is >= k, null if there is no such node
+	 */
+	private AVLNode lowerBound(int k) {
+		AVLNode node = this.root, res = null;
+		while (node != null) {
+			if (node.getKey() >= k) { // node is a candidate, look for a smaller one
+				res = node;
+				node = node.getLeft();
+			} else {
+				node = node.getRight();
+			}
+		}
+		return res;
+	}
+	
+	/**
+	 * --SELECT--
+	 * O(log n)
+	 * @param k - rank to be looked for
+	 * @pre 1 <= k <= size (=max-rank)!
+	 * @pre tree is not empty (if it is empty, the input is invalid)
+	 * @return node ranked with k
+	 */
+	public AVLNode selectNodeByRank(int k)
+	{
+		if (k == 1) {// rank 1 is minimun
+			return this.min;
+		}
+		if (k == this.size()) {// rank size is maximum
+			return this.max;
+		}
+		
+		AVLNode node=this.root;
+		while(node!=null)
+		{
+			int curr_rank = node.getSubtreeRank();
+			int last_rank = curr_rank + node.getCount() - 1; // the copies of a multiset key are ranked curr_rank..last_rank
+			if (curr_rank <= k && k <= last_rank) {
+				return node;
+			}
+			
+			if (k < curr_rank) {
+				node = node.getLeft();
+			}
+			
+			else {// k > last_rank
+				node = node.getRight();
+				k = k - last_rank;
+			}
+		}
+		System.out.println("erorrrrrr");
+		return null; //shouldn't be here if input is valid
+	}
+	
+	/**
+	 * --SELECT ITEM--
+	 *SAME as selectNode, returns *ITEM* instead of node
+	 */
+	public Item selectItemByRank(int k)
+	{
+		AVLNode selected=selectNodeByRank(k);
+		if(selected==null)
+			return null;//shouldnt be here
+		return selected.getItem();
+	}
+	
+	
+	/**
+	 *--INSERT BY INDEX--
+	 * !WARNING! this function is not maintaining keys order, designed for implementing TreeList insert
+	 *@param i := index to insert new item (index = rank - 1)
+	 *@param k := key of the new item
+	 *@param s := info of new item
+	 *if 0 <= i <= this.size() @return 0 & insert new item(k,s) in i'th position, otherwise @return -1
+	 */
+	public int insertByIndex(int i, int k, String s) {
+		if(i < 0 || this.size() < i ) { 
 			return -1;
 		}
 		AVLNode newNode = new AVLNode(k, s);  // the node we need to insert to the tree in the i'th position
+		this.updateAgg(newNode);
 		
 		if(this.empty()) {
 			this.root = newNode;
@@ -706,8 +1767,7 @@ public class AVLTree {
 
 		// connect the new node to the parent & fix the tree
 		this.connect(parent, side, newNode);
-		this.rebalanceUpwards(parent);
-		//this.rebalanceUpwards(parent);
+		this.rebalanceUpwards(parent, 1);
 		return 0;
 		
 	}
@@ -725,6 +1785,369 @@ public class AVLTree {
 	
 	
 	
+	/**
+	 * --INSERT ALL-- (batched insertion of a sorted batch)
+	 * Complexity - O(b * log(n/b + 1)), b := batch size
+	 * @param sortedKeys - keys in non decreasing order
+	 * @param infos - infos[j] is the info of sortedKeys[j]
+	 * @post every key that was not in the tree is inserted (for equal keys in the batch,
+	 *       the first one is inserted). in multiset mode every key of the batch is added as a copy
+	 * @return codes array: codes[j] == -1 if sortedKeys[j] was already in the tree (or earlier
+	 *         in the batch, never in a multiset), otherwise 0 (rotations are not counted per key in a batch)
+	 * @throws IllegalArgumentException if the keys are not sorted or the arrays lengths differ
+	 */
+	public int[] insertAll(int[] sortedKeys, String[] infos) {
+		if (sortedKeys.length != infos.length) {
+			throw new IllegalArgumentException("keys and infos lengths differ: " + sortedKeys.length + " != " + infos.length);
+		}
+		int[] codes = new int[sortedKeys.length];
+		int[] first = new int[sortedKeys.length + 1]; // indices of the distinct keys of the batch (+ the end)
+		int distinct = 0;
+		for (int j = 0; j < sortedKeys.length; j++) {
+			if (j > 0 && sortedKeys[j - 1] > sortedKeys[j]) {
+				throw new IllegalArgumentException("keys are not sorted at index " + j);
+			}
+			if (j > 0 && sortedKeys[j - 1] == sortedKeys[j]) {
+				codes[j] = this.multiset ? 0 : -1;
+			} else {
+				first[distinct++] = j;
+			}
+		}
+		first[distinct] = sortedKeys.length;
+
+		this.root = this.insertAllRec(this.root, sortedKeys, infos, first, 0, distinct - 1, codes);
+		this.resetMinMax();
+		return codes;
+	}
+
+	/**
+	 * --INSERT ALL - REC--
+	 * Complexity - O(b * log(size(node)/b + 1)), b := hi - lo + 1
+	 * @pre node has no parent
+	 * @post codes of the batch keys first[lo..hi] are set
+	 * @return root of node's subtree + the batch keys first[lo..hi] (no parent)
+	 */
+	private AVLNode insertAllRec(AVLNode node, int[] keys, String[] infos, int[] first, int lo, int hi, int[] codes) {
+		if (lo > hi) {
+			return node;
+		}
+		int mid = (lo + hi) >>> 1;
+		int j = first[mid];
+		int copies = this.multiset ? first[mid + 1] - j : 1; // equal keys of the batch are copies in a multiset
+		if (node == null) { // nothing to merge with --> build the rest of the batch directly
+			AVLNode x = new AVLNode(keys[j], infos[j]);
+			x.addToCount(copies - 1);
+			this.attach(x, this.insertAllRec(null, keys, infos, first, lo, mid - 1, codes),
+					this.insertAllRec(null, keys, infos, first, mid + 1, hi, codes));
+			return x;
+		}
+
+		// split the tree by the middle key of the batch, then solve both sides
+		AVLNode[] parts = splitRoot(node, keys[j], this.aug);
+		AVLNode x = parts[1];
+		if (x == null) {
+			x = new AVLNode(keys[j], infos[j]);
+			x.addToCount(copies - 1);
+		} else if (this.multiset) { // already in the tree --> more copies of the existing item
+			x.addToCount(copies);
+		} else { // already in the tree --> keep the existing item
+			codes[j] = -1;
+		}
+		AVLNode l = this.insertAllRec(parts[0], keys, infos, first, lo, mid - 1, codes);
+		AVLNode r = this.insertAllRec(parts[2], keys, infos, first, mid + 1, hi, codes);
+		return joinNodes(l, x, r, this.aug);
+	}
+
+	/**
+	 * --JOIN--
+	 * Complexity - O(|left.height - right.height| + 1) = O(logn)
+	 * @param left - tree with keys smaller than k
+	 * @param k - key of the new item that separates the trees
+	 * @param v - info of the new item
+	 * @param right - tree with keys bigger than k
+	 * @post left & right are emptied (their nodes now belong to the returned tree)
+	 * @return a tree which contains all items of left, (k, v) and all items of right
+	 * @throws IllegalArgumentException if k does not separate the keys of left and right
+	 */
+	public static AVLTree join(AVLTree left, int k, String v, AVLTree right) {
+		if ((!left.empty() && left.max.getKey() >= k) || (!right.empty() && right.min.getKey() <= k)) {
+			throw new IllegalArgumentException("key " + k + " does not separate the joined trees");
+		}
+		AVLTree res = new AVLTree(left.multiset || right.multiset);
+		if (left.aug == right.aug || left.empty()) { // the aggregate is kept only if both sides keep the same one
+			res.aug = right.aug;
+		} else if (right.empty()) {
+			res.aug = left.aug;
+		}
+		AVLNode x = new AVLNode(k, v);
+		res.joinRoots(left.root, x, right.root);
+		res.min = left.empty() ? x : left.min;
+		res.max = right.empty() ? x : right.max;
+
+		left.clear();
+		right.clear();
+		return res;
+	}
+
+	/**
+	 * --SPLIT--
+	 * Complexity - O(logn)
+	 * @param k - key to split by
+	 * @post this tree is emptied (its nodes now belong to the returned trees),
+	 *       the item with key k (if exists) is dropped
+	 * @return [less, greater] - less contains all items with keys smaller than k,
+	 *         greater contains all items with keys bigger than k
+	 */
+	public AVLTree[] split(int k) {
+		AVLTree less = new AVLTree(this.multiset), greater = new AVLTree(this.multiset);
+		less.aug = this.aug;
+		greater.aug = this.aug;
+		this.splitInto(k, less, greater);
+		less.resetMinMax();
+		greater.resetMinMax();
+
+		this.clear();
+		return new AVLTree[] { less, greater };
+	}
+
+	/**
+	 * --SPLIT HELPER: splitInto--
+	 * Complexity - O(logn)
+	 * @pre less & greater are empty
+	 * @post less.root & greater.root are the roots of the items smaller / bigger than k
+	 *       (min & max are NOT updated), this tree's nodes are reused
+	 * @return the node with key k, or null if k is not in this tree
+	 */
+	private AVLNode splitInto(int k, AVLTree less, AVLTree greater) {
+		AVLNode l = null, r = null, found = null; // roots of less & greater so far
+
+		// walk up from the node of k (or from its suitable parent), every node on the path
+		// goes with its other subtree to less or to greater
+		AVLNode curr = this.findByKey(k);
+		while (curr != null) {
+			AVLNode curr_parent = curr.getParent();
+			AVLNode curr_left = curr.getLeft(), curr_right = curr.getRight();
+
+			if (curr.getKey() == k) {
+				l = this.detachRoot(curr_left);
+				r = this.detachRoot(curr_right);
+				found = curr;
+			} else if (curr.getKey() < k) { // curr_right is null or was already split
+				l = less.joinRoots(this.detachRoot(curr_left), curr, l);
+			} else { // curr_left is null or was already split
+				r = greater.joinRoots(r, curr, this.detachRoot(curr_right));
+			}
+			curr = curr_parent;
+		}
+
+		less.root = l;
+		greater.root = r;
+		return found;
+	}
+
+	/**
+	 * --JOIN HELPER: joinRoots--
+	 * Complexity - O(|height(l) - height(r)| + 1)
+	 * @pre all keys under l < x.getKey() < all keys under r, l & r are roots (no parent)
+	 * @post this.root is the root of the joined tree (this tree's min & max are NOT updated)
+	 * @return the root of the joined tree
+	 */
+	private AVLNode joinRoots(AVLNode l, AVLNode x, AVLNode r) {
+		int hl = (l == null) ? -1 : l.getHeight();
+		int hr = (r == null) ? -1 : r.getHeight();
+
+		if (Math.abs(hl - hr) <= 1) { // x can be the root
+			this.attach(x, l, r);
+			x.setParent(null);
+			this.root = x;
+			return x;
+		}
+
+		AVLNode c, c_parent = null;
+		if (hl > hr) { // go down l's right spine until the height fits r
+			c = l;
+			while (c != null && c.getHeight() > hr) {
+				c_parent = c;
+				c = c.getRight();
+			}
+			this.root = l;
+			this.connect(c_parent, true, x);
+			this.attach(x, c, r);
+		} else { // go down r's left spine until the height fits l
+			c = r;
+			while (c != null && c.getHeight() > hl) {
+				c_parent = c;
+				c = c.getLeft();
+			}
+			this.root = r;
+			this.connect(c_parent, false, x);
+			this.attach(x, l, c);
+		}
+		// x is balanced, c's subtree was replaced by x's subtree under c_parent
+		this.rebalanceUpwards(c_parent, x.getSize() - (c == null ? 0 : c.getSize()), false);
+		return this.root;
+	}
+
+	/**
+	 * --JOIN HELPER: attach--
+	 * Complexity - O(1)
+	 * @post l & r are x's children (x's size, height & aggregate are updated)
+	 */
+	private void attach(AVLNode x, AVLNode l, AVLNode r) {
+		x.setLeft(l);
+		x.setRight(r);
+		if (l != null) {
+			l.setParent(x);
+		}
+		if (r != null) {
+			r.setParent(x);
+		}
+		this.updateAgg(x);
+	}
+
+	/**
+	 * --SPLIT HELPER: detachRoot--
+	 * Complexity - O(1)
+	 * @post node (if not null) has no parent
+	 * @return node
+	 */
+	private AVLNode detachRoot(AVLNode node) {
+		if (node != null) {
+			node.setParent(null);
+		}
+		return node;
+	}
+
+	/**
+	 * --resetMinMax--
+	 * Complexity - O(logn)
+	 * @post this.min & this.max are found by going down from the root
+	 */
+	private void resetMinMax() {
+		this.min = this.root;
+		this.max = this.root;
+		if (this.root == null) {
+			return;
+		}
+		while (this.min.getLeft() != null) {
+			this.min = this.min.getLeft();
+		}
+		while (this.max.getRight() != null) {
+			this.max = this.max.getRight();
+		}
+	}
+
+	/**
+	 * --clear--
+	 * Complexity - O(1)
+	 * @post this tree is empty (the nodes are not touched)
+	 */
+	void clear() {
+		this.epoch++;
+		if (this.cacheNodes != null) {
+			Arrays.fill(this.cacheNodes, null);
+		}
+		this.root = null;
+		this.min = null;
+		this.max = null;
+	}
+
+	/**
+	 * --NODE LEVEL JOIN & SPLIT-- (package helpers for AVLSetOperations)
+	 * every call works on its own scratch tree, so calls on disjoint subtrees
+	 * may run in parallel.
+	 */
+
+	/**
+	 * --ofRoot--
+	 * Complexity - O(logn)
+	 * @pre root has no parent
+	 * @return a tree whose root is root (min & max are updated)
+	 * (the overload also sets the tree's multiset mode & augmentation, root's aggregates must be of aug)
+	 */
+	static AVLTree ofRoot(AVLNode root) {
+		return ofRoot(root, false, null);
+	}
+
+	static AVLTree ofRoot(AVLNode root, boolean multiset, Augmentation aug) {
+		AVLTree tree = new AVLTree(multiset);
+		tree.aug = aug;
+		tree.root = root;
+		tree.resetMinMax();
+		return tree;
+	}
+
+	/**
+	 * --setCount--
+	 * Complexity - O(1)
+	 * @pre node is not in a tree (its size is recomputed when it is joined), count >= 1
+	 * @post node holds count copies of its key
+	 */
+	static void setCount(AVLNode node, int count) {
+		node.addToCount(count - node.getCount());
+	}
+
+	/**
+	 * --splitRoot--
+	 * Complexity - O(logn)
+	 * @pre root has no parent
+	 * @return [root of the keys < k, node with key k (or null), root of the keys > k]
+	 * (the overloads with aug also keep the aggregates of aug, null = none)
+	 */
+	static AVLNode[] splitRoot(AVLNode root, int k) {
+		return splitRoot(root, k, null);
+	}
+
+	static AVLNode[] splitRoot(AVLNode root, int k, Augmentation aug) {
+		AVLTree scratch = new AVLTree(), less = new AVLTree(), greater = new AVLTree();
+		less.aug = aug;
+		greater.aug = aug;
+		scratch.root = root;
+		AVLNode found = scratch.splitInto(k, less, greater);
+		return new AVLNode[] { less.root, found, greater.root };
+	}
+
+	/**
+	 * --joinNodes--
+	 * Complexity - O(logn)
+	 * @pre l & r have no parent, all keys under l < x.getKey() < all keys under r
+	 * @return root of the tree of l, x and r
+	 * (the overloads with aug also keep the aggregates of aug, null = none)
+	 */
+	static AVLNode joinNodes(AVLNode l, AVLNode x, AVLNode r) {
+		return joinNodes(l, x, r, null);
+	}
+
+	static AVLNode joinNodes(AVLNode l, AVLNode x, AVLNode r, Augmentation aug) {
+		AVLTree scratch = new AVLTree();
+		scratch.aug = aug;
+		return scratch.joinRoots(l, x, r);
+	}
+
+	/**
+	 * --joinNodes-- (without a middle item)
+	 * Complexity - O(logn)
+	 * @pre l & r have no parent, all keys under l < all keys under r
+	 * @return root of the tree of l and r (r's minimum becomes the middle item)
+	 * (the overload with aug also keeps the aggregates of aug, null = none)
+	 */
+	static AVLNode joinNodes(AVLNode l, AVLNode r) {
+		return joinNodes(l, r, (Augmentation) null);
+	}
+
+	static AVLNode joinNodes(AVLNode l, AVLNode r, Augmentation aug) {
+		if (l == null) {
+			return r;
+		}
+		if (r == null) {
+			return l;
+		}
+		AVLTree scratch = ofRoot(r, false, aug);
+		AVLNode middle = scratch.min;
+		scratch.deleteNode(middle);
+		return scratch.joinRoots(l, middle, scratch.root);
+	}
+
 	/**
 	 * --AVLNode INTERFACE-- ! Do not delete or modify this - otherwise all tests
 	 * will fail !
@@ -752,9 +2175,9 @@ public class AVLTree {
 	}
 
 	/**
-	 * --AVLNode CLASS--
+	 * --AVLNode CLASS-- (static: nodes do not keep a reference to their tree)
 	 */
-	public class AVLNode implements IAVLNode {
+	public static class AVLNode implements IAVLNode {
 
 		/**
 		 * size := size of the tree that this is it's root
@@ -765,21 +2188,26 @@ public class AVLTree {
 		 * 
 		 */
 
-		private Item node_item; // contains key & val
-		private IAVLNode left, right, parent;
+		private int key; // also in item, kept inline for the searches
+		private Item item; // (key, info), made with the node (Item is immutable, so it can be shared)
+		private AVLNode left, right, parent;
 		private int height, size;
+		private int count; // copies of key (more than 1 only in a multiset)
+		private long agg; // aggregate of the subtree, kept only if the tree has an augmentation
 
 		/**
 		 * --CONSTRUCTOR-- creates a new AVLNode that is not connected to others
 		 *  Complexity - O(1)
 		 */
 		public AVLNode(int key, String info) {
-			this.node_item = new Item(key, info);
+			this.key = key;
+			this.item = new Item(key, info);
 			this.left = null;
 			this.right = null;
 			this.parent = null;
 			this.height = 0;
 			this.size = 1;
+			this.count = 1;
 		}
 
 		/**
@@ -787,12 +2215,14 @@ public class AVLTree {
 		 *  Complexity - O(1)
 		 */
 		public AVLNode(int key, String info, AVLNode parent) {
-			this.node_item = new Item(key, info);
+			this.key = key;
+			this.item = new Item(key, info);
 			this.left = null;
 			this.right = null;
 			this.parent = parent;
 			this.height = 0;
 			this.size = 1;
+			this.count = 1;
 		}
 
 		/**
@@ -800,8 +2230,7 @@ public class AVLTree {
 		 * Complexity - O(1)
 		 */
 		public int getBF() {
-			int[] heights = this.getChildrenHeights();
-			return heights[0] - heights[1]; // this.left.getHeight() - this.right.getHeight()
+			return this.leftHeight() - this.rightHeight();
 		}
 
 		/**
@@ -809,7 +2238,7 @@ public class AVLTree {
 		 * Complexity - O(1)
 		 */
 		public int getKey() {
-			return this.node_item.getKey();
+			return this.key;
 		}
 
 		/**
@@ -817,14 +2246,19 @@ public class AVLTree {
 		 * Complexity - O(1)
 		 */
 		public String getValue() {
-			return this.node_item.getInfo();
+			return this.item.getInfo();
 		}
 
 		/**
 		 * --SETLEFT--
 		 * Complexity - O(1)
+		 * @throws IllegalArgumentException if node is not an AVLNode (the tree links only its own nodes)
 		 */
 		public void setLeft(IAVLNode node) {
+			this.setLeft(asNode(node));
+		}
+
+		public void setLeft(AVLNode node) {
 			this.left = node;
 			this.updateHeight();
 			this.updateSize();
@@ -834,15 +2268,20 @@ public class AVLTree {
 		 * --GETLEFT--
 		 * Complexity - O(1)
 		 */
-		public IAVLNode getLeft() {
+		public AVLNode getLeft() {
 			return this.left;
 		}
 
 		/**
 		 * --SETRIGHT--
 		 * Complexity - O(1)
+		 * @throws IllegalArgumentException if node is not an AVLNode
 		 */
 		public void setRight(IAVLNode node) {
+			this.setRight(asNode(node));
+		}
+
+		public void setRight(AVLNode node) {
 			this.right = node;
 			this.updateHeight();
 			this.updateSize();
@@ -852,23 +2291,41 @@ public class AVLTree {
 		 * --GETRIGHT--
 		 * Complexity - O(1)
 		 */
-		public IAVLNode getRight() {
+		public AVLNode getRight() {
 			return this.right;
 		}
 
 		/**
 		 * --SETPARENT--
 		 * Complexity - O(1)
+		 * @throws IllegalArgumentException if node is not an AVLNode
 		 */
 		public void setParent(IAVLNode node) {
+			this.setParent(asNode(node));
+		}
+
+		public void setParent(AVLNode node) {
 			this.parent = node;
 		}
 
+		/**
+		 * --asNode--
+		 * Complexity - O(1)
+		 * @return node as an AVLNode (null stays null)
+		 * @throws IllegalArgumentException if node is another IAVLNode implementation
+		 */
+		private static AVLNode asNode(IAVLNode node) {
+			if (node != null && !(node instanceof AVLNode)) {
+				throw new IllegalArgumentException("not an AVLTree node: " + node.getClass().getName());
+			}
+			return (AVLNode) node;
+		}
+
 		/**
 		 * --GETPARENT--
 		 * Complexity - O(1)
 		 */
-		public IAVLNode getParent() {
+		public AVLNode getParent() {
 			return this.parent;
 		}
 
@@ -885,7 +2342,8 @@ public class AVLTree {
 		 * Complexity - O(1)
 		 */
 		public void setItem(Item new_item) {
-			this.node_item = new_item;
+			this.key = new_item.getKey();
+			this.item = new_item;
 		}
 
 		/**
@@ -894,8 +2352,7 @@ public class AVLTree {
 		 * @post updates node's height according to children's heights
 		 */
 		public void updateHeight() {
-			int[] heights = this.getChildrenHeights(); // heights[0] == left height, heights[1] == right height
-			this.setHeight(1 + Math.max(heights[0], heights[1]));
+			this.height = 1 + Math.max(this.leftHeight(), this.rightHeight());
 		}
 
 		/**
@@ -904,50 +2361,68 @@ public class AVLTree {
 		 * @post updates node's size according to children's sizes
 		 */
 		public void updateSize() {
-			int[] sizes = this.getChildrenSizes();
-			this.size = 1 + sizes[0] + sizes[1];
+			this.size = this.count + this.leftSize() + this.rightSize();
 		}
 
 		/**
-		 * --getChildrenHeights--
+		 * --replaceChild--
 		 * Complexity - O(1)
-		 * @return heights array: heights[0] == left height, heights[1] == right height
-		 * @defines empty tree height==-1
+		 * @pre oldChild is a child of this
+		 * @post newChild is in oldChild's side of this,
+		 *       this height & size are NOT updated (unlike setLeft / setRight)
 		 */
-		private int[] getChildrenHeights() { 
-			int[] heights = new int[2];
-			if (this.left != null) {
-				heights[0] = this.left.getHeight();
-			} else {
-				heights[0] = -1;
-			}
-			if (this.right != null) {
-				heights[1] = this.right.getHeight();
+		private void replaceChild(AVLNode oldChild, AVLNode newChild) {
+			if (this.left == oldChild) {
+				this.left = newChild;
 			} else {
-				heights[1] = -1;
+				this.right = newChild;
 			}
-			return heights;
 		}
 
 		/**
-		 * --getChildrenSizes--
+		 * --addToSize--
 		 * Complexity - O(1)
-		 * @return sizes array: sizes[0] == left size, sizes[1] == right size
+		 * @post size += delta (for an ancestor of a change that did not change heights)
+		 */
+		private void addToSize(int delta) {
+			this.size += delta;
+		}
+
+		/**
+		 * --addToCount--
+		 * Complexity - O(1)
+		 * @post count += delta (sizes are NOT updated)
+		 */
+		private void addToCount(int delta) {
+			this.count += delta;
+		}
+
+		/**
+		 * --leftHeight / rightHeight--
+		 * Complexity - O(1)
+		 * @return height of the left / right child
+		 * @defines empty tree height==-1
+		 */
+		private int leftHeight() {
+			return this.left == null ? -1 : this.left.height;
+		}
+
+		private int rightHeight() {
+			return this.right == null ? -1 : this.right.height;
+		}
+
+		/**
+		 * --leftSize / rightSize--
+		 * Complexity - O(1)
+		 * @return size of the left / right child
 		 * @defines empty tree size == 0
 		 */
-		private int[] getChildrenSizes() {
-			int[] sizes = new int[2];
-			if (this.left != null) {
-				sizes[0] = ((AVLNode) this.left).size;
-			} else {
-				sizes[0] = 0;
-			}
-			if (this.right != null) {
-				sizes[1] = ((AVLNode) this.right).size;
-			} else {
-				sizes[1] = 0;
-			}
-			return sizes;
+		private int leftSize() {
+			return this.left == null ? 0 : this.left.size;
+		}
+
+		private int rightSize() {
+			return this.right == null ? 0 : this.right.size;
 		}
 
 		/**
@@ -969,12 +2444,20 @@ public class AVLTree {
 		 /**
 		  *  --GET-SUBTREE-RANK--
 		 * Complexity - O(1)
+		 * (the rank of the first copy in a multiset)
 		 */
 		public int getSubtreeRank() {
-			return this.getChildrenSizes()[0] + 1;
+			return this.leftSize() + 1;
 		}
-		 
+
 		/**
+		 * --GETCOUNT--
+		 * Complexity - O(1)
+		 * @return number of copies of the key (1 unless the tree is a multiset)
+		 */
+		public int getCount() {
+			return this.count;
+		}
 
 		/**
 		 * --SetSide--
@@ -998,18 +2481,19 @@ public class AVLTree {
 		 */
 		public AVLNode getSide(boolean side) {
 			if (side) { // side is right
-				return (AVLNode) this.getRight();
+				return this.getRight();
 			}
 			// side is left
-			return (AVLNode) this.getLeft();
+			return this.getLeft();
 		}
 
 		/**
 		 * --GETITEM--
 		 * Complexity - O(1)
+		 * @return the Item of this node's key & info (no allocation, Item is immutable)
 		 */
 		public Item getItem() {
-			return this.node_item;
+			return this.item;
 		}
 
 		/**
@@ -1025,8 +2509,7 @@ public class AVLTree {
 		 * Complexity - O(1)
 		 */
 		public boolean hasOneChild() {
-			int[] sizes = this.getChildrenSizes();
-			return (sizes[0] == 0 && sizes[1] != 0) || (sizes[1] == 0 && sizes[0] != 0);
+			return (this.left == null) != (this.right == null);
 		}
 
 		/**
@@ -1050,9 +2533,9 @@ public class AVLTree {
 		 */
 		public AVLNode getOnlyChild() {
 			if (this.getLeft() != null) {
-				return (AVLNode) this.getLeft();
+				return this.getLeft();
 			}
-			return (AVLNode) this.getRight();
+			return this.getRight();
 		}
 
 	}
@@ -0,0 +1,485 @@
+import java.util.Arrays;
+
+/**
+ * ---ArrayAVLTree---
+ * An implementation of a AVL Tree with distinct integer keys and info,
+ * that keeps its nodes in parallel primitive arrays instead of AVLNode objects.
+ *
+ * node i is described by key[i], info[i], left[i], right[i], parent[i], height[i], size[i]
+ * index 0 is NIL: height[0] == -1, size[0] == 0, so children of leaves need no null checks.
+ * deleted slots are kept in a free list (chained through right[]) and reused by insert.
+ *
+ * Memory per key (compressed oops): 6 ints + 1 reference = 28 bytes,
+ * compared to a 40 bytes AVLNode object in AVLTree (+ pointer chasing on every level).
+ */
+public class ArrayAVLTree {
+
+	private static final int NIL = 0;
+	private static final int DEFAULT_CAPACITY = 16;
+
+	private int[] key, left, right, parent, height, size;
+	private String[] info;
+	private int root, min, max;
+	private int freeHead; // first free slot (NIL if none)
+	private int top; // first slot that was never used
+
+	/**
+	 * --CONSTRUCTOR--
+	 * Complexity - O(1)
+	 */
+	public ArrayAVLTree() {
+		this(DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * --CONSTRUCTOR--
+	 * Complexity - O(capacity)
+	 * @param capacity - number of keys that can be inserted before the arrays grow
+	 */
+	public ArrayAVLTree(int capacity) {
+		int len = Math.max(capacity, 1) + 1; // +1 for NIL
+		this.key = new int[len];
+		this.left = new int[len];
+		this.right = new int[len];
+		this.parent = new int[len];
+		this.height = new int[len];
+		this.size = new int[len];
+		this.info = new String[len];
+		this.height[NIL] = -1;
+		this.root = NIL;
+		this.min = NIL;
+		this.max = NIL;
+		this.freeHead = NIL;
+		this.top = 1;
+	}
+
+	/**
+	 * --EMPTY--
+	 * Complexity - O(1)
+	 */
+	public boolean empty() {
+		return this.root == NIL;
+	}
+
+	/**
+	 * --MIN--
+	 * Complexity - O(1)
+	 * @return the info of the node with the smallest key
+	 */
+	public String min() {
+		return this.info[this.min]; // info[NIL] == null
+	}
+
+	/**
+	 * --MAX--
+	 * Complexity - O(1)
+	 * @return the info of the node with the biggest key
+	 */
+	public String max() {
+		return this.info[this.max];
+	}
+
+	/**
+	 * --SIZE--
+	 * Complexity - O(1)
+	 */
+	public int size() {
+		return this.size[this.root]; // size[NIL] == 0
+	}
+
+	/**
+	 * --INSERT--
+	 * Complexity - O(logn) (amortized, arrays may grow)
+	 * @param k - key to be inserted
+	 * @param i - info value to be inserted
+	 * @post if key not in the the tree: inserts key to the tree, else nothing
+	 * @return number of rotations done, -1 if k is already in the tree
+	 */
+	public int insert(int k, String i) {
+		int par = this.findByKey(k);
+
+		if (par == NIL) {// empty tree
+			this.root = this.newNode(k, i, NIL);
+			this.min = this.root;
+			this.max = this.root;
+			return 0;
+		}
+
+		if (this.key[par] == k) {// key is already in the tree
+			return -1;
+		}
+
+		int new_node = this.newNode(k, i, par);
+		if (k < this.key[par]) {
+			this.left[par] = new_node;
+		} else {
+			this.right[par] = new_node;
+		}
+
+		//updates min/max if needed
+		if (k < this.key[this.min]) {
+			this.min = new_node;
+		}
+		if (this.key[this.max] < k) {
+			this.max = new_node;
+		}
+
+		return this.rebalanceUpwards(par);
+	}
+
+	/**
+	 * --SEARCH--
+	 * Complexity - O(log n)
+	 * @param k - key to be searched
+	 * @return info of k if k in the tree, otherwise null
+	 */
+	public String search(int k) {
+		int node = this.findByKey(k);
+		if (node != NIL && this.key[node] == k) {
+			return this.info[node];
+		}
+		return null;
+	}
+
+	/**
+	 * --DELETE--
+	 * Complexity - O(logn)
+	 * @param k == key of the node that need to be deleted
+	 * if k in the tree: @post delete the specified node, @return number of
+	 * rotations done otherwise, @return -1
+	 */
+	public int delete(int k) {
+		int node = this.findByKey(k);
+		if (node == NIL || this.key[node] != k) { // k is not in this tree
+			return -1;
+		}
+
+		// update min or max if needed
+		if (node == this.max) {
+			this.max = this.getPredecessor(node);
+		}
+		if (node == this.min) {
+			this.min = this.getSuccessor(node);
+		}
+
+		if (this.left[node] != NIL && this.right[node] != NIL) {
+			// two children --> move the successor's item here and delete the successor instead
+			int succ = this.getSuccessor(node);
+			this.key[node] = this.key[succ];
+			this.info[node] = this.info[succ];
+			if (this.max == succ) {
+				this.max = node;
+			}
+			node = succ;
+		}
+
+		// node has at most one child now
+		int child = this.left[node] != NIL ? this.left[node] : this.right[node];
+		int par = this.parent[node];
+		if (child != NIL) {
+			this.parent[child] = par;
+		}
+		if (par == NIL) {
+			this.root = child;
+		} else if (this.left[par] == node) {
+			this.left[par] = child;
+		} else {
+			this.right[par] = child;
+		}
+		this.freeNode(node);
+
+		return this.rebalanceUpwards(par);
+	}
+
+	/**
+	 * --KEYS TO ARRAY--
+	 * Complexity - O(n)
+	 * @return sorted array which contains all keys in the tree, or an empty array
+	 *         if the tree is empty.
+	 */
+	public int[] keysToArray() {
+		int[] res = new int[this.size()];
+		int node = this.min;
+		for (int j = 0; j < res.length; j++) {
+			res[j] = this.key[node];
+			node = this.getSuccessor(node);
+		}
+		return res;
+	}
+
+	/**
+	 * --INFO TO ARRAY--
+	 * Complexity - O(n)
+	 * @return an array which contains all info in the tree, sorted by their
+	 *         respective keys, or an empty array if the tree is empty.
+	 */
+	public String[] infoToArray() {
+		String[] res = new String[this.size()];
+		int node = this.min;
+		for (int j = 0; j < res.length; j++) {
+			res[j] = this.info[node];
+			node = this.getSuccessor(node);
+		}
+		return res;
+	}
+
+	/**
+	 * --SELECT ITEM--
+	 * Complexity - O(log n)
+	 * @param k - rank to be looked for
+	 * @return the item ranked k, null if k is not in [1, size]
+	 */
+	public Item selectItemByRank(int k) {
+		if (k < 1 || k > this.size()) {
+			return null;
+		}
+		int node = this.root;
+		while (node != NIL) {
+			int curr_rank = this.size[this.left[node]] + 1;
+			if (k == curr_rank) {
+				return new Item(this.key[node], this.info[node]);
+			}
+			if (k < curr_rank) {
+				node = this.left[node];
+			} else {// k > curr_rank
+				node = this.right[node];
+				k = k - curr_rank;
+			}
+		}
+		return null; //shouldn't be here if input is valid
+	}
+
+	/**
+	 * --FIND BY KEY--
+	 * Complexity - O(logn)
+	 * @return if k in the tree: the node that key[node] == k <br>
+	 *         else: the suitable parent for a new node with key == k (NIL for empty tree)
+	 */
+	private int findByKey(int k) {
+		int node = this.root, par = NIL;
+		while (node != NIL) {
+			par = node;
+			if (k == this.key[node]) {
+				return node;
+			}
+			node = k < this.key[node] ? this.left[node] : this.right[node];
+		}
+		return par;
+	}
+
+	/**
+	 * --REBALANCE UPWARDS--
+	 * Complexity - O(logn)
+	 * @post fixed tree from node to the root (no AVL criminals & updated sizes+heights)
+	 * @return number of rotations done
+	 */
+	private int rebalanceUpwards(int node) {
+		int rotation_cou = 0;
+		while (node != NIL) {
+			this.update(node);
+			int curr_BF = this.getBF(node);
+
+			if (curr_BF == -2) { // -->subtree tends to the Right
+				int right_child = this.right[node];
+				if (this.getBF(right_child) > 0) { // RL Case
+					this.rotateRight(right_child);
+					rotation_cou++;
+				}
+				node = this.rotateLeft(node);
+				rotation_cou++;
+			} else if (curr_BF == 2) { // -->subtree tends to the Left
+				int left_child = this.left[node];
+				if (this.getBF(left_child) < 0) { // LR Case
+					this.rotateLeft(left_child);
+					rotation_cou++;
+				}
+				node = this.rotateRight(node);
+				rotation_cou++;
+			}
+
+			node = this.parent[node];
+		}
+		return rotation_cou;
+	}
+
+	/**
+	 * --REBALANCE HELPER: ROTATE LEFT--
+	 * Complexity - O(1)
+	 * @pre right[node] != NIL
+	 * @return substitute of the given node, after being rotated
+	 */
+	private int rotateLeft(int node) {
+		int new_parent = this.right[node];
+		int par = this.parent[node];
+
+		this.right[node] = this.left[new_parent];
+		if (this.right[node] != NIL) {
+			this.parent[this.right[node]] = node;
+		}
+		this.left[new_parent] = node;
+		this.parent[node] = new_parent;
+		this.replaceChild(par, node, new_parent);
+
+		this.update(node);
+		this.update(new_parent);
+		return new_parent;
+	}
+
+	/**
+	 * --REBALANCE HELPER: ROTATE RIGHT--
+	 * Complexity - O(1)
+	 * @pre left[node] != NIL
+	 * @return substitute of the given node, after being rotated
+	 */
+	private int rotateRight(int node) {
+		int new_parent = this.left[node];
+		int par = this.parent[node];
+
+		this.left[node] = this.right[new_parent];
+		if (this.left[node] != NIL) {
+			this.parent[this.left[node]] = node;
+		}
+		this.right[new_parent] = node;
+		this.parent[node] = new_parent;
+		this.replaceChild(par, node, new_parent);
+
+		this.update(node);
+		this.update(new_parent);
+		return new_parent;
+	}
+
+	/**
+	 * --ROTATE HELPER: replaceChild--
+	 * Complexity - O(1)
+	 * @post newChild takes oldChild's place under par (or as the root if par == NIL)
+	 */
+	private void replaceChild(int par, int oldChild, int newChild) {
+		this.parent[newChild] = par;
+		if (par == NIL) {
+			this.root = newChild;
+		} else if (this.left[par] == oldChild) {
+			this.left[par] = newChild;
+		} else {
+			this.right[par] = newChild;
+		}
+	}
+
+	/**
+	 * --update--
+	 * Complexity - O(1)
+	 * @post updates node's height and size according to its children
+	 */
+	private void update(int node) {
+		int l = this.left[node], r = this.right[node];
+		this.height[node] = 1 + Math.max(this.height[l], this.height[r]);
+		this.size[node] = 1 + this.size[l] + this.size[r];
+	}
+
+	/**
+	 * --GETBF--
+	 * Complexity - O(1)
+	 */
+	private int getBF(int node) {
+		return this.height[this.left[node]] - this.height[this.right[node]];
+	}
+
+	/**
+	 * --getSuccessor--
+	 * Complexity - O(logn)
+	 * @return node's successor, NIL if node is the maximum
+	 */
+	private int getSuccessor(int node) {
+		if (this.right[node] != NIL) { // Go right once, and then left all the way
+			node = this.right[node];
+			while (this.left[node] != NIL) {
+				node = this.left[node];
+			}
+			return node;
+		}
+		// Go up from node until the first turn right
+		int par = this.parent[node];
+		while (par != NIL && this.right[par] == node) {
+			node = par;
+			par = this.parent[node];
+		}
+		return par;
+	}
+
+	/**
+	 * --getPredecessor--
+	 * Complexity - O(logn)
+	 * @return node's predecessor, NIL if node is the minimum
+	 */
+	private int getPredecessor(int node) {
+		if (this.left[node] != NIL) { // Go left once, and then right all the way
+			node = this.left[node];
+			while (this.right[node] != NIL) {
+				node = this.right[node];
+			}
+			return node;
+		}
+		// Go up from node until the first turn left
+		int par = this.parent[node];
+		while (par != NIL && this.left[par] == node) {
+			node = par;
+			par = this.parent[node];
+		}
+		return par;
+	}
+
+	/**
+	 * --NODE POOL: newNode--
+	 * Complexity - O(1) amortized
+	 * @return index of a fresh leaf with key k and info i under par
+	 */
+	private int newNode(int k, String i, int par) {
+		int node;
+		if (this.freeHead != NIL) { // reuse a deleted slot
+			node = this.freeHead;
+			this.freeHead = this.right[node];
+		} else {
+			if (this.top == this.key.length) {
+				this.grow();
+			}
+			node = this.top++;
+		}
+		this.key[node] = k;
+		this.info[node] = i;
+		this.left[node] = NIL;
+		this.right[node] = NIL;
+		this.parent[node] = par;
+		this.height[node] = 0;
+		this.size[node] = 1;
+		return node;
+	}
+
+	/**
+	 * --NODE POOL: freeNode--
+	 * Complexity - O(1)
+	 * @post node's slot is pushed to the free list
+	 */
+	private void freeNode(int node) {
+		this.info[node] = null; // let the info be collected
+		this.left[node] = NIL;
+		this.parent[node] = NIL;
+		this.right[node] = this.freeHead;
+		this.freeHead = node;
+	}
+
+	/**
+	 * --NODE POOL: grow--
+	 * Complexity - O(n)
+	 * @post all arrays are doubled
+	 */
+	private void grow() {
+		int len = this.key.length * 2;
+		this.key = Arrays.copyOf(this.key, len);
+		this.left = Arrays.copyOf(this.left, len);
+		this.right = Arrays.copyOf(this.right, len);
+		this.parent = Arrays.copyOf(this.parent, len);
+		this.height = Arrays.copyOf(this.height, len);
+		this.size = Arrays.copyOf(this.size, len);
+		this.info = Arrays.copyOf(this.info, len);
+	}
+
+}
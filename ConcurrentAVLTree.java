@@ -0,0 +1,1020 @@
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * ---ConcurrentAVLTree---
+ * A thread safe AVL Tree dictionary (distinct integer keys and info), a relaxed balance optimistic
+ * tree after Bronson, Casper, Chafi & Olukotun, "A Practical Concurrent Binary Search Tree" (2010).
+ *
+ * every node has a version. a rotation moves a node down (its subtree covers a smaller key range
+ * after it), so the rotating writer marks the node's version as shrinking, moves the links and then
+ * bumps the version. readers never lock: they walk hand over hand - read a child, read the child's
+ * version and then check that the node's own version did not change. a walk that sees a change
+ * goes back up one level and retries from there (it waits for a shrink in progress to end first).
+ *
+ * writers lock (synchronized) only the nodes they change, always a parent before its child:
+ * an insert locks the parent of the new leaf, a delete the node (and its parent, if the node is
+ * unlinked), a rotation the parent, the node and the one or two children that move.
+ * balance is relaxed: after its change a writer fixes the heights and rotates on its way up as far
+ * as the damage goes, so the tree is a strict AVL tree again once no writer runs.
+ * a deleted key with two children stays in the tree as a routing node (info null) until it has
+ * less than two children, then it is unlinked.
+ *
+ * size is counted in a LongAdder. min, max, selectItemByRank, keysToArray and infoToArray walk the
+ * keys in order one successor at a time, so they are weakly consistent: a key that is in the tree
+ * during the whole walk is seen, a key inserted or deleted during it may or may not be.
+ */
+public class ConcurrentAVLTree {
+
+	// a node's version: UNLINKED for good once the node left the tree, SHRINKING during a rotation,
+	// and the number of rotations that moved it down above those two bits
+	private static final long UNLINKED = 1L;
+	private static final long SHRINKING = 2L;
+	private static final long SHRINK_COUNT = 4L;
+	private static final int SPIN_COUNT = 100; // spins on a shrinking node before waiting for its lock
+
+	// nodeCondition results (other results are the height the node should have)
+	private static final int UNLINK_REQUIRED = -1;
+	private static final int REBALANCE_REQUIRED = -2;
+	private static final int NOTHING_REQUIRED = -3;
+
+	// returned by a walk whose node has changed since it was reached (compared by identity)
+	private static final String RETRY = new String("retry");
+	private static final Item RETRY_ITEM = new Item(0, RETRY);
+	private static final int RETRY_UPDATE = Integer.MIN_VALUE;
+
+	// the stored info of a key inserted with info null (null marks a routing node)
+	private static final String NULL_INFO = new String("null");
+
+	private final Node rootHolder; // sentinel, the root is its right child
+	private final LongAdder size;
+
+	/**
+	 * --CONSTRUCTOR--
+	 * Complexity - O(1)
+	 */
+	public ConcurrentAVLTree() {
+		this.rootHolder = new Node(0, null, null);
+		this.size = new LongAdder();
+	}
+
+	/**
+	 * --SEARCH--
+	 * Complexity - O(logn), never locks (waits only for a rotation of a node on its path to end)
+	 * @param k - key to be searched
+	 * @return info of k if k in the tree, otherwise null
+	 */
+	public String search(int k) {
+		while (true) {
+			Node root = this.rootHolder.right;
+			if (root == null) {
+				return null;
+			}
+			if (k == root.key) { // keys never change, so how the node was reached does not matter
+				return decode(root.value);
+			}
+			long ovl = root.version;
+			if (isShrinkingOrUnlinked(ovl)) {
+				root.waitUntilShrinkCompleted(ovl);
+			} else if (root == this.rootHolder.right) { // the read of the root that ovl protects
+				String res = attemptSearch(k, root, ovl);
+				if (res != RETRY) {
+					return res;
+				}
+			}
+		}
+	}
+
+	/**
+	 * --ATTEMPT SEARCH--
+	 * searches k under node, that was reached by a valid walk when its version was nodeOVL
+	 * @return info of k (null if k is not in the tree), RETRY if node has changed
+	 */
+	private static String attemptSearch(int k, Node node, long nodeOVL) {
+		boolean goLeft = k < node.key;
+		while (true) {
+			Node child = node.child(goLeft);
+			if (child == null) {
+				return (node.version != nodeOVL) ? RETRY : null;
+			}
+			if (k == child.key) {
+				return decode(child.value);
+			}
+			long childOVL = child.version;
+			if (isShrinkingOrUnlinked(childOVL)) {
+				child.waitUntilShrinkCompleted(childOVL);
+				if (node.version != nodeOVL) {
+					return RETRY;
+				}
+			} else if (child != node.child(goLeft)) { // the read of child that childOVL protects
+				if (node.version != nodeOVL) {
+					return RETRY;
+				}
+			} else {
+				if (node.version != nodeOVL) {
+					return RETRY;
+				}
+				// the walk to node was valid until now and child is valid from here on,
+				// so a later change of node does not matter to the walk below child
+				String res = attemptSearch(k, child, childOVL);
+				if (res != RETRY) {
+					return res;
+				}
+			}
+		}
+	}
+
+	/**
+	 * --SIZE--
+	 * Complexity - O(number of threads), exact once no writer runs
+	 */
+	public int size() {
+		return (int) Math.max(this.size.sum(), 0);
+	}
+
+	/**
+	 * --EMPTY--
+	 * Complexity - O(number of threads)
+	 */
+	public boolean empty() {
+		return this.size() == 0;
+	}
+
+	/**
+	 * --MIN--
+	 * Complexity - O(logn), never locks
+	 * @return the info of the smallest key (null if the tree is empty)
+	 */
+	public String min() {
+		Item res = this.closest(Integer.MIN_VALUE, true);
+		return (res == null) ? null : res.getInfo();
+	}
+
+	/**
+	 * --MAX--
+	 * Complexity - O(logn), never locks
+	 * @return the info of the biggest key (null if the tree is empty)
+	 */
+	public String max() {
+		Item res = this.closest(Integer.MAX_VALUE, false);
+		return (res == null) ? null : res.getInfo();
+	}
+
+	/**
+	 * --SELECT ITEM--
+	 * Complexity - O(k*logn) (k successor searches, there are no subtree sizes), never locks
+	 * @return the item ranked k, null if k is not in [1, size]
+	 */
+	public Item selectItemByRank(int k) {
+		if (k < 1) {
+			return null;
+		}
+		Item res = this.closest(Integer.MIN_VALUE, true);
+		for (int r = 1; r < k && res != null; r++) {
+			res = this.successor(res);
+		}
+		return res;
+	}
+
+	/**
+	 * --KEYS TO ARRAY--
+	 * Complexity - O(n*logn) (n successor searches), never locks
+	 */
+	public int[] keysToArray() {
+		Item[] items = this.items();
+		int[] res = new int[items.length];
+		for (int j = 0; j < items.length; j++) {
+			res[j] = items[j].getKey();
+		}
+		return res;
+	}
+
+	/**
+	 * --INFO TO ARRAY--
+	 * Complexity - O(n*logn) (n successor searches), never locks
+	 */
+	public String[] infoToArray() {
+		Item[] items = this.items();
+		String[] res = new String[items.length];
+		for (int j = 0; j < items.length; j++) {
+			res[j] = items[j].getInfo();
+		}
+		return res;
+	}
+
+	/**
+	 * --ITEMS--
+	 * @return the items of the tree sorted by their keys (weakly consistent)
+	 */
+	private Item[] items() {
+		Item[] res = new Item[Math.max(this.size(), 16)];
+		int n = 0;
+		for (Item item = this.closest(Integer.MIN_VALUE, true); item != null; item = this.successor(item)) {
+			if (n == res.length) {
+				res = Arrays.copyOf(res, 2 * n);
+			}
+			res[n++] = item;
+		}
+		return Arrays.copyOf(res, n);
+	}
+
+	private Item successor(Item item) {
+		return (item.getKey() == Integer.MAX_VALUE) ? null : this.closest(item.getKey() + 1, true);
+	}
+
+	/**
+	 * --CLOSEST--
+	 * Complexity - O(logn), never locks
+	 * @param up - true for the smallest key >= k, false for the biggest key <= k
+	 * @return the item of that key, null if there is none
+	 */
+	private Item closest(int k, boolean up) {
+		while (true) {
+			Node root = this.rootHolder.right;
+			if (root == null) {
+				return null;
+			}
+			long ovl = root.version;
+			if (isShrinkingOrUnlinked(ovl)) {
+				root.waitUntilShrinkCompleted(ovl);
+			} else if (root == this.rootHolder.right) {
+				Item res = attemptClosest(k, up, root, ovl);
+				if (res != RETRY_ITEM) {
+					return res;
+				}
+			}
+		}
+	}
+
+	/**
+	 * --ATTEMPT CLOSEST--
+	 * the closest key to k (see closest) in the subtree of node, that was reached by a valid walk
+	 * when its version was nodeOVL: the near subtree first, then node itself, then the far subtree
+	 * @return its item, null if there is none, RETRY_ITEM if node has changed
+	 */
+	private static Item attemptClosest(int k, boolean up, Node node, long nodeOVL) {
+		int key = node.key;
+		if (up ? k > key : k < key) { // node and its near subtree are out of range
+			return attemptClosestBelow(k, up, node, nodeOVL, !up);
+		}
+		if (k != key) {
+			Item res = attemptClosestBelow(k, up, node, nodeOVL, up);
+			if (res != null) { // found, or RETRY_ITEM
+				return res;
+			}
+		}
+		String value = node.value;
+		if (node.version != nodeOVL) {
+			return RETRY_ITEM;
+		}
+		if (value != null) {
+			return new Item(key, decode(value));
+		}
+		return attemptClosestBelow(k, up, node, nodeOVL, !up); // a routing node
+	}
+
+	/**
+	 * walks from node to its left (goLeft) or right child hand over hand, as attemptSearch does
+	 */
+	private static Item attemptClosestBelow(int k, boolean up, Node node, long nodeOVL, boolean goLeft) {
+		while (true) {
+			Node child = node.child(goLeft);
+			if (child == null) {
+				return (node.version != nodeOVL) ? RETRY_ITEM : null;
+			}
+			long childOVL = child.version;
+			if (isShrinkingOrUnlinked(childOVL)) {
+				child.waitUntilShrinkCompleted(childOVL);
+				if (node.version != nodeOVL) {
+					return RETRY_ITEM;
+				}
+			} else if (child != node.child(goLeft)) {
+				if (node.version != nodeOVL) {
+					return RETRY_ITEM;
+				}
+			} else {
+				if (node.version != nodeOVL) {
+					return RETRY_ITEM;
+				}
+				Item res = attemptClosest(k, up, child, childOVL);
+				if (res != RETRY_ITEM) {
+					return res;
+				}
+			}
+		}
+	}
+
+	/**
+	 * --INSERT--
+	 * Complexity - O(logn), locks the parent of the new node and then the nodes it rebalances
+	 * @return number of rotations done by this insert, -1 if k is already in the tree
+	 */
+	public int insert(int k, String i) {
+		return this.update(k, (i == null) ? NULL_INFO : i);
+	}
+
+	/**
+	 * --DELETE--
+	 * Complexity - O(logn), locks the node (and its parent, if it is unlinked) and then the nodes
+	 *              it rebalances
+	 * @return number of rotations done by this delete, -1 if k is not in the tree
+	 */
+	public int delete(int k) {
+		return this.update(k, null);
+	}
+
+	/**
+	 * --UPDATE--
+	 * inserts k with the stored info value, or deletes k if value is null
+	 * @return number of rotations done, -1 if nothing changed
+	 */
+	private int update(int k, String value) {
+		while (true) {
+			Node root = this.rootHolder.right;
+			if (root == null) {
+				if (value == null) {
+					return -1;
+				}
+				if (this.attemptInsertIntoEmpty(k, value)) {
+					this.size.increment();
+					return 0;
+				}
+			} else {
+				long ovl = root.version;
+				if (isShrinkingOrUnlinked(ovl)) {
+					root.waitUntilShrinkCompleted(ovl);
+				} else if (root == this.rootHolder.right) {
+					int res = this.attemptUpdate(k, value, this.rootHolder, root, ovl);
+					if (res != RETRY_UPDATE) {
+						return res;
+					}
+				}
+			}
+		}
+	}
+
+	private boolean attemptInsertIntoEmpty(int k, String value) {
+		synchronized (this.rootHolder) {
+			if (this.rootHolder.right != null) {
+				return false;
+			}
+			this.rootHolder.right = new Node(k, value, this.rootHolder);
+			return true;
+		}
+	}
+
+	/**
+	 * --ATTEMPT UPDATE--
+	 * the update of k under node, that was reached from parent by a valid walk when its version was nodeOVL
+	 * @return as update, or RETRY_UPDATE if node has changed
+	 */
+	private int attemptUpdate(int k, String value, Node parent, Node node, long nodeOVL) {
+		if (k == node.key) {
+			return this.attemptNodeUpdate(value, parent, node);
+		}
+		boolean goLeft = k < node.key;
+		while (true) {
+			Node child = node.child(goLeft);
+			if (node.version != nodeOVL) {
+				return RETRY_UPDATE;
+			}
+			if (child == null) {
+				if (value == null) { // k is not in the tree
+					return -1;
+				}
+				boolean inserted = false;
+				Node damaged = null;
+				synchronized (node) {
+					// no rotation can move node while it is locked, so one more check is enough
+					if (node.version != nodeOVL) {
+						return RETRY_UPDATE;
+					}
+					if (node.child(goLeft) == null) { // else another insert won the place, read the child again
+						node.setChild(goLeft, new Node(k, value, node));
+						inserted = true;
+						damaged = fixHeight(node);
+					}
+				}
+				if (inserted) {
+					this.size.increment();
+					return fixHeightAndRebalance(damaged);
+				}
+			} else {
+				long childOVL = child.version;
+				if (isShrinkingOrUnlinked(childOVL)) {
+					child.waitUntilShrinkCompleted(childOVL);
+				} else if (child == node.child(goLeft)) {
+					if (node.version != nodeOVL) {
+						return RETRY_UPDATE;
+					}
+					int res = this.attemptUpdate(k, value, node, child, childOVL);
+					if (res != RETRY_UPDATE) {
+						return res;
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * --ATTEMPT NODE UPDATE--
+	 * the update of node's own key, parent is used only to unlink node (and is checked then)
+	 * @return as update, or RETRY_UPDATE
+	 */
+	private int attemptNodeUpdate(String value, Node parent, Node node) {
+		if (value == null) {
+			if (node.value == null) { // a routing node, k was already deleted
+				return -1;
+			}
+			if (node.left == null || node.right == null) { // node can be unlinked, lock its parent first
+				Node damaged;
+				synchronized (parent) {
+					if (isUnlinked(parent.version) || node.parent != parent) {
+						return RETRY_UPDATE;
+					}
+					synchronized (node) {
+						if (node.value == null) {
+							return -1;
+						}
+						if (!attemptUnlink(parent, node)) {
+							return RETRY_UPDATE;
+						}
+					}
+					damaged = fixHeight(parent);
+				}
+				this.size.decrement();
+				return fixHeightAndRebalance(damaged);
+			}
+		}
+
+		synchronized (node) {
+			if (isUnlinked(node.version)) {
+				return RETRY_UPDATE;
+			}
+			String prev = node.value;
+			if (value == null) {
+				if (prev == null) {
+					return -1;
+				}
+				if (node.left == null || node.right == null) { // it can be unlinked now
+					return RETRY_UPDATE;
+				}
+				node.value = null; // it stays as a routing node
+				this.size.decrement();
+			} else {
+				if (prev != null) { // k is already in the tree
+					return -1;
+				}
+				node.value = value; // a routing node gets its key back
+				this.size.increment();
+			}
+			return 0;
+		}
+	}
+
+	/**
+	 * --ATTEMPT UNLINK--
+	 * removes node (with at most one child) from under parent, both are locked by the caller
+	 * @return false if node is no longer parent's child or now has two children
+	 */
+	private static boolean attemptUnlink(Node parent, Node node) {
+		Node parentL = parent.left;
+		if (parentL != node && parent.right != node) {
+			return false;
+		}
+		Node left = node.left;
+		Node right = node.right;
+		if (left != null && right != null) {
+			return false;
+		}
+		Node splice = (left != null) ? left : right;
+		synchronized (lockOf(splice, node)) { // splice gets a new parent
+			if (parentL == node) {
+				parent.left = splice;
+			} else {
+				parent.right = splice;
+			}
+			if (splice != null) {
+				splice.parent = parent;
+			}
+		}
+		node.version = UNLINKED;
+		node.value = null;
+		return true;
+	}
+
+	/**
+	 * --NODE CONDITION--
+	 * Complexity - O(1), reads node and its children without locks
+	 * @return UNLINK_REQUIRED for a routing node with less than two children, REBALANCE_REQUIRED if
+	 *         node is out of balance, NOTHING_REQUIRED, or else the height node should have
+	 */
+	private static int nodeCondition(Node node) {
+		Node nL = node.left;
+		Node nR = node.right;
+		if ((nL == null || nR == null) && node.value == null) {
+			return UNLINK_REQUIRED;
+		}
+		int hN = node.height;
+		int hL = height(nL);
+		int hR = height(nR);
+		int bal = hL - hR;
+		if (bal < -1 || bal > 1) {
+			return REBALANCE_REQUIRED;
+		}
+		int hNRepl = 1 + Math.max(hL, hR);
+		return (hN != hNRepl) ? hNRepl : NOTHING_REQUIRED;
+	}
+
+	/**
+	 * --FIX HEIGHT AND REBALANCE--
+	 * Complexity - O(logn)
+	 * repairs the damage from node up, until a node that needs nothing (or one that another
+	 * writer is now responsible for), and then from each node a rotation changed, lowest first
+	 * @return number of rotations done
+	 */
+	private static int fixHeightAndRebalance(Node node) {
+		Repair repair = null;
+		while (true) {
+			if (node == null) {
+				node = (repair == null) ? null : repair.pop();
+				if (node == null) {
+					break;
+				}
+			}
+			// the root holder needs no repair
+			int condition = (node.parent == null) ? NOTHING_REQUIRED : nodeCondition(node);
+			if (condition == NOTHING_REQUIRED || isUnlinked(node.version)) {
+				node = null;
+			} else if (condition != UNLINK_REQUIRED && condition != REBALANCE_REQUIRED) {
+				synchronized (node) {
+					node = fixHeight(node);
+				}
+			} else {
+				Node nParent = node.parent;
+				synchronized (nParent) {
+					if (!isUnlinked(nParent.version) && node.parent == nParent) {
+						synchronized (node) {
+							if (repair == null) {
+								repair = new Repair();
+							}
+							node = rebalance(nParent, node, repair);
+						}
+					} // else read node.parent again
+				}
+			}
+		}
+		return (repair == null) ? 0 : repair.rotations;
+	}
+
+	/**
+	 * --FIX HEIGHT--
+	 * fixes the height of node (locked by the caller)
+	 * @return the lowest node that still needs a repair by this writer, null if none
+	 */
+	private static Node fixHeight(Node node) {
+		int c = nodeCondition(node);
+		switch (c) {
+		case REBALANCE_REQUIRED:
+		case UNLINK_REQUIRED:
+			return node; // needs the lock of its parent too
+		case NOTHING_REQUIRED:
+			return null;
+		default:
+			node.height = c;
+			return node.parent;
+		}
+	}
+
+	/**
+	 * --REBALANCE--
+	 * unlinks, rotates or fixes the height of n, n and nParent are locked by the caller
+	 * @param repair - counts the rotations and keeps the nodes they changed
+	 * @return the lowest node that still needs a repair, null if none
+	 */
+	private static Node rebalance(Node nParent, Node n, Repair repair) {
+		Node nL = n.left;
+		Node nR = n.right;
+		if ((nL == null || nR == null) && n.value == null) {
+			if (attemptUnlink(nParent, n)) {
+				return fixHeight(nParent);
+			}
+			return n;
+		}
+
+		int hN = n.height;
+		int hL0 = height(nL);
+		int hR0 = height(nR);
+		int hNRepl = 1 + Math.max(hL0, hR0);
+		int bal = hL0 - hR0;
+		if (bal > 1) {
+			return rebalanceToRight(nParent, n, nL, hR0, repair);
+		} else if (bal < -1) {
+			return rebalanceToLeft(nParent, n, nR, hL0, repair);
+		} else if (hNRepl != hN) {
+			n.height = hNRepl;
+			return fixHeight(nParent);
+		}
+		return null;
+	}
+
+	/**
+	 * --REBALANCE TO RIGHT--
+	 * n's left subtree is too high: a right rotation of n, or a left rotation of nL first if nL's
+	 * right subtree is the higher one. nParent and n are locked by the caller, and every other node
+	 * that gets a new parent is locked here, so no height the rotation reads can change under it
+	 */
+	private static Node rebalanceToRight(Node nParent, Node n, Node nL, int hR0, Repair repair) {
+		synchronized (nL) {
+			int hL = nL.height;
+			if (hL - hR0 <= 1) {
+				return n; // changed since n was read, look at n again
+			}
+			Node nLR = nL.right;
+			int hLL0 = height(nL.left);
+			if (nLR == null) {
+				return rotateRight(nParent, n, nL, hR0, hLL0, null, 0, repair);
+			}
+			synchronized (nLR) { // it moves under n, so its height must not change meanwhile
+				int hLR = nLR.height;
+				if (hLL0 >= hLR) {
+					return rotateRight(nParent, n, nL, hR0, hLL0, nLR, hLR, repair);
+				}
+				// a double rotation only if it leaves nL balanced, else nL is rebalanced on its own
+				// first (and n later, if it still needs it)
+				Node nLRL = nLR.left;
+				Node nLRR = nLR.right;
+				synchronized (lockOf(nLRL, nLR)) {
+					synchronized (lockOf(nLRR, nLR)) {
+						int hLRL = height(nLRL);
+						int b = hLL0 - hLRL;
+						if (b >= -1 && b <= 1) {
+							return rotateRightOverLeft(nParent, n, nL, hR0, hLL0, nLR, hLRL, repair);
+						}
+					}
+				}
+			}
+			return rebalanceToLeft(n, nL, nLR, hLL0, repair);
+		}
+	}
+
+	/**
+	 * --REBALANCE TO LEFT--
+	 * the mirror of rebalanceToRight
+	 */
+	private static Node rebalanceToLeft(Node nParent, Node n, Node nR, int hL0, Repair repair) {
+		synchronized (nR) {
+			int hR = nR.height;
+			if (hL0 - hR >= -1) {
+				return n;
+			}
+			Node nRL = nR.left;
+			int hRR0 = height(nR.right);
+			if (nRL == null) {
+				return rotateLeft(nParent, n, hL0, nR, null, 0, hRR0, repair);
+			}
+			synchronized (nRL) {
+				int hRL = nRL.height;
+				if (hRR0 >= hRL) {
+					return rotateLeft(nParent, n, hL0, nR, nRL, hRL, hRR0, repair);
+				}
+				Node nRLL = nRL.left;
+				Node nRLR = nRL.right;
+				synchronized (lockOf(nRLL, nRL)) {
+					synchronized (lockOf(nRLR, nRL)) {
+						int hRLR = height(nRLR);
+						int b = hRR0 - hRLR;
+						if (b >= -1 && b <= 1) {
+							return rotateLeftOverRight(nParent, n, hL0, nR, nRL, hRR0, hRLR, repair);
+						}
+					}
+				}
+			}
+			return rebalanceToRight(n, nR, nRL, hRR0, repair);
+		}
+	}
+
+	/**
+	 * --ROTATE RIGHT--
+	 * nL takes n's place under nParent, n becomes nL's right child (all are locked, and nLR too)
+	 * @return n, the lowest of the nodes it changed (the others are pushed on repair)
+	 */
+	private static Node rotateRight(Node nParent, Node n, Node nL, int hR, int hLL, Node nLR, int hLR,
+			Repair repair) {
+		long nodeOVL = n.version;
+		Node nPL = nParent.left;
+
+		n.version = beginShrink(nodeOVL);
+
+		n.left = nLR;
+		if (nLR != null) {
+			nLR.parent = n;
+		}
+		nL.right = n;
+		n.parent = nL;
+		if (nPL == n) {
+			nParent.left = nL;
+		} else {
+			nParent.right = nL;
+		}
+		nL.parent = nParent;
+
+		int hNRepl = 1 + Math.max(hLR, hR);
+		n.height = hNRepl;
+		nL.height = 1 + Math.max(hLL, hNRepl);
+
+		n.version = endShrink(nodeOVL);
+		repair.rotations++;
+
+		// the changed nodes from the top down, the lowest one is checked first
+		repair.push(nParent);
+		repair.push(nL);
+		return n;
+	}
+
+	/**
+	 * --ROTATE LEFT--
+	 * the mirror of rotateRight
+	 */
+	private static Node rotateLeft(Node nParent, Node n, int hL, Node nR, Node nRL, int hRL, int hRR,
+			Repair repair) {
+		long nodeOVL = n.version;
+		Node nPL = nParent.left;
+
+		n.version = beginShrink(nodeOVL);
+
+		n.right = nRL;
+		if (nRL != null) {
+			nRL.parent = n;
+		}
+		nR.left = n;
+		n.parent = nR;
+		if (nPL == n) {
+			nParent.left = nR;
+		} else {
+			nParent.right = nR;
+		}
+		nR.parent = nParent;
+
+		int hNRepl = 1 + Math.max(hL, hRL);
+		n.height = hNRepl;
+		nR.height = 1 + Math.max(hNRepl, hRR);
+
+		n.version = endShrink(nodeOVL);
+		repair.rotations++;
+
+		// the changed nodes from the top down, the lowest one is checked first
+		repair.push(nParent);
+		repair.push(nR);
+		return n;
+	}
+
+	/**
+	 * --ROTATE RIGHT OVER LEFT--
+	 * a left rotation of nL and then a right rotation of n: nLR takes n's place under nParent,
+	 * with nL and n as its children (all are locked, and nLR's children too)
+	 * @return n, the lowest of the nodes it changed (the others are pushed on repair)
+	 */
+	private static Node rotateRightOverLeft(Node nParent, Node n, Node nL, int hR, int hLL, Node nLR, int hLRL,
+			Repair repair) {
+		long nodeOVL = n.version;
+		long leftOVL = nL.version;
+		Node nPL = nParent.left;
+		Node nLRL = nLR.left;
+		Node nLRR = nLR.right;
+		int hLRR = height(nLRR);
+
+		n.version = beginShrink(nodeOVL);
+		nL.version = beginShrink(leftOVL);
+
+		n.left = nLRR;
+		if (nLRR != null) {
+			nLRR.parent = n;
+		}
+		nL.right = nLRL;
+		if (nLRL != null) {
+			nLRL.parent = nL;
+		}
+		nLR.left = nL;
+		nL.parent = nLR;
+		nLR.right = n;
+		n.parent = nLR;
+		if (nPL == n) {
+			nParent.left = nLR;
+		} else {
+			nParent.right = nLR;
+		}
+		nLR.parent = nParent;
+
+		int hNRepl = 1 + Math.max(hLRR, hR);
+		n.height = hNRepl;
+		int hLRepl = 1 + Math.max(hLL, hLRL);
+		nL.height = hLRepl;
+		nLR.height = 1 + Math.max(hLRepl, hNRepl);
+
+		n.version = endShrink(nodeOVL);
+		nL.version = endShrink(leftOVL);
+		repair.rotations += 2;
+
+		// the changed nodes from the top down, the lowest one is checked first
+		repair.push(nParent);
+		repair.push(nLR);
+		repair.push(nL);
+		return n;
+	}
+
+	/**
+	 * --ROTATE LEFT OVER RIGHT--
+	 * the mirror of rotateRightOverLeft
+	 */
+	private static Node rotateLeftOverRight(Node nParent, Node n, int hL, Node nR, Node nRL, int hRR, int hRLR,
+			Repair repair) {
+		long nodeOVL = n.version;
+		long rightOVL = nR.version;
+		Node nPL = nParent.left;
+		Node nRLL = nRL.left;
+		Node nRLR = nRL.right;
+		int hRLL = height(nRLL);
+
+		n.version = beginShrink(nodeOVL);
+		nR.version = beginShrink(rightOVL);
+
+		n.right = nRLL;
+		if (nRLL != null) {
+			nRLL.parent = n;
+		}
+		nR.left = nRLR;
+		if (nRLR != null) {
+			nRLR.parent = nR;
+		}
+		nRL.right = nR;
+		nR.parent = nRL;
+		nRL.left = n;
+		n.parent = nRL;
+		if (nPL == n) {
+			nParent.left = nRL;
+		} else {
+			nParent.right = nRL;
+		}
+		nRL.parent = nParent;
+
+		int hNRepl = 1 + Math.max(hL, hRLL);
+		n.height = hNRepl;
+		int hRRepl = 1 + Math.max(hRLR, hRR);
+		nR.height = hRRepl;
+		nRL.height = 1 + Math.max(hNRepl, hRRepl);
+
+		n.version = endShrink(nodeOVL);
+		nR.version = endShrink(rightOVL);
+		repair.rotations += 2;
+
+		// the changed nodes from the top down, the lowest one is checked first
+		repair.push(nParent);
+		repair.push(nRL);
+		repair.push(nR);
+		return n;
+	}
+
+	/**
+	 * --IS BALANCED--
+	 * Complexity - O(n), for tests: meaningful only while no writer runs
+	 * @return true if the keys are in order, the links and heights are right, every node is
+	 *         AVL balanced and no routing node has less than two children
+	 */
+	boolean isBalanced() {
+		Node root = this.rootHolder.right;
+		return (root == null || root.parent == this.rootHolder)
+				&& checkedHeight(root, Long.MIN_VALUE, Long.MAX_VALUE) >= 0;
+	}
+
+	/**
+	 * @return the height of node's subtree, -1 if it breaks one of the isBalanced rules
+	 */
+	private static int checkedHeight(Node node, long lo, long hi) {
+		if (node == null) {
+			return 0;
+		}
+		if (node.key <= lo || node.key >= hi || isShrinkingOrUnlinked(node.version)) {
+			return -1;
+		}
+		if (node.value == null && (node.left == null || node.right == null)) {
+			return -1;
+		}
+		if ((node.left != null && node.left.parent != node) || (node.right != null && node.right.parent != node)) {
+			return -1;
+		}
+		int hL = checkedHeight(node.left, lo, node.key);
+		int hR = checkedHeight(node.right, node.key, hi);
+		if (hL < 0 || hR < 0 || Math.abs(hL - hR) > 1 || node.height != 1 + Math.max(hL, hR)) {
+			return -1;
+		}
+		return node.height;
+	}
+
+	/**
+	 * @return node to lock, or held (a node whose lock this thread already holds) if node is null
+	 */
+	private static Object lockOf(Node node, Node held) {
+		return (node != null) ? node : held;
+	}
+
+	private static int height(Node node) {
+		return (node == null) ? 0 : node.height;
+	}
+
+	private static String decode(String value) {
+		return (value == NULL_INFO) ? null : value;
+	}
+
+	private static boolean isUnlinked(long ovl) {
+		return (ovl & UNLINKED) != 0;
+	}
+
+	private static boolean isShrinkingOrUnlinked(long ovl) {
+		return (ovl & (SHRINKING | UNLINKED)) != 0;
+	}
+
+	private static long beginShrink(long ovl) {
+		return ovl | SHRINKING;
+	}
+
+	private static long endShrink(long ovl) {
+		return ovl + SHRINK_COUNT;
+	}
+
+	/**
+	 * ---Repair---
+	 * the repair work of one writer: the rotations it did, and a stack of the nodes its rotations
+	 * changed, to go back to once the lowest of them is repaired
+	 */
+	private static final class Repair {
+		private int rotations;
+		private Node[] pending = new Node[8];
+		private int top;
+
+		/**
+		 * keeps damaged to go back to after the repair of the nodes below it
+		 */
+		private void push(Node damaged) {
+			if (this.top == this.pending.length) {
+				this.pending = Arrays.copyOf(this.pending, 2 * this.top);
+			}
+			this.pending[this.top++] = damaged;
+		}
+
+		private Node pop() {
+			return (this.top == 0) ? null : this.pending[--this.top];
+		}
+	}
+
+	/**
+	 * ---Node---
+	 * key never changes, everything else is volatile: written under the node's lock (links and
+	 * heights under the locks of the rotation), read without locks.
+	 */
+	private static final class Node {
+		private final int key;
+		private volatile String value; // null for a routing node
+		private volatile int height;
+		private volatile long version;
+		private volatile Node parent, left, right;
+
+		private Node(int key, String value, Node parent) {
+			this.key = key;
+			this.value = value;
+			this.height = 1;
+			this.parent = parent;
+		}
+
+		private Node child(boolean goLeft) {
+			return goLeft ? this.left : this.right;
+		}
+
+		private void setChild(boolean goLeft, Node child) {
+			if (goLeft) {
+				this.left = child;
+			} else {
+				this.right = child;
+			}
+		}
+
+		/**
+		 * waits until the rotation that was moving this node when its version was ovl is done
+		 */
+		private void waitUntilShrinkCompleted(long ovl) {
+			if ((ovl & SHRINKING) == 0) {
+				return;
+			}
+			for (int tries = 0; tries < SPIN_COUNT; tries++) {
+				if (this.version != ovl) {
+					return;
+				}
+				Thread.onSpinWait();
+			}
+			synchronized (this) {
+				// the rotating writer holds this node's lock until the rotation is done
+			}
+		}
+	}
+
+}
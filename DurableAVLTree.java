@@ -0,0 +1,173 @@
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * ---DurableAVLTree---
+ * An AVLTree whose changes survive a crash: every insert / delete that changed the tree
+ * is appended to a WriteAheadLog (group commit, see there), and checkpoint() writes an
+ * AVLSnapshot and starts a new empty log. open() recovers the tree from the newest snapshot
+ * in the directory plus the replay of its log.
+ *
+ * like AVLTree this is not thread safe.
+ */
+public class DurableAVLTree implements AutoCloseable {
+
+	private final Path dir;
+	private final int syncBytes;
+	private final long syncMillis;
+
+	private final AVLTree tree;
+	private WriteAheadLog log;
+	private long generation;
+
+	private DurableAVLTree(Path dir, int syncBytes, long syncMillis, AVLTree tree, long generation) throws IOException {
+		this.dir = dir;
+		this.syncBytes = syncBytes;
+		this.syncMillis = syncMillis;
+		this.tree = tree;
+		this.generation = generation;
+		this.log = new WriteAheadLog(WriteAheadLog.logFile(dir, generation), syncBytes, syncMillis);
+	}
+
+	/**
+	 * --OPEN--
+	 * Complexity - O(n + size of the log)
+	 * @param dir - directory of the tree (created if needed, empty tree if it has no files)
+	 * @param syncBytes, syncMillis - group commit policy of the log (see WriteAheadLog)
+	 * @return the tree as it was after the last record that reached the disk
+	 * @throws IOException if dir can not be read or its newest snapshot is corrupted
+	 */
+	public static DurableAVLTree open(Path dir, int syncBytes, long syncMillis) throws IOException {
+		Files.createDirectories(dir);
+		long g = WriteAheadLog.latestGeneration(dir);
+		AVLTree tree = (g == 0) ? new AVLTree() : AVLSnapshot.readTree(WriteAheadLog.snapshotFile(dir, g));
+		try {
+			WriteAheadLog.replay(WriteAheadLog.logFile(dir, g), new WriteAheadLog.Handler() {
+				@Override
+				public void insert(int k, String info) {
+					tree.insert(k, info);
+				}
+
+				@Override
+				public void delete(int k) {
+					tree.delete(k);
+				}
+
+				@Override
+				public void listInsert(int i, int k, String info) {
+					throw new IllegalArgumentException("the log holds list records");
+				}
+
+				@Override
+				public void listDelete(int i) {
+					throw new IllegalArgumentException("the log holds list records");
+				}
+			});
+		} catch (IllegalArgumentException e) {
+			throw new IOException(dir + " is not the directory of a DurableAVLTree: " + e.getMessage(), e);
+		}
+		WriteAheadLog.removeOlder(dir, g);
+		return new DurableAVLTree(dir, syncBytes, syncMillis, tree, g);
+	}
+
+	public static DurableAVLTree open(Path dir) throws IOException {
+		return open(dir, WriteAheadLog.DEFAULT_SYNC_BYTES, WriteAheadLog.DEFAULT_SYNC_MILLIS);
+	}
+
+	/**
+	 * --INSERT--
+	 * Complexity - O(logn) + O(1) amortized log append
+	 * @return number of rotations done, -1 if k is already in the tree (nothing is logged)
+	 * @post if the append fails the tree is unchanged (the record is logged before the tree is changed)
+	 */
+	public int insert(int k, String i) throws IOException {
+		if (this.tree.count(k) != 0) {
+			return -1;
+		}
+		this.log.logInsert(k, i);
+		return this.tree.insert(k, i);
+	}
+
+	/**
+	 * --DELETE--
+	 * Complexity - O(logn) + O(1) amortized log append
+	 * @return number of rotations done, -1 if k is not in the tree (nothing is logged)
+	 * @post if the append fails the tree is unchanged (the record is logged before the tree is changed)
+	 */
+	public int delete(int k) throws IOException {
+		if (this.tree.count(k) == 0) {
+			return -1;
+		}
+		this.log.logDelete(k);
+		return this.tree.delete(k);
+	}
+
+	public String search(int k) {
+		return this.tree.search(k);
+	}
+
+	public boolean empty() {
+		return this.tree.empty();
+	}
+
+	public int size() {
+		return this.tree.size();
+	}
+
+	public String min() {
+		return this.tree.min();
+	}
+
+	public String max() {
+		return this.tree.max();
+	}
+
+	public Item selectItemByRank(int k) {
+		return this.tree.selectItemByRank(k);
+	}
+
+	public int[] keysToArray() {
+		return this.tree.keysToArray();
+	}
+
+	public String[] infoToArray() {
+		return this.tree.infoToArray();
+	}
+
+	/**
+	 * --SYNC--
+	 * @post every change so far is on the disk
+	 */
+	public void sync() throws IOException {
+		this.log.sync();
+	}
+
+	/**
+	 * --CHECKPOINT--
+	 * Complexity - O(n)
+	 * @post the tree is in a new snapshot, the log starts empty and the older files are deleted
+	 */
+	public void checkpoint() throws IOException {
+		long next = this.generation + 1;
+		AVLSnapshot.write(this.tree, WriteAheadLog.snapshotFile(this.dir, next));
+		Files.deleteIfExists(WriteAheadLog.logFile(this.dir, next));
+		WriteAheadLog next_log = new WriteAheadLog(WriteAheadLog.logFile(this.dir, next), this.syncBytes, this.syncMillis);
+		WriteAheadLog.syncDirectory(this.dir);
+		WriteAheadLog old_log = this.log;
+		this.log = next_log;
+		this.generation = next;
+		old_log.close();
+		WriteAheadLog.removeOlder(this.dir, next);
+	}
+
+	/**
+	 * --CLOSE--
+	 * @post every change is on the disk and the log is closed
+	 */
+	@Override
+	public void close() throws IOException {
+		this.log.close();
+	}
+
+}
@@ -0,0 +1,144 @@
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * ---DurableTreeList---
+ * A TreeList whose changes survive a crash: every insert / delete that changed the list
+ * is appended to a WriteAheadLog (group commit, see there), and checkpoint() writes an
+ * AVLSnapshot and starts a new empty log. open() recovers the list from the newest snapshot
+ * in the directory plus the replay of its log.
+ */
+public class DurableTreeList implements AutoCloseable {
+
+	private final Path dir;
+	private final int syncBytes;
+	private final long syncMillis;
+
+	private final TreeList list;
+	private WriteAheadLog log;
+	private long generation;
+
+	private DurableTreeList(Path dir, int syncBytes, long syncMillis, TreeList list, long generation) throws IOException {
+		this.dir = dir;
+		this.syncBytes = syncBytes;
+		this.syncMillis = syncMillis;
+		this.list = list;
+		this.generation = generation;
+		this.log = new WriteAheadLog(WriteAheadLog.logFile(dir, generation), syncBytes, syncMillis);
+	}
+
+	/**
+	 * --OPEN--
+	 * O(n + size of the log)
+	 * @param dir - directory of the list (created if needed, empty list if it has no files)
+	 * @param syncBytes, syncMillis - group commit policy of the log (see WriteAheadLog)
+	 * @return the list as it was after the last record that reached the disk
+	 * @throws IOException if dir can not be read or its newest snapshot is corrupted
+	 */
+	public static DurableTreeList open(Path dir, int syncBytes, long syncMillis) throws IOException {
+		Files.createDirectories(dir);
+		long g = WriteAheadLog.latestGeneration(dir);
+		TreeList list = (g == 0) ? new TreeList() : AVLSnapshot.readList(WriteAheadLog.snapshotFile(dir, g));
+		try {
+			WriteAheadLog.replay(WriteAheadLog.logFile(dir, g), new WriteAheadLog.Handler() {
+				@Override
+				public void insert(int k, String info) {
+					throw new IllegalArgumentException("the log holds tree records");
+				}
+
+				@Override
+				public void delete(int k) {
+					throw new IllegalArgumentException("the log holds tree records");
+				}
+
+				@Override
+				public void listInsert(int i, int k, String info) {
+					list.insert(i, k, info);
+				}
+
+				@Override
+				public void listDelete(int i) {
+					list.delete(i);
+				}
+			});
+		} catch (IllegalArgumentException e) {
+			throw new IOException(dir + " is not the directory of a DurableTreeList: " + e.getMessage(), e);
+		}
+		WriteAheadLog.removeOlder(dir, g);
+		return new DurableTreeList(dir, syncBytes, syncMillis, list, g);
+	}
+
+	public static DurableTreeList open(Path dir) throws IOException {
+		return open(dir, WriteAheadLog.DEFAULT_SYNC_BYTES, WriteAheadLog.DEFAULT_SYNC_MILLIS);
+	}
+
+	public int length() {
+		return this.list.length();
+	}
+
+	public Item retrieve(int i) {
+		return this.list.retrieve(i);
+	}
+
+	/**
+	 * --INSERT-- O(log n) + O(1) amortized log append
+	 * @return 0 if the item was inserted at index i, otherwise -1 (nothing is logged)
+	 * @post if the append fails the list is unchanged (the record is logged before the list is changed)
+	 */
+	public int insert(int i, int k, String s) throws IOException {
+		if (i < 0 || this.list.length() < i) {
+			return -1;
+		}
+		this.log.logListInsert(i, k, s);
+		return this.list.insert(i, k, s);
+	}
+
+	/**
+	 * --DELETE-- O(log n) + O(1) amortized log append
+	 * @return 0 if the i'th item was deleted, otherwise -1 (nothing is logged)
+	 * @post if the append fails the list is unchanged (the record is logged before the list is changed)
+	 */
+	public int delete(int i) throws IOException {
+		if (i < 0 || this.list.length() <= i) {
+			return -1;
+		}
+		this.log.logListDelete(i);
+		return this.list.delete(i);
+	}
+
+	/**
+	 * --SYNC--
+	 * @post every change so far is on the disk
+	 */
+	public void sync() throws IOException {
+		this.log.sync();
+	}
+
+	/**
+	 * --CHECKPOINT-- O(n)
+	 * @post the list is in a new snapshot, the log starts empty and the older files are deleted
+	 */
+	public void checkpoint() throws IOException {
+		long next = this.generation + 1;
+		AVLSnapshot.write(this.list, WriteAheadLog.snapshotFile(this.dir, next));
+		Files.deleteIfExists(WriteAheadLog.logFile(this.dir, next));
+		WriteAheadLog next_log = new WriteAheadLog(WriteAheadLog.logFile(this.dir, next), this.syncBytes, this.syncMillis);
+		WriteAheadLog.syncDirectory(this.dir);
+		WriteAheadLog old_log = this.log;
+		this.log = next_log;
+		this.generation = next;
+		old_log.close();
+		WriteAheadLog.removeOlder(this.dir, next);
+	}
+
+	/**
+	 * --CLOSE--
+	 * @post every change is on the disk and the log is closed
+	 */
+	@Override
+	public void close() throws IOException {
+		this.log.close();
+	}
+
+}
@@ -0,0 +1,161 @@
+/**
+ * ---FrozenAVLTree---
+ * An immutable, read optimized copy of an AVLTree (made by AVLTree.freeze()).
+ *
+ * the keys are kept in one int[] in Eytzinger (BFS) order: the root at index 1 and the children
+ * of index i at 2i and 2i+1, with the infos in a parallel array. so a search reads one int array
+ * from top to bottom (the first levels stay in the cache, the next index is computed and not
+ * loaded from a node) and the loop has no data dependent branch: i = 2i + (keys[i] < k).
+ * rankOf / posOfRank map between the Eytzinger index and the rank (for rank & select).
+ *
+ * memory: 12 bytes + one reference per key (n < 2^30).
+ */
+
+public final class FrozenAVLTree {
+
+	private final int n;
+	private final int[] keys; // Eytzinger order, keys[0] is not used
+	private final String[] infos; // infos[i] is the info of keys[i]
+	private final int[] rankOf; // rankOf[i] := rank (1 based) of keys[i]
+	private final int[] posOfRank; // posOfRank[r] := index of the key ranked r
+
+	/**
+	 * --CONSTRUCTOR--
+	 * Complexity - O(n)
+	 * @pre sortedKeys are non decreasing (strictly increasing unless a multiset was frozen),
+	 *      sortedInfos.length == sortedKeys.length < 2^30
+	 */
+	FrozenAVLTree(int[] sortedKeys, String[] sortedInfos) {
+		this.n = sortedKeys.length;
+		this.keys = new int[this.n + 1];
+		this.infos = new String[this.n + 1];
+		this.rankOf = new int[this.n + 1];
+		this.posOfRank = new int[this.n + 1];
+		this.fill(1, 0, sortedKeys, sortedInfos);
+	}
+
+	/**
+	 * --FILL--
+	 * Complexity - O(size of i's subtree)
+	 * @post the subtree of index i holds the items from rank r + 1 on (in order)
+	 * @return number of items placed so far
+	 */
+	private int fill(int i, int r, int[] sortedKeys, String[] sortedInfos) {
+		if (i > this.n) {
+			return r;
+		}
+		r = this.fill(2 * i, r, sortedKeys, sortedInfos);
+		this.keys[i] = sortedKeys[r];
+		this.infos[i] = sortedInfos[r];
+		this.rankOf[i] = r + 1;
+		this.posOfRank[r + 1] = i;
+		return this.fill(2 * i + 1, r + 1, sortedKeys, sortedInfos);
+	}
+
+	/**
+	 * --EMPTY-- / --SIZE--
+	 * Complexity - O(1)
+	 */
+	public boolean empty() {
+		return this.n == 0;
+	}
+
+	public int size() {
+		return this.n;
+	}
+
+	/**
+	 * --MIN-- / --MAX--
+	 * Complexity - O(1)
+	 * @return the info of the smallest / biggest key, null if the tree is empty
+	 */
+	public String min() {
+		return (this.n == 0) ? null : this.infos[this.posOfRank[1]];
+	}
+
+	public String max() {
+		return (this.n == 0) ? null : this.infos[this.posOfRank[this.n]];
+	}
+
+	/**
+	 * --SEARCH--
+	 * Complexity - O(logn)
+	 * @return info of k if k in the tree, otherwise null
+	 */
+	public String search(int k) {
+		int i = this.lowerBound(k);
+		return (i != 0 && this.keys[i] == k) ? this.infos[i] : null;
+	}
+
+	/**
+	 * --RANK--
+	 * Complexity - O(logn)
+	 * @return number of keys in the tree that are smaller than or equal to k
+	 */
+	public int rank(int k) {
+		int[] keys = this.keys;
+		int n = this.n;
+		int i = 1;
+		while (i <= n) {
+			i = 2 * i + ((keys[i] <= k) ? 1 : 0);
+		}
+		i >>>= Integer.numberOfTrailingZeros(~i) + 1; // first key > k
+		return (i == 0) ? n : this.rankOf[i] - 1;
+	}
+
+	/**
+	 * --SELECT ITEM--
+	 * Complexity - O(1)
+	 * @return the item ranked k, null if k is not in [1, size]
+	 */
+	public Item selectItemByRank(int k) {
+		if (k < 1 || k > this.n) {
+			return null;
+		}
+		int i = this.posOfRank[k];
+		return new Item(this.keys[i], this.infos[i]);
+	}
+
+	/**
+	 * --KEYS TO ARRAY--
+	 * Complexity - O(n)
+	 * @return sorted array which contains all keys in the tree
+	 */
+	public int[] keysToArray() {
+		int[] res = new int[this.n];
+		for (int r = 1; r <= this.n; r++) {
+			res[r - 1] = this.keys[this.posOfRank[r]];
+		}
+		return res;
+	}
+
+	/**
+	 * --INFO TO ARRAY--
+	 * Complexity - O(n)
+	 * @return an array which contains all info in the tree, sorted by their respective keys
+	 */
+	public String[] infoToArray() {
+		String[] res = new String[this.n];
+		for (int r = 1; r <= this.n; r++) {
+			res[r - 1] = this.infos[this.posOfRank[r]];
+		}
+		return res;
+	}
+
+	/**
+	 * --LOWER BOUND--
+	 * Complexity - O(logn), branchless descent
+	 * @return index of the first key >= k, 0 if there is none
+	 */
+	private int lowerBound(int k) {
+		int[] keys = this.keys;
+		int n = this.n;
+		int i = 1;
+		while (i <= n) {
+			i = 2 * i + ((keys[i] < k) ? 1 : 0);
+		}
+		// the descent went right after the last key < k, then left once more: drop those steps
+		return i >>> (Integer.numberOfTrailingZeros(~i) + 1);
+	}
+
+}
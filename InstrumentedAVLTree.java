@@ -0,0 +1,149 @@
+/**
+ * ---InstrumentedAVLTree---
+ * An AVLTree that records its operations in a TreeStats (counts, latency histograms,
+ * rotations per insert / delete, search path length, height & size),
+ * which can be published through JMX with getStats().register(name).
+ *
+ * when the stats are disabled every operation goes straight to the tree
+ * after one volatile read (no clock reads, no counters).
+ * like AVLTree this is not thread safe, only the TreeStats may be read concurrently.
+ */
+
+public class InstrumentedAVLTree {
+
+	private final AVLTree tree;
+	private final TreeStats stats;
+	private final int[] path = new int[1]; // out parameter of AVLTree.lookup(k, path)
+
+	/**
+	 * --CONSTRUCTOR--
+	 * Complexity - O(1)
+	 */
+	public InstrumentedAVLTree() {
+		this(new AVLTree(), true);
+	}
+
+	/**
+	 * --CONSTRUCTOR--
+	 * Complexity - O(1)
+	 * @param tree - the tree to instrument (should not be changed directly from now on)
+	 * @param enabled - whether to start recording right away
+	 */
+	public InstrumentedAVLTree(AVLTree tree, boolean enabled) {
+		this.tree = tree;
+		this.stats = new TreeStats(enabled, this::height, tree::size);
+	}
+
+	/**
+	 * --GET STATS--
+	 * Complexity - O(1)
+	 */
+	public TreeStats getStats() {
+		return this.stats;
+	}
+
+	/**
+	 * --GET TREE--
+	 * Complexity - O(1)
+	 * @return the underlying tree (operations on it are not recorded)
+	 */
+	public AVLTree getTree() {
+		return this.tree;
+	}
+
+	public boolean empty() {
+		return this.tree.empty();
+	}
+
+	public int size() {
+		return this.tree.size();
+	}
+
+	public String min() {
+		return this.tree.min();
+	}
+
+	public String max() {
+		return this.tree.max();
+	}
+
+	public int[] keysToArray() {
+		return this.tree.keysToArray();
+	}
+
+	public String[] infoToArray() {
+		return this.tree.infoToArray();
+	}
+
+	/**
+	 * --HEIGHT--
+	 * Complexity - O(1)
+	 * @return height of the tree (-1 for an empty tree)
+	 */
+	public int height() {
+		AVLTree.IAVLNode root = this.tree.getRoot();
+		return (root == null) ? -1 : root.getHeight();
+	}
+
+	/**
+	 * --SEARCH--
+	 * Complexity - O(logn)
+	 * @return info of k if k in the tree, otherwise null
+	 */
+	public String search(int k) {
+		if (!this.stats.isEnabled()) {
+			return this.tree.search(k);
+		}
+		long start = System.nanoTime();
+		AVLTree.AVLNode node = this.tree.lookup(k, this.path); // the tree's own lookup (search cache included)
+		String res = (node != null && node.getKey() == k) ? node.getValue() : null;
+		this.stats.recordSearch(System.nanoTime() - start, this.path[0]);
+		return res;
+	}
+
+	/**
+	 * --INSERT--
+	 * Complexity - O(logn)
+	 * @return number of rotations done, -1 if k is already in the tree
+	 */
+	public int insert(int k, String i) {
+		if (!this.stats.isEnabled()) {
+			return this.tree.insert(k, i);
+		}
+		long start = System.nanoTime();
+		int res = this.tree.insert(k, i);
+		this.stats.recordUpdate(TreeStats.INSERT, System.nanoTime() - start, res);
+		return res;
+	}
+
+	/**
+	 * --DELETE--
+	 * Complexity - O(logn)
+	 * @return number of rotations done, -1 if k is not in the tree
+	 */
+	public int delete(int k) {
+		if (!this.stats.isEnabled()) {
+			return this.tree.delete(k);
+		}
+		long start = System.nanoTime();
+		int res = this.tree.delete(k);
+		this.stats.recordUpdate(TreeStats.DELETE, System.nanoTime() - start, res);
+		return res;
+	}
+
+	/**
+	 * --SELECT ITEM--
+	 * Complexity - O(logn)
+	 * @return the item ranked k
+	 */
+	public Item selectItemByRank(int k) {
+		if (!this.stats.isEnabled()) {
+			return this.tree.selectItemByRank(k);
+		}
+		long start = System.nanoTime();
+		Item res = this.tree.selectItemByRank(k);
+		this.stats.record(TreeStats.SELECT, System.nanoTime() - start);
+		return res;
+	}
+
+}
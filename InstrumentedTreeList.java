@@ -0,0 +1,93 @@
+/**
+ * ---InstrumentedTreeList---
+ * A TreeList that records its operations in a TreeStats (counts, latency histograms,
+ * rotations per insert / delete, height & length; retrieve is recorded as "select"),
+ * which can be published through JMX with getStats().register(name).
+ *
+ * when the stats are disabled every operation goes straight to the list
+ * after one volatile read (no clock reads, no counters).
+ */
+
+public class InstrumentedTreeList {
+
+	private final TreeList list;
+	private final TreeStats stats;
+
+	/**
+	 * --CONSTRUCTOR--
+	 * Complexity - O(1)
+	 */
+	public InstrumentedTreeList() {
+		this(new TreeList(), true);
+	}
+
+	/**
+	 * --CONSTRUCTOR--
+	 * Complexity - O(1)
+	 * @param list - the list to instrument (should not be changed directly from now on)
+	 * @param enabled - whether to start recording right away
+	 */
+	public InstrumentedTreeList(TreeList list, boolean enabled) {
+		this.list = list;
+		this.stats = new TreeStats(enabled, list::height, list::length);
+	}
+
+	/**
+	 * --GET STATS--
+	 * Complexity - O(1)
+	 */
+	public TreeStats getStats() {
+		return this.stats;
+	}
+
+	public int length() {
+		return this.list.length();
+	}
+
+	/**
+	 * --RETRIEVE-- O(log n)
+	 * @return if 0 <= i < len --> Item in index i else --> null;
+	 */
+	public Item retrieve(int i) {
+		if (!this.stats.isEnabled()) {
+			return this.list.retrieve(i);
+		}
+		long start = System.nanoTime();
+		Item res = this.list.retrieve(i);
+		this.stats.record(TreeStats.SELECT, System.nanoTime() - start);
+		return res;
+	}
+
+	/**
+	 * --INSERT-- O(log n)
+	 * @return 0 if the item was inserted at index i, otherwise -1
+	 */
+	public int insert(int i, int k, String s) {
+		if (!this.stats.isEnabled()) {
+			return this.list.insert(i, k, s);
+		}
+		long rot_before = this.list.totalRotations();
+		long start = System.nanoTime();
+		int res = this.list.insert(i, k, s);
+		long nanos = System.nanoTime() - start;
+		this.stats.recordUpdate(TreeStats.INSERT, nanos, (res < 0) ? -1 : (int) (this.list.totalRotations() - rot_before));
+		return res;
+	}
+
+	/**
+	 * --DELETE-- O(log n)
+	 * @return 0 if the i'th item was deleted, otherwise -1
+	 */
+	public int delete(int i) {
+		if (!this.stats.isEnabled()) {
+			return this.list.delete(i);
+		}
+		long rot_before = this.list.totalRotations();
+		long start = System.nanoTime();
+		int res = this.list.delete(i);
+		long nanos = System.nanoTime() - start;
+		this.stats.recordUpdate(TreeStats.DELETE, nanos, (res < 0) ? -1 : (int) (this.list.totalRotations() - rot_before));
+		return res;
+	}
+
+}
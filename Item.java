@@ -1,14 +1,15 @@
 
 /**--ITEM--
  * a list element contains key [int] and info [string]
+ * immutable (final fields), so an Item can be shared between threads without locks
  * 
  *@author Matan Ben Tov & Shir Frenkel
  *@version Final-1
  */
 public class Item{
 	
-	private int key;
-	private String info;
+	private final int key;
+	private final String info;
 	
 	public Item (int key, String info){
 		this.key = key;
@@ -22,4 +23,4 @@ public class Item{
 	public String getInfo(){
 		return info;
 	}
-}
\ No newline at end of file
+}
\ No newline at end of file
@@ -0,0 +1,470 @@
+/**
+ * ---LongAVLTree---
+ * An implementation of a AVL Tree with
+ * distinct long keys and info (primitive keys, no boxing on any operation)
+ */
+
+public class LongAVLTree {
+
+	private LongAVLNode root, min, max;
+
+	/**
+	 * --CONSTRUCTOR--
+	 * Complexity - O(1)
+	 */
+	public LongAVLTree() {
+		this.root = null;
+		this.min = null;
+		this.max = null;
+	}
+
+	/**
+	 * --EMPTY--
+	 * Complexity - O(1)
+	 */
+	public boolean empty() {
+		return this.root == null;
+	}
+
+	/**
+	 * --MIN--
+	 * Complexity - O(1)
+	 * @return the info of the node with the smallest key
+	 */
+	public String min() {
+		return (this.min == null) ? null : this.min.info;
+	}
+
+	/**
+	 * --MAX--
+	 * Complexity - O(1)
+	 * @return the info of the node with the biggest key
+	 */
+	public String max() {
+		return (this.max == null) ? null : this.max.info;
+	}
+
+	/**
+	 * --SIZE--
+	 * Complexity - O(1)
+	 */
+	public int size() {
+		return size(this.root);
+	}
+
+	/**
+	 * --GETROOT--
+	 * Complexity - O(1)
+	 * @return the root node, or null if the tree is empty
+	 */
+	public LongAVLNode getRoot() {
+		return this.root;
+	}
+
+	/**
+	 * --INSERT--
+	 * Complexity - O(logn)
+	 * @param k - key to be inserted
+	 * @param i - info value to be inserted
+	 * @post if key not in the the tree: inserts key to the tree, else nothing
+	 * @return number of rotations done, -1 if k is already in the tree
+	 */
+	public int insert(long k, String i) {
+		LongAVLNode parent = this.findByKey(k);
+
+		if (parent == null) {// empty tree
+			this.root = new LongAVLNode(k, i, null);
+			this.min = this.root;
+			this.max = this.root;
+			return 0;
+		}
+
+		if (parent.key == k) {// key is already in the tree
+			return -1;
+		}
+
+		LongAVLNode new_node = new LongAVLNode(k, i, parent);
+		if (k < parent.key) {
+			parent.left = new_node;
+		} else {
+			parent.right = new_node;
+		}
+
+		//updates min/max if needed
+		if (k < this.min.key) {
+			this.min = new_node;
+		}
+		if (this.max.key < k) {
+			this.max = new_node;
+		}
+
+		return this.rebalanceUpwards(parent);
+	}
+
+	/**
+	 * --SEARCH--
+	 * Complexity - O(logn)
+	 * @param k - key to be searched
+	 * @return info of k if k in the tree, otherwise null
+	 */
+	public String search(long k) {
+		LongAVLNode node = this.findByKey(k);
+		if (node != null && node.key == k) {
+			return node.info;
+		}
+		return null;
+	}
+
+	/**
+	 * --DELETE--
+	 * Complexity - O(logn)
+	 * @param k == key of the node that need to be deleted
+	 * if k in the tree: @post delete the specified node, @return number of
+	 * rotations done otherwise, @return -1
+	 */
+	public int delete(long k) {
+		LongAVLNode node = this.findByKey(k);
+		if (node == null || node.key != k) { // k is not in this tree
+			return -1;
+		}
+
+		// update min or max if needed
+		if (node == this.max) {
+			this.max = this.getPredecessor(node);
+		}
+		if (node == this.min) {
+			this.min = this.getSuccessor(node);
+		}
+
+		if (node.left != null && node.right != null) {
+			// two children --> move the successor's item here and delete the successor instead
+			LongAVLNode succ = this.getSuccessor(node);
+			node.key = succ.key;
+			node.info = succ.info;
+			if (this.max == succ) {
+				this.max = node;
+			}
+			node = succ;
+		}
+
+		// node has at most one child now
+		LongAVLNode child = (node.left != null) ? node.left : node.right;
+		LongAVLNode parent = node.parent;
+		if (child != null) {
+			child.parent = parent;
+		}
+		this.replaceChild(parent, node, child);
+
+		return this.rebalanceUpwards(parent);
+	}
+
+	/**
+	 * --SELECT--
+	 * Complexity - O(logn)
+	 * @param k - rank to be looked for
+	 * @return node ranked with k, null if k is not in [1, size]
+	 */
+	public LongAVLNode selectNodeByRank(int k) {
+		if (k < 1 || k > this.size()) {
+			return null;
+		}
+		LongAVLNode node = this.root;
+		while (node != null) {
+			int curr_rank = size(node.left) + 1;
+			if (k == curr_rank) {
+				return node;
+			}
+			if (k < curr_rank) {
+				node = node.left;
+			} else {// k > curr_rank
+				node = node.right;
+				k = k - curr_rank;
+			}
+		}
+		return null; //shouldn't be here if input is valid
+	}
+
+	/**
+	 * --RANK--
+	 * Complexity - O(logn)
+	 * @return number of keys in the tree that are smaller than or equal to k
+	 */
+	public int rank(long k) {
+		int count = 0;
+		LongAVLNode node = this.root;
+		while (node != null) {
+			if (node.key <= k) { // node and its left subtree are at most k
+				count += size(node.left) + 1;
+				node = node.right;
+			} else {
+				node = node.left;
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * --KEYS TO ARRAY--
+	 * Complexity - O(n)
+	 * @return sorted array which contains all keys in the tree
+	 */
+	public long[] keysToArray() {
+		long[] res = new long[this.size()];
+		LongAVLNode node = this.min;
+		for (int j = 0; j < res.length; j++) {
+			res[j] = node.key;
+			node = this.getSuccessor(node);
+		}
+		return res;
+	}
+
+	/**
+	 * --INFO TO ARRAY--
+	 * Complexity - O(n)
+	 * @return an array which contains all info in the tree, sorted by their respective keys
+	 */
+	public String[] infoToArray() {
+		String[] res = new String[this.size()];
+		LongAVLNode node = this.min;
+		for (int j = 0; j < res.length; j++) {
+			res[j] = node.info;
+			node = this.getSuccessor(node);
+		}
+		return res;
+	}
+
+	/**
+	 * --FIND BY KEY--
+	 * Complexity - O(logn)
+	 * @return if k in the tree: the node with key k <br>
+	 *         else: the suitable parent for a new node with key == k (null for empty tree)
+	 */
+	private LongAVLNode findByKey(long k) {
+		LongAVLNode node = this.root, parent = null;
+		while (node != null) {
+			parent = node;
+			if (k == node.key) {
+				return node;
+			}
+			node = (k < node.key) ? node.left : node.right;
+		}
+		return parent;
+	}
+
+	/**
+	 * --REBALANCE UPWARDS--
+	 * Complexity - O(logn)
+	 * @post fixed tree from node to the root (no AVL criminals & updated sizes+heights)
+	 * @return number of rotations done
+	 */
+	private int rebalanceUpwards(LongAVLNode node) {
+		int rotation_cou = 0;
+		while (node != null) {
+			node.update();
+			int curr_BF = node.getBF();
+
+			if (curr_BF == -2) { // -->subtree tends to the Right
+				if (node.right.getBF() > 0) { // RL Case
+					this.rotateRight(node.right);
+					rotation_cou++;
+				}
+				node = this.rotateLeft(node);
+				rotation_cou++;
+			} else if (curr_BF == 2) { // -->subtree tends to the Left
+				if (node.left.getBF() < 0) { // LR Case
+					this.rotateLeft(node.left);
+					rotation_cou++;
+				}
+				node = this.rotateRight(node);
+				rotation_cou++;
+			}
+
+			node = node.parent;
+		}
+		return rotation_cou;
+	}
+
+	/**
+	 * --REBALANCE HELPER: ROTATE LEFT--
+	 * Complexity - O(1)
+	 * @pre node.right != null
+	 * @return substitute of the given node, after being rotated
+	 */
+	private LongAVLNode rotateLeft(LongAVLNode node) {
+		LongAVLNode new_parent = node.right;
+		LongAVLNode parent = node.parent;
+
+		node.right = new_parent.left;
+		if (node.right != null) {
+			node.right.parent = node;
+		}
+		new_parent.left = node;
+		node.parent = new_parent;
+		new_parent.parent = parent;
+		this.replaceChild(parent, node, new_parent);
+
+		node.update();
+		new_parent.update();
+		return new_parent;
+	}
+
+	/**
+	 * --REBALANCE HELPER: ROTATE RIGHT--
+	 * Complexity - O(1)
+	 * @pre node.left != null
+	 * @return substitute of the given node, after being rotated
+	 */
+	private LongAVLNode rotateRight(LongAVLNode node) {
+		LongAVLNode new_parent = node.left;
+		LongAVLNode parent = node.parent;
+
+		node.left = new_parent.right;
+		if (node.left != null) {
+			node.left.parent = node;
+		}
+		new_parent.right = node;
+		node.parent = new_parent;
+		new_parent.parent = parent;
+		this.replaceChild(parent, node, new_parent);
+
+		node.update();
+		new_parent.update();
+		return new_parent;
+	}
+
+	/**
+	 * --HELPER: replaceChild--
+	 * Complexity - O(1)
+	 * @post newChild takes oldChild's place under parent (or as the root if parent == null),
+	 *       newChild's parent pointer is NOT updated
+	 */
+	private void replaceChild(LongAVLNode parent, LongAVLNode oldChild, LongAVLNode newChild) {
+		if (parent == null) {
+			this.root = newChild;
+		} else if (parent.left == oldChild) {
+			parent.left = newChild;
+		} else {
+			parent.right = newChild;
+		}
+	}
+
+	/**
+	 * --getSuccessor--
+	 * Complexity - O(logn)
+	 * @return node's successor, null if node is the maximum
+	 */
+	private LongAVLNode getSuccessor(LongAVLNode node) {
+		if (node.right != null) { // Go right once, and then left all the way
+			node = node.right;
+			while (node.left != null) {
+				node = node.left;
+			}
+			return node;
+		}
+		// Go up from node until the first turn right
+		LongAVLNode parent = node.parent;
+		while (parent != null && parent.right == node) {
+			node = parent;
+			parent = node.parent;
+		}
+		return parent;
+	}
+
+	/**
+	 * --getPredecessor--
+	 * Complexity - O(logn)
+	 * @return node's predecessor, null if node is the minimum
+	 */
+	private LongAVLNode getPredecessor(LongAVLNode node) {
+		if (node.left != null) { // Go left once, and then right all the way
+			node = node.left;
+			while (node.right != null) {
+				node = node.right;
+			}
+			return node;
+		}
+		// Go up from node until the first turn left
+		LongAVLNode parent = node.parent;
+		while (parent != null && parent.left == node) {
+			node = parent;
+			parent = node.parent;
+		}
+		return parent;
+	}
+
+	private static int size(LongAVLNode node) {
+		return (node == null) ? 0 : node.size;
+	}
+
+	private static int height(LongAVLNode node) {
+		return (node == null) ? -1 : node.height;
+	}
+
+	/**
+	 * --LongAVLNode CLASS--
+	 * size := size of the tree that this is it's root
+	 * height := height of the tree that this is it's root (leaf - 0)
+	 */
+	public static class LongAVLNode {
+
+		private long key;
+		private String info;
+		private LongAVLNode left, right, parent;
+		private int height, size;
+
+		private LongAVLNode(long key, String info, LongAVLNode parent) {
+			this.key = key;
+			this.info = info;
+			this.parent = parent;
+			this.height = 0;
+			this.size = 1;
+		}
+
+		public long getKey() {
+			return this.key;
+		}
+
+		public String getValue() {
+			return this.info;
+		}
+
+		public LongAVLNode getLeft() {
+			return this.left;
+		}
+
+		public LongAVLNode getRight() {
+			return this.right;
+		}
+
+		public LongAVLNode getParent() {
+			return this.parent;
+		}
+
+		public int getHeight() {
+			return this.height;
+		}
+
+		public int getSize() {
+			return this.size;
+		}
+
+		/**
+		 * --GETBF--
+		 * Complexity - O(1)
+		 */
+		private int getBF() {
+			return height(this.left) - height(this.right);
+		}
+
+		/**
+		 * --update--
+		 * Complexity - O(1)
+		 * @post updates node's height and size according to its children
+		 */
+		private void update() {
+			this.height = 1 + Math.max(height(this.left), height(this.right));
+			this.size = 1 + size(this.left) + size(this.right);
+		}
+	}
+
+}
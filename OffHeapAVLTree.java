@@ -0,0 +1,669 @@
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * ---OffHeapAVLTree---
+ * An implementation of a AVL Tree with distinct integer keys and info,
+ * that keeps all of its data outside of the java heap.
+ *
+ * nodes are fixed size records in a direct ByteBuffer (node i starts at byte i * NODE_BYTES):
+ *   key | left | right | parent | height | size | info offset | info length   (8 ints)
+ * record 0 is NIL: height == -1, size == 0 (same convention as ArrayAVLTree).
+ * infos are stored UTF-8 encoded in a second direct buffer (the slab), null info has length -1.
+ * deleted records are kept in a free list (chained through right), deleted infos are
+ * reclaimed when the slab is full and at least half of it is garbage.
+ *
+ * The heap holds only this object and its two buffers, no matter how many keys are stored.
+ * (java.lang.foreign is not final in the JDK this project targets, so direct buffers are used;
+ * a single buffer is limited to 2GB --> at most ~67M nodes and 2GB of infos.)
+ * close() and every reallocation free the old buffers right away (sun.misc.Unsafe.invokeCleaner),
+ * instead of waiting for the GC to collect them.
+ */
+public class OffHeapAVLTree implements AutoCloseable {
+
+	private static final int NIL = 0;
+	private static final int DEFAULT_CAPACITY = 16;
+
+	// record layout (byte offsets inside a node record)
+	private static final int KEY = 0, LEFT = 4, RIGHT = 8, PARENT = 12, HEIGHT = 16, SIZE = 20, INFO_OFF = 24, INFO_LEN = 28;
+	private static final int NODE_BYTES = 32;
+	private static final int MAX_NODE_BYTES = Integer.MAX_VALUE / NODE_BYTES * NODE_BYTES; // the biggest arena
+	private static final int MAX_CAPACITY = MAX_NODE_BYTES / NODE_BYTES - 1; // without NIL
+
+	// sun.misc.Unsafe.invokeCleaner (null if this JDK does not have it --> buffers are freed by the GC)
+	private static final Object UNSAFE;
+	private static final Method INVOKE_CLEANER;
+
+	static {
+		Object unsafe = null;
+		Method invoke_cleaner = null;
+		try {
+			Class<?> c = Class.forName("sun.misc.Unsafe");
+			Field f = c.getDeclaredField("theUnsafe");
+			f.setAccessible(true);
+			unsafe = f.get(null);
+			invoke_cleaner = c.getMethod("invokeCleaner", ByteBuffer.class);
+		} catch (ReflectiveOperationException | RuntimeException e) {
+			unsafe = null;
+			invoke_cleaner = null;
+		}
+		UNSAFE = unsafe;
+		INVOKE_CLEANER = invoke_cleaner;
+	}
+
+	private ByteBuffer nodes, slab;
+	private int root, min, max;
+	private int freeHead; // first free record (NIL if none)
+	private int top; // first record that was never used
+	private int slabTop; // first unused byte of the slab
+	private int slabGarbage; // bytes of deleted infos in the slab
+
+	/**
+	 * --CONSTRUCTOR--
+	 * Complexity - O(1)
+	 */
+	public OffHeapAVLTree() {
+		this(DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * --CONSTRUCTOR--
+	 * Complexity - O(capacity)
+	 * @param capacity - number of keys that can be inserted before the arena grows
+	 * @throws IllegalArgumentException if capacity is more than a node arena can hold (~67M)
+	 */
+	public OffHeapAVLTree(int capacity) {
+		if (capacity > MAX_CAPACITY) {
+			throw new IllegalArgumentException("capacity " + capacity + " is more than the maximum " + MAX_CAPACITY);
+		}
+		int len = Math.max(capacity, 1) + 1; // +1 for NIL
+		this.nodes = ByteBuffer.allocateDirect(len * NODE_BYTES).order(ByteOrder.nativeOrder());
+		this.slab = ByteBuffer.allocateDirect(len * 8).order(ByteOrder.nativeOrder());
+		this.set(NIL, HEIGHT, -1);
+		this.set(NIL, SIZE, 0);
+		this.set(NIL, INFO_LEN, -1);
+		this.root = NIL;
+		this.min = NIL;
+		this.max = NIL;
+		this.freeHead = NIL;
+		this.top = 1;
+		this.slabTop = 0;
+		this.slabGarbage = 0;
+	}
+
+	/**
+	 * --CLOSE--
+	 * Complexity - O(1)
+	 * @post the memory of the buffers is returned now (see free),
+	 *       any other call afterwards throws IllegalStateException (close again does nothing)
+	 */
+	public void close() {
+		ByteBuffer old_nodes = this.nodes, old_slab = this.slab;
+		this.nodes = null;
+		this.slab = null;
+		this.root = NIL;
+		free(old_nodes);
+		free(old_slab);
+	}
+
+	/**
+	 * --EMPTY--
+	 * Complexity - O(1)
+	 */
+	public boolean empty() {
+		this.checkOpen();
+		return this.root == NIL;
+	}
+
+	/**
+	 * --MIN--
+	 * Complexity - O(1)
+	 * @return the info of the node with the smallest key
+	 */
+	public String min() {
+		this.checkOpen();
+		return this.getInfo(this.min); // info of NIL is null
+	}
+
+	/**
+	 * --MAX--
+	 * Complexity - O(1)
+	 * @return the info of the node with the biggest key
+	 */
+	public String max() {
+		this.checkOpen();
+		return this.getInfo(this.max);
+	}
+
+	/**
+	 * --SIZE--
+	 * Complexity - O(1)
+	 */
+	public int size() {
+		this.checkOpen();
+		return this.get(this.root, SIZE);
+	}
+
+	/**
+	 * --INSERT--
+	 * Complexity - O(logn) (amortized, the arena may grow)
+	 * @param k - key to be inserted
+	 * @param i - info value to be inserted
+	 * @post if key not in the the tree: inserts key to the tree, else nothing
+	 * @return number of rotations done, -1 if k is already in the tree
+	 */
+	public int insert(int k, String i) {
+		this.checkOpen();
+		int par = this.findByKey(k);
+
+		if (par == NIL) {// empty tree
+			this.root = this.newNode(k, i, NIL);
+			this.min = this.root;
+			this.max = this.root;
+			return 0;
+		}
+
+		if (this.get(par, KEY) == k) {// key is already in the tree
+			return -1;
+		}
+
+		int new_node = this.newNode(k, i, par);
+		this.set(par, k < this.get(par, KEY) ? LEFT : RIGHT, new_node);
+
+		//updates min/max if needed
+		if (k < this.get(this.min, KEY)) {
+			this.min = new_node;
+		}
+		if (this.get(this.max, KEY) < k) {
+			this.max = new_node;
+		}
+
+		return this.rebalanceUpwards(par);
+	}
+
+	/**
+	 * --SEARCH--
+	 * Complexity - O(log n)
+	 * @param k - key to be searched
+	 * @return info of k if k in the tree, otherwise null
+	 */
+	public String search(int k) {
+		this.checkOpen();
+		int node = this.findByKey(k);
+		if (node != NIL && this.get(node, KEY) == k) {
+			return this.getInfo(node);
+		}
+		return null;
+	}
+
+	/**
+	 * --DELETE--
+	 * Complexity - O(logn)
+	 * @param k == key of the node that need to be deleted
+	 * if k in the tree: @post delete the specified node, @return number of
+	 * rotations done otherwise, @return -1
+	 */
+	public int delete(int k) {
+		this.checkOpen();
+		int node = this.findByKey(k);
+		if (node == NIL || this.get(node, KEY) != k) { // k is not in this tree
+			return -1;
+		}
+
+		// update min or max if needed
+		if (node == this.max) {
+			this.max = this.getPredecessor(node);
+		}
+		if (node == this.min) {
+			this.min = this.getSuccessor(node);
+		}
+
+		this.releaseInfo(node);
+		if (this.get(node, LEFT) != NIL && this.get(node, RIGHT) != NIL) {
+			// two children --> move the successor's record here and delete the successor instead
+			int succ = this.getSuccessor(node);
+			this.set(node, KEY, this.get(succ, KEY));
+			this.set(node, INFO_OFF, this.get(succ, INFO_OFF));
+			this.set(node, INFO_LEN, this.get(succ, INFO_LEN));
+			this.set(succ, INFO_LEN, -1); // the info moved, it is not garbage
+			if (this.max == succ) {
+				this.max = node;
+			}
+			node = succ;
+		}
+
+		// node has at most one child now
+		int child = this.get(node, LEFT) != NIL ? this.get(node, LEFT) : this.get(node, RIGHT);
+		int par = this.get(node, PARENT);
+		if (child != NIL) {
+			this.set(child, PARENT, par);
+		}
+		this.replaceChild(par, node, child);
+		this.freeNode(node);
+
+		return this.rebalanceUpwards(par);
+	}
+
+	/**
+	 * --KEYS TO ARRAY--
+	 * Complexity - O(n)
+	 * @return sorted array which contains all keys in the tree, or an empty array
+	 *         if the tree is empty.
+	 */
+	public int[] keysToArray() {
+		int[] res = new int[this.size()];
+		int node = this.min;
+		for (int j = 0; j < res.length; j++) {
+			res[j] = this.get(node, KEY);
+			node = this.getSuccessor(node);
+		}
+		return res;
+	}
+
+	/**
+	 * --INFO TO ARRAY--
+	 * Complexity - O(n)
+	 * @return an array which contains all info in the tree, sorted by their
+	 *         respective keys, or an empty array if the tree is empty.
+	 */
+	public String[] infoToArray() {
+		String[] res = new String[this.size()];
+		int node = this.min;
+		for (int j = 0; j < res.length; j++) {
+			res[j] = this.getInfo(node);
+			node = this.getSuccessor(node);
+		}
+		return res;
+	}
+
+	/**
+	 * --SELECT ITEM--
+	 * Complexity - O(log n)
+	 * @param k - rank to be looked for
+	 * @return the item ranked k, null if k is not in [1, size]
+	 */
+	public Item selectItemByRank(int k) {
+		if (k < 1 || k > this.size()) {
+			return null;
+		}
+		int node = this.root;
+		while (node != NIL) {
+			int curr_rank = this.get(this.get(node, LEFT), SIZE) + 1;
+			if (k == curr_rank) {
+				return new Item(this.get(node, KEY), this.getInfo(node));
+			}
+			if (k < curr_rank) {
+				node = this.get(node, LEFT);
+			} else {// k > curr_rank
+				node = this.get(node, RIGHT);
+				k = k - curr_rank;
+			}
+		}
+		return null; //shouldn't be here if input is valid
+	}
+
+	/**
+	 * --FIND BY KEY--
+	 * Complexity - O(logn)
+	 * @return if k in the tree: the node with key k <br>
+	 *         else: the suitable parent for a new node with key == k (NIL for empty tree)
+	 */
+	private int findByKey(int k) {
+		int node = this.root, par = NIL;
+		while (node != NIL) {
+			par = node;
+			int node_key = this.get(node, KEY);
+			if (k == node_key) {
+				return node;
+			}
+			node = this.get(node, k < node_key ? LEFT : RIGHT);
+		}
+		return par;
+	}
+
+	/**
+	 * --REBALANCE UPWARDS--
+	 * Complexity - O(logn)
+	 * @post fixed tree from node to the root (no AVL criminals & updated sizes+heights)
+	 * @return number of rotations done
+	 */
+	private int rebalanceUpwards(int node) {
+		int rotation_cou = 0;
+		while (node != NIL) {
+			this.update(node);
+			int curr_BF = this.getBF(node);
+
+			if (curr_BF == -2) { // -->subtree tends to the Right
+				int right_child = this.get(node, RIGHT);
+				if (this.getBF(right_child) > 0) { // RL Case
+					this.rotateRight(right_child);
+					rotation_cou++;
+				}
+				node = this.rotateLeft(node);
+				rotation_cou++;
+			} else if (curr_BF == 2) { // -->subtree tends to the Left
+				int left_child = this.get(node, LEFT);
+				if (this.getBF(left_child) < 0) { // LR Case
+					this.rotateLeft(left_child);
+					rotation_cou++;
+				}
+				node = this.rotateRight(node);
+				rotation_cou++;
+			}
+
+			node = this.get(node, PARENT);
+		}
+		return rotation_cou;
+	}
+
+	/**
+	 * --REBALANCE HELPER: ROTATE LEFT--
+	 * Complexity - O(1)
+	 * @pre node has a right child
+	 * @return substitute of the given node, after being rotated
+	 */
+	private int rotateLeft(int node) {
+		int new_parent = this.get(node, RIGHT);
+		int par = this.get(node, PARENT);
+
+		int moved = this.get(new_parent, LEFT);
+		this.set(node, RIGHT, moved);
+		if (moved != NIL) {
+			this.set(moved, PARENT, node);
+		}
+		this.set(new_parent, LEFT, node);
+		this.set(node, PARENT, new_parent);
+		this.set(new_parent, PARENT, par);
+		this.replaceChild(par, node, new_parent);
+
+		this.update(node);
+		this.update(new_parent);
+		return new_parent;
+	}
+
+	/**
+	 * --REBALANCE HELPER: ROTATE RIGHT--
+	 * Complexity - O(1)
+	 * @pre node has a left child
+	 * @return substitute of the given node, after being rotated
+	 */
+	private int rotateRight(int node) {
+		int new_parent = this.get(node, LEFT);
+		int par = this.get(node, PARENT);
+
+		int moved = this.get(new_parent, RIGHT);
+		this.set(node, LEFT, moved);
+		if (moved != NIL) {
+			this.set(moved, PARENT, node);
+		}
+		this.set(new_parent, RIGHT, node);
+		this.set(node, PARENT, new_parent);
+		this.set(new_parent, PARENT, par);
+		this.replaceChild(par, node, new_parent);
+
+		this.update(node);
+		this.update(new_parent);
+		return new_parent;
+	}
+
+	/**
+	 * --HELPER: replaceChild--
+	 * Complexity - O(1)
+	 * @post newChild takes oldChild's place under par (or as the root if par == NIL),
+	 *       newChild's parent pointer is NOT updated
+	 */
+	private void replaceChild(int par, int oldChild, int newChild) {
+		if (par == NIL) {
+			this.root = newChild;
+		} else if (this.get(par, LEFT) == oldChild) {
+			this.set(par, LEFT, newChild);
+		} else {
+			this.set(par, RIGHT, newChild);
+		}
+	}
+
+	/**
+	 * --update--
+	 * Complexity - O(1)
+	 * @post updates node's height and size according to its children
+	 */
+	private void update(int node) {
+		int l = this.get(node, LEFT), r = this.get(node, RIGHT);
+		this.set(node, HEIGHT, 1 + Math.max(this.get(l, HEIGHT), this.get(r, HEIGHT)));
+		this.set(node, SIZE, 1 + this.get(l, SIZE) + this.get(r, SIZE));
+	}
+
+	/**
+	 * --GETBF--
+	 * Complexity - O(1)
+	 */
+	private int getBF(int node) {
+		return this.get(this.get(node, LEFT), HEIGHT) - this.get(this.get(node, RIGHT), HEIGHT);
+	}
+
+	/**
+	 * --getSuccessor--
+	 * Complexity - O(logn)
+	 * @return node's successor, NIL if node is the maximum
+	 */
+	private int getSuccessor(int node) {
+		if (this.get(node, RIGHT) != NIL) { // Go right once, and then left all the way
+			node = this.get(node, RIGHT);
+			while (this.get(node, LEFT) != NIL) {
+				node = this.get(node, LEFT);
+			}
+			return node;
+		}
+		// Go up from node until the first turn right
+		int par = this.get(node, PARENT);
+		while (par != NIL && this.get(par, RIGHT) == node) {
+			node = par;
+			par = this.get(node, PARENT);
+		}
+		return par;
+	}
+
+	/**
+	 * --getPredecessor--
+	 * Complexity - O(logn)
+	 * @return node's predecessor, NIL if node is the minimum
+	 */
+	private int getPredecessor(int node) {
+		if (this.get(node, LEFT) != NIL) { // Go left once, and then right all the way
+			node = this.get(node, LEFT);
+			while (this.get(node, RIGHT) != NIL) {
+				node = this.get(node, RIGHT);
+			}
+			return node;
+		}
+		// Go up from node until the first turn left
+		int par = this.get(node, PARENT);
+		while (par != NIL && this.get(par, LEFT) == node) {
+			node = par;
+			par = this.get(node, PARENT);
+		}
+		return par;
+	}
+
+	/**
+	 * --RECORD ACCESS: get / set--
+	 * Complexity - O(1)
+	 */
+	private int get(int node, int field) {
+		return this.nodes.getInt(node * NODE_BYTES + field);
+	}
+
+	private void set(int node, int field, int value) {
+		this.nodes.putInt(node * NODE_BYTES + field, value);
+	}
+
+	/**
+	 * --SLAB: getInfo--
+	 * Complexity - O(info length)
+	 * @return node's info decoded from the slab
+	 */
+	private String getInfo(int node) {
+		int len = this.get(node, INFO_LEN);
+		if (len < 0) {
+			return null;
+		}
+		byte[] bytes = new byte[len];
+		this.slab.get(this.get(node, INFO_OFF), bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * --SLAB: putInfo--
+	 * Complexity - O(info length) amortized
+	 * @post info is appended to the slab and node points to it
+	 */
+	private void putInfo(int node, String info) {
+		if (info == null) {
+			this.set(node, INFO_LEN, -1);
+			return;
+		}
+		byte[] bytes = info.getBytes(StandardCharsets.UTF_8);
+		if (this.slab.capacity() - this.slabTop < bytes.length) {
+			this.makeRoom(bytes.length);
+		}
+		this.slab.put(this.slabTop, bytes);
+		this.set(node, INFO_OFF, this.slabTop);
+		this.set(node, INFO_LEN, bytes.length);
+		this.slabTop += bytes.length;
+	}
+
+	/**
+	 * --SLAB: releaseInfo--
+	 * Complexity - O(1)
+	 * @post node's info bytes are counted as garbage
+	 */
+	private void releaseInfo(int node) {
+		int len = this.get(node, INFO_LEN);
+		if (len > 0) {
+			this.slabGarbage += len;
+		}
+		this.set(node, INFO_LEN, -1);
+	}
+
+	/**
+	 * --SLAB: makeRoom--
+	 * Complexity - O(slab size)
+	 * @post the slab has at least needed free bytes at its end:
+	 *       live infos are compacted into a new slab, which is doubled if it is still too small
+	 * @throws IllegalStateException if the live infos & needed do not fit in 2GB (nothing is changed)
+	 */
+	private void makeRoom(int needed) {
+		int live = this.slabTop - this.slabGarbage;
+		int cap = this.slab.capacity();
+		if ((long) live + needed > Integer.MAX_VALUE) {
+			throw new IllegalStateException("OffHeapAVLTree is full: the infos do not fit in the 2GB slab");
+		}
+		if (live + needed > cap / 2) { // compacting alone is not enough, grow
+			cap = (int) Math.min(Math.max(2L * cap, live + needed), Integer.MAX_VALUE);
+		}
+		ByteBuffer new_slab = ByteBuffer.allocateDirect(cap).order(ByteOrder.nativeOrder());
+		int new_top = 0;
+		for (int node = 1; node < this.top; node++) { // free records have INFO_LEN == -1
+			int len = this.get(node, INFO_LEN);
+			if (len > 0) {
+				new_slab.put(new_top, this.slab, this.get(node, INFO_OFF), len);
+				this.set(node, INFO_OFF, new_top);
+				new_top += len;
+			}
+		}
+		ByteBuffer old_slab = this.slab;
+		this.slab = new_slab;
+		this.slabTop = new_top;
+		this.slabGarbage = 0;
+		free(old_slab);
+	}
+
+	/**
+	 * --NODE POOL: newNode--
+	 * Complexity - O(1) amortized
+	 * @return a fresh leaf record with key k and info i under par
+	 */
+	private int newNode(int k, String i, int par) {
+		int node;
+		if (this.freeHead != NIL) { // reuse a deleted record
+			node = this.freeHead;
+			this.freeHead = this.get(node, RIGHT);
+		} else {
+			if ((long) (this.top + 1) * NODE_BYTES > this.nodes.capacity()) {
+				this.grow();
+			}
+			node = this.top++;
+		}
+		this.set(node, KEY, k);
+		this.set(node, LEFT, NIL);
+		this.set(node, RIGHT, NIL);
+		this.set(node, PARENT, par);
+		this.set(node, HEIGHT, 0);
+		this.set(node, SIZE, 1);
+		this.set(node, INFO_LEN, -1);
+		this.putInfo(node, i);
+		return node;
+	}
+
+	/**
+	 * --NODE POOL: freeNode--
+	 * Complexity - O(1)
+	 * @pre node's info was already released
+	 * @post node's record is pushed to the free list
+	 */
+	private void freeNode(int node) {
+		this.set(node, LEFT, NIL);
+		this.set(node, PARENT, NIL);
+		this.set(node, RIGHT, this.freeHead);
+		this.freeHead = node;
+	}
+
+	/**
+	 * --NODE POOL: grow--
+	 * Complexity - O(n)
+	 * @post the node arena is doubled (up to MAX_NODE_BYTES)
+	 * @throws IllegalStateException if the arena is already as big as a buffer can be (nothing is changed)
+	 */
+	private void grow() {
+		int cap = this.nodes.capacity();
+		if (cap >= MAX_NODE_BYTES) {
+			throw new IllegalStateException("OffHeapAVLTree is full: at most " + MAX_CAPACITY + " keys");
+		}
+		ByteBuffer new_nodes = ByteBuffer.allocateDirect((int) Math.min(2L * cap, MAX_NODE_BYTES)).order(ByteOrder.nativeOrder());
+		new_nodes.put(0, this.nodes, 0, this.top * NODE_BYTES);
+		ByteBuffer old_nodes = this.nodes;
+		this.nodes = new_nodes;
+		free(old_nodes);
+	}
+
+	/**
+	 * --free--
+	 * Complexity - O(1)
+	 * @pre buf is a direct buffer of this tree that is never used again
+	 * @post buf's memory is returned to the OS now (or once buf is collected, if this JDK has no invokeCleaner)
+	 */
+	private static void free(ByteBuffer buf) {
+		if (buf == null || INVOKE_CLEANER == null) {
+			return;
+		}
+		try {
+			INVOKE_CLEANER.invoke(UNSAFE, buf);
+		} catch (ReflectiveOperationException e) {
+			// left to the GC
+		}
+	}
+
+	/**
+	 * --checkOpen--
+	 * Complexity - O(1)
+	 */
+	private void checkOpen() {
+		if (this.nodes == null) {
+			throw new IllegalStateException("OffHeapAVLTree is closed");
+		}
+	}
+
+}
@@ -0,0 +1,373 @@
+/**
+ * ---PersistentAVLTree---
+ * A persistent (immutable nodes) AVL Tree with distinct integer keys and info.
+ *
+ * nodes are never changed after they are created: insert & delete copy only the nodes on
+ * the path from the root to the change (O(logn) new nodes) and share all the other nodes
+ * with the previous version. so there are no parent pointers (a shared node has many parents).
+ *
+ * snapshot() is O(1): it returns a frozen tree that holds the current root.
+ * readers (of any version) never lock, writers of the same tree are serialized.
+ */
+
+public class PersistentAVLTree {
+
+	private volatile Node root;
+	private final boolean frozen;
+	private int rotation_cou; // rotations of the current write (guarded by this)
+
+	/**
+	 * --CONSTRUCTOR--
+	 * Complexity - O(1)
+	 */
+	public PersistentAVLTree() {
+		this(null, false);
+	}
+
+	private PersistentAVLTree(Node root, boolean frozen) {
+		this.root = root;
+		this.frozen = frozen;
+	}
+
+	/**
+	 * --SNAPSHOT--
+	 * Complexity - O(1)
+	 * @return a frozen view of the tree as it is now (later writes to this tree are not seen)
+	 */
+	public PersistentAVLTree snapshot() {
+		return new PersistentAVLTree(this.root, true);
+	}
+
+	/**
+	 * --IS FROZEN--
+	 * Complexity - O(1)
+	 * @return true if this tree is a snapshot (insert & delete are not allowed)
+	 */
+	public boolean isFrozen() {
+		return this.frozen;
+	}
+
+	/**
+	 * --EMPTY--
+	 * Complexity - O(1)
+	 */
+	public boolean empty() {
+		return this.root == null;
+	}
+
+	/**
+	 * --SIZE--
+	 * Complexity - O(1)
+	 */
+	public int size() {
+		return size(this.root);
+	}
+
+	/**
+	 * --MIN--
+	 * Complexity - O(logn)
+	 * @return the info of the node with the smallest key
+	 */
+	public String min() {
+		Node node = this.root;
+		if (node == null) {
+			return null;
+		}
+		while (node.left != null) {
+			node = node.left;
+		}
+		return node.info;
+	}
+
+	/**
+	 * --MAX--
+	 * Complexity - O(logn)
+	 * @return the info of the node with the biggest key
+	 */
+	public String max() {
+		Node node = this.root;
+		if (node == null) {
+			return null;
+		}
+		while (node.right != null) {
+			node = node.right;
+		}
+		return node.info;
+	}
+
+	/**
+	 * --SEARCH--
+	 * Complexity - O(logn)
+	 * @return info of k if k in the tree, otherwise null
+	 */
+	public String search(int k) {
+		Node node = this.root;
+		while (node != null) {
+			if (k == node.key) {
+				return node.info;
+			}
+			node = (k < node.key) ? node.left : node.right;
+		}
+		return null;
+	}
+
+	/**
+	 * --INSERT--
+	 * Complexity - O(logn) time & new nodes
+	 * @post if key not in the the tree: a new version with the key becomes this tree's root
+	 * @return number of rotations done, -1 if k is already in the tree
+	 * @throws UnsupportedOperationException if this tree is a snapshot
+	 */
+	public synchronized int insert(int k, String i) {
+		this.checkWritable();
+		this.rotation_cou = 0;
+		Node new_root = this.insertRec(this.root, k, i);
+		if (new_root == this.root) { // nothing was copied --> k is already in the tree
+			return -1;
+		}
+		this.root = new_root;
+		return this.rotation_cou;
+	}
+
+	/**
+	 * --DELETE--
+	 * Complexity - O(logn) time & new nodes
+	 * @post if k in the tree: a new version without the key becomes this tree's root
+	 * @return number of rotations done, -1 if k is not in the tree
+	 * @throws UnsupportedOperationException if this tree is a snapshot
+	 */
+	public synchronized int delete(int k) {
+		this.checkWritable();
+		this.rotation_cou = 0;
+		Node new_root = this.deleteRec(this.root, k);
+		if (new_root == this.root) { // nothing was copied --> k is not in the tree
+			return -1;
+		}
+		this.root = new_root;
+		return this.rotation_cou;
+	}
+
+	/**
+	 * --SELECT ITEM--
+	 * Complexity - O(logn)
+	 * @return the item ranked k, null if k is not in [1, size]
+	 */
+	public Item selectItemByRank(int k) {
+		Node node = this.root;
+		if (k < 1 || k > size(node)) {
+			return null;
+		}
+		while (node != null) {
+			int curr_rank = size(node.left) + 1;
+			if (k == curr_rank) {
+				return new Item(node.key, node.info);
+			}
+			if (k < curr_rank) {
+				node = node.left;
+			} else {// k > curr_rank
+				node = node.right;
+				k = k - curr_rank;
+			}
+		}
+		return null; //shouldn't be here if input is valid
+	}
+
+	/**
+	 * --KEYS TO ARRAY--
+	 * Complexity - O(n)
+	 * @return sorted array which contains all keys of this version
+	 */
+	public int[] keysToArray() {
+		Node node = this.root; // one version for the whole walk
+		int[] res = new int[size(node)];
+		keysToArrayRec(node, res, 0);
+		return res;
+	}
+
+	/**
+	 * --INFO TO ARRAY--
+	 * Complexity - O(n)
+	 * @return an array which contains all info of this version, sorted by their respective keys
+	 */
+	public String[] infoToArray() {
+		Node node = this.root;
+		String[] res = new String[size(node)];
+		infoToArrayRec(node, res, 0);
+		return res;
+	}
+
+	/**
+	 * --KEYS TO ARRAY - REC--
+	 * Complexity - O(node.size)
+	 * @post res[from : from + node.size] = node's keys in order
+	 */
+	private static void keysToArrayRec(Node node, int[] res, int from) {
+		if (node == null) {
+			return;
+		}
+		keysToArrayRec(node.left, res, from);
+		res[from + size(node.left)] = node.key;
+		keysToArrayRec(node.right, res, from + size(node.left) + 1);
+	}
+
+	/**
+	 * --INFO TO ARRAY - REC--
+	 * Complexity - O(node.size)
+	 * @post res[from : from + node.size] = node's infos in order
+	 */
+	private static void infoToArrayRec(Node node, String[] res, int from) {
+		if (node == null) {
+			return;
+		}
+		infoToArrayRec(node.left, res, from);
+		res[from + size(node.left)] = node.info;
+		infoToArrayRec(node.right, res, from + size(node.left) + 1);
+	}
+
+	/**
+	 * --INSERT - REC--
+	 * Complexity - O(logn)
+	 * @return the new version of node's subtree with k (node itself if k is already there)
+	 */
+	private Node insertRec(Node node, int k, String i) {
+		if (node == null) {
+			return new Node(k, i, null, null);
+		}
+		if (k == node.key) {
+			return node;
+		}
+		if (k < node.key) {
+			Node new_left = this.insertRec(node.left, k, i);
+			return (new_left == node.left) ? node : this.balance(node.key, node.info, new_left, node.right);
+		}
+		Node new_right = this.insertRec(node.right, k, i);
+		return (new_right == node.right) ? node : this.balance(node.key, node.info, node.left, new_right);
+	}
+
+	/**
+	 * --DELETE - REC--
+	 * Complexity - O(logn)
+	 * @return the new version of node's subtree without k (node itself if k is not there)
+	 */
+	private Node deleteRec(Node node, int k) {
+		if (node == null) {
+			return null;
+		}
+		if (k < node.key) {
+			Node new_left = this.deleteRec(node.left, k);
+			return (new_left == node.left) ? node : this.balance(node.key, node.info, new_left, node.right);
+		}
+		if (k > node.key) {
+			Node new_right = this.deleteRec(node.right, k);
+			return (new_right == node.right) ? node : this.balance(node.key, node.info, node.left, new_right);
+		}
+
+		// k == node.key
+		if (node.left == null) {
+			return node.right;
+		}
+		if (node.right == null) {
+			return node.left;
+		}
+		// two children --> the successor takes node's place
+		Node succ = node.right;
+		while (succ.left != null) {
+			succ = succ.left;
+		}
+		return this.balance(succ.key, succ.info, node.left, this.deleteMin(node.right));
+	}
+
+	/**
+	 * --DELETE MIN--
+	 * Complexity - O(logn)
+	 * @return the new version of node's subtree without its minimum
+	 */
+	private Node deleteMin(Node node) {
+		if (node.left == null) {
+			return node.right;
+		}
+		return this.balance(node.key, node.info, this.deleteMin(node.left), node.right);
+	}
+
+	/**
+	 * --BALANCE--
+	 * Complexity - O(1)
+	 * @pre l & r are AVL trees, |height(l) - height(r)| <= 2
+	 * @return a new AVL tree of l, (key, info) and r (rotated if needed)
+	 */
+	private Node balance(int key, String info, Node l, Node r) {
+		int bf = height(l) - height(r);
+		if (bf == 2) { // -->subtree tends to the Left
+			if (height(l.left) < height(l.right)) { // LR Case
+				l = this.rotateLeft(l.key, l.info, l.left, l.right);
+			}
+			return this.rotateRight(key, info, l, r);
+		}
+		if (bf == -2) { // -->subtree tends to the Right
+			if (height(r.left) > height(r.right)) { // RL Case
+				r = this.rotateRight(r.key, r.info, r.left, r.right);
+			}
+			return this.rotateLeft(key, info, l, r);
+		}
+		return new Node(key, info, l, r);
+	}
+
+	/**
+	 * --BALANCE HELPER: ROTATE RIGHT--
+	 * Complexity - O(1)
+	 * @pre l != null
+	 * @return new version of (l, (key, info), r) rotated right
+	 */
+	private Node rotateRight(int key, String info, Node l, Node r) {
+		this.rotation_cou++;
+		return new Node(l.key, l.info, l.left, new Node(key, info, l.right, r));
+	}
+
+	/**
+	 * --BALANCE HELPER: ROTATE LEFT--
+	 * Complexity - O(1)
+	 * @pre r != null
+	 * @return new version of (l, (key, info), r) rotated left
+	 */
+	private Node rotateLeft(int key, String info, Node l, Node r) {
+		this.rotation_cou++;
+		return new Node(r.key, r.info, new Node(key, info, l, r.left), r.right);
+	}
+
+	private void checkWritable() {
+		if (this.frozen) {
+			throw new UnsupportedOperationException("a snapshot can not be modified");
+		}
+	}
+
+	private static int size(Node node) {
+		return (node == null) ? 0 : node.size;
+	}
+
+	private static int height(Node node) {
+		return (node == null) ? -1 : node.height;
+	}
+
+	/**
+	 * --Node CLASS-- (immutable)
+	 * size := size of the tree that this is it's root
+	 * height := height of the tree that this is it's root (leaf - 0)
+	 */
+	private static final class Node {
+
+		private final int key;
+		private final String info;
+		private final Node left, right;
+		private final int height, size;
+
+		private Node(int key, String info, Node left, Node right) {
+			this.key = key;
+			this.info = info;
+			this.left = left;
+			this.right = right;
+			this.height = 1 + Math.max(height(left), height(right));
+			this.size = 1 + size(left) + size(right);
+		}
+	}
+
+}
@@ -0,0 +1,487 @@
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * ---ShardedAVLTree---
+ * A thread safe AVL Tree dictionary (distinct integer keys and info) that is split by key ranges
+ * into shards, every shard is an AVLTree with its own lock, so writers of different ranges run
+ * in parallel.
+ *
+ * shard j holds the keys in [bounds[j], bounds[j+1]) (bounds[0] == Integer.MIN_VALUE, the last
+ * shard goes up to Integer.MAX_VALUE). a point operation (search / insert / delete) takes the
+ * directory lock for reading and then only its shard's lock.
+ * an operation over all the shards (size, min, max, keysToArray, rank / select) takes the
+ * directory lock for reading and the locks of the shards it needs in increasing order,
+ * so it sees one consistent state of them.
+ *
+ * the shards are resized automatically: a shard with more than maxShardSize keys is split at its
+ * median (AVLTree.split, O(logn)), and a shard with less than maxShardSize / 4 keys is merged with
+ * its smaller neighbour (AVLTree.join, O(logn)) - if the merged shard is too big, it is split again
+ * at its median, so the keys of the two shards are spread evenly between them.
+ * resizing changes the directory, so it takes the directory lock for writing (after the point
+ * operation that found it released its locks).
+ */
+public class ShardedAVLTree {
+
+	public static final int DEFAULT_MAX_SHARD_SIZE = 1 << 16;
+
+	private final int maxShardSize, minShardSize;
+	private final ReentrantReadWriteLock directory;
+
+	// changed only under the directory write lock
+	private int[] bounds; // bounds[j] := smallest key of shard j
+	private Shard[] shards;
+	private long splits, merges;
+
+	/**
+	 * --CONSTRUCTOR--
+	 * Complexity - O(1)
+	 */
+	public ShardedAVLTree() {
+		this(1, DEFAULT_MAX_SHARD_SIZE);
+	}
+
+	/**
+	 * --CONSTRUCTOR--
+	 * Complexity - O(shardCount)
+	 * @param shardCount - number of shards to start with (the int key space is split into
+	 *        shardCount equal ranges)
+	 * @param maxShardSize - a shard with more keys is split
+	 * @throws IllegalArgumentException if shardCount < 1 or maxShardSize < 2
+	 */
+	public ShardedAVLTree(int shardCount, int maxShardSize) {
+		if (shardCount < 1) {
+			throw new IllegalArgumentException("shard count must be positive: " + shardCount);
+		}
+		if (maxShardSize < 2) {
+			throw new IllegalArgumentException("max shard size must be at least 2: " + maxShardSize);
+		}
+		this.maxShardSize = maxShardSize;
+		this.minShardSize = maxShardSize / 4;
+		this.directory = new ReentrantReadWriteLock();
+		this.bounds = new int[shardCount];
+		this.shards = new Shard[shardCount];
+		long range = (1L << 32) / shardCount;
+		for (int j = 0; j < shardCount; j++) {
+			this.bounds[j] = (int) (Integer.MIN_VALUE + j * range);
+			this.shards[j] = new Shard(new AVLTree());
+		}
+	}
+
+	/**
+	 * --SEARCH--
+	 * Complexity - O(log(#shards) + logn)
+	 * @return info of k if k in the tree, otherwise null
+	 */
+	public String search(int k) {
+		this.directory.readLock().lock();
+		try {
+			Shard shard = this.shards[this.shardOf(k)];
+			shard.lock.readLock().lock();
+			try {
+				return shard.tree.search(k);
+			} finally {
+				shard.lock.readLock().unlock();
+			}
+		} finally {
+			this.directory.readLock().unlock();
+		}
+	}
+
+	/**
+	 * --INSERT--
+	 * Complexity - O(log(#shards) + logn) (+ O(#shards) if the shard is split)
+	 * @return number of rotations done (in the shard), -1 if k is already in the tree
+	 */
+	public int insert(int k, String i) {
+		int res, shard_size;
+		this.directory.readLock().lock();
+		try {
+			Shard shard = this.shards[this.shardOf(k)];
+			shard.lock.writeLock().lock();
+			try {
+				res = shard.tree.insert(k, i);
+				shard_size = shard.tree.size();
+			} finally {
+				shard.lock.writeLock().unlock();
+			}
+		} finally {
+			this.directory.readLock().unlock();
+		}
+		if (shard_size > this.maxShardSize) {
+			this.resize(k);
+		}
+		return res;
+	}
+
+	/**
+	 * --DELETE--
+	 * Complexity - O(log(#shards) + logn) (+ O(#shards) if the shard is merged)
+	 * @return number of rotations done (in the shard), -1 if k is not in the tree
+	 */
+	public int delete(int k) {
+		int res, shard_size;
+		this.directory.readLock().lock();
+		try {
+			Shard shard = this.shards[this.shardOf(k)];
+			shard.lock.writeLock().lock();
+			try {
+				res = shard.tree.delete(k);
+				shard_size = shard.tree.size();
+			} finally {
+				shard.lock.writeLock().unlock();
+			}
+		} finally {
+			this.directory.readLock().unlock();
+		}
+		if (res != -1 && shard_size < this.minShardSize) {
+			this.resize(k);
+		}
+		return res;
+	}
+
+	/**
+	 * --SIZE--
+	 * Complexity - O(#shards)
+	 */
+	public int size() {
+		this.directory.readLock().lock();
+		int locked = this.lockShards(this.shards.length);
+		try {
+			return this.lockedSize();
+		} finally {
+			this.unlockShards(locked);
+			this.directory.readLock().unlock();
+		}
+	}
+
+	/**
+	 * --EMPTY--
+	 * Complexity - O(#shards)
+	 */
+	public boolean empty() {
+		return this.size() == 0;
+	}
+
+	/**
+	 * --MIN--
+	 * Complexity - O(#shards)
+	 * @return the info of the smallest key, null if the tree is empty
+	 */
+	public String min() {
+		this.directory.readLock().lock();
+		int locked = this.lockShards(this.shards.length);
+		try {
+			for (Shard shard : this.shards) {
+				if (!shard.tree.empty()) {
+					return shard.tree.min();
+				}
+			}
+			return null;
+		} finally {
+			this.unlockShards(locked);
+			this.directory.readLock().unlock();
+		}
+	}
+
+	/**
+	 * --MAX--
+	 * Complexity - O(#shards)
+	 * @return the info of the biggest key, null if the tree is empty
+	 */
+	public String max() {
+		this.directory.readLock().lock();
+		int locked = this.lockShards(this.shards.length);
+		try {
+			for (int j = this.shards.length - 1; j >= 0; j--) {
+				if (!this.shards[j].tree.empty()) {
+					return this.shards[j].tree.max();
+				}
+			}
+			return null;
+		} finally {
+			this.unlockShards(locked);
+			this.directory.readLock().unlock();
+		}
+	}
+
+	/**
+	 * --KEYS TO ARRAY--
+	 * Complexity - O(n + #shards)
+	 * @return sorted array which contains all keys in the tree
+	 */
+	public int[] keysToArray() {
+		this.directory.readLock().lock();
+		int locked = this.lockShards(this.shards.length);
+		try {
+			int[] res = new int[this.lockedSize()];
+			int from = 0;
+			for (Shard shard : this.shards) {
+				int[] keys = shard.tree.keysToArray();
+				System.arraycopy(keys, 0, res, from, keys.length);
+				from += keys.length;
+			}
+			return res;
+		} finally {
+			this.unlockShards(locked);
+			this.directory.readLock().unlock();
+		}
+	}
+
+	/**
+	 * --INFO TO ARRAY--
+	 * Complexity - O(n + #shards)
+	 * @return an array which contains all info in the tree, sorted by their respective keys
+	 */
+	public String[] infoToArray() {
+		this.directory.readLock().lock();
+		int locked = this.lockShards(this.shards.length);
+		try {
+			String[] res = new String[this.lockedSize()];
+			int from = 0;
+			for (Shard shard : this.shards) {
+				String[] infos = shard.tree.infoToArray();
+				System.arraycopy(infos, 0, res, from, infos.length);
+				from += infos.length;
+			}
+			return res;
+		} finally {
+			this.unlockShards(locked);
+			this.directory.readLock().unlock();
+		}
+	}
+
+	/**
+	 * --RANK--
+	 * Complexity - O(#shards + logn)
+	 * @return number of keys in the tree that are smaller than or equal to k
+	 */
+	public int rank(int k) {
+		this.directory.readLock().lock();
+		int j = this.shardOf(k);
+		int locked = this.lockShards(j + 1); // the shards of the keys <= k
+		try {
+			int res = 0;
+			for (int s = 0; s < j; s++) {
+				res += this.shards[s].tree.size();
+			}
+			return res + this.shards[j].tree.rank(k);
+		} finally {
+			this.unlockShards(locked);
+			this.directory.readLock().unlock();
+		}
+	}
+
+	/**
+	 * --SELECT ITEM--
+	 * Complexity - O(#shards + logn)
+	 * @return the item ranked k, null if k is not in [1, size]
+	 */
+	public Item selectItemByRank(int k) {
+		this.directory.readLock().lock();
+		int locked = this.lockShards(this.shards.length);
+		try {
+			if (k < 1) {
+				return null;
+			}
+			for (Shard shard : this.shards) {
+				int shard_size = shard.tree.size();
+				if (k <= shard_size) {
+					return shard.tree.selectItemByRank(k);
+				}
+				k -= shard_size;
+			}
+			return null;
+		} finally {
+			this.unlockShards(locked);
+			this.directory.readLock().unlock();
+		}
+	}
+
+	/**
+	 * --SHARD STATISTICS--
+	 * Complexity - O(1)
+	 */
+	public int getShardCount() {
+		this.directory.readLock().lock();
+		try {
+			return this.shards.length;
+		} finally {
+			this.directory.readLock().unlock();
+		}
+	}
+
+	public long getSplitCount() {
+		this.directory.readLock().lock();
+		try {
+			return this.splits;
+		} finally {
+			this.directory.readLock().unlock();
+		}
+	}
+
+	public long getMergeCount() {
+		this.directory.readLock().lock();
+		try {
+			return this.merges;
+		} finally {
+			this.directory.readLock().unlock();
+		}
+	}
+
+	/**
+	 * --RESIZE--
+	 * Complexity - O(#shards + logn)
+	 * @post the shard of k is split if it is too big, or merged with a neighbour if it is too small
+	 *       (checked again under the directory write lock - another thread may have done it already)
+	 */
+	private void resize(int k) {
+		this.directory.writeLock().lock();
+		try {
+			int j = this.shardOf(k);
+			int shard_size = this.shards[j].tree.size();
+			if (shard_size > this.maxShardSize) {
+				this.splitShard(j);
+			} else if (shard_size < this.minShardSize && this.shards.length > 1) {
+				// merge with the smaller neighbour
+				int left = j - 1;
+				if (j == 0 || (j + 1 < this.shards.length
+						&& this.shards[j + 1].tree.size() < this.shards[j - 1].tree.size())) {
+					left = j;
+				}
+				this.mergeShards(left);
+				if (this.shards[left].tree.size() > this.maxShardSize) {
+					this.splitShard(left);
+				}
+			}
+		} finally {
+			this.directory.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * --RESIZE HELPER: splitShard--
+	 * Complexity - O(#shards + logn)
+	 * @pre the directory write lock is held, shard j has at least 2 keys
+	 * @post shard j is replaced by the shards of the keys below its median and from its median on
+	 */
+	private void splitShard(int j) {
+		AVLTree tree = this.shards[j].tree;
+		Item median = tree.selectItemByRank(tree.size() / 2 + 1);
+		AVLTree[] parts = tree.split(median.getKey()); // the median itself is dropped by split
+		parts[1].insert(median.getKey(), median.getInfo());
+
+		int n = this.shards.length;
+		int[] new_bounds = new int[n + 1];
+		Shard[] new_shards = new Shard[n + 1];
+		System.arraycopy(this.bounds, 0, new_bounds, 0, j + 1);
+		System.arraycopy(this.shards, 0, new_shards, 0, j);
+		new_bounds[j + 1] = median.getKey();
+		new_shards[j] = new Shard(parts[0]);
+		new_shards[j + 1] = new Shard(parts[1]);
+		System.arraycopy(this.bounds, j + 1, new_bounds, j + 2, n - j - 1);
+		System.arraycopy(this.shards, j + 1, new_shards, j + 2, n - j - 1);
+		this.bounds = new_bounds;
+		this.shards = new_shards;
+		this.splits++;
+	}
+
+	/**
+	 * --RESIZE HELPER: mergeShards--
+	 * Complexity - O(#shards + logn)
+	 * @pre the directory write lock is held, j + 1 < number of shards
+	 * @post shards j and j + 1 are replaced by one shard of all their keys
+	 */
+	private void mergeShards(int j) {
+		AVLTree left = this.shards[j].tree, right = this.shards[j + 1].tree;
+		AVLTree merged;
+		if (right.empty()) {
+			merged = left;
+		} else if (left.empty()) {
+			merged = right;
+		} else { // the minimum of right is the middle item of the join
+			Item middle = right.selectItemByRank(1);
+			right.delete(middle.getKey());
+			merged = AVLTree.join(left, middle.getKey(), middle.getInfo(), right);
+		}
+
+		int n = this.shards.length;
+		int[] new_bounds = new int[n - 1];
+		Shard[] new_shards = new Shard[n - 1];
+		System.arraycopy(this.bounds, 0, new_bounds, 0, j + 1);
+		System.arraycopy(this.shards, 0, new_shards, 0, j);
+		new_shards[j] = new Shard(merged);
+		System.arraycopy(this.bounds, j + 2, new_bounds, j + 1, n - j - 2);
+		System.arraycopy(this.shards, j + 2, new_shards, j + 1, n - j - 2);
+		this.bounds = new_bounds;
+		this.shards = new_shards;
+		this.merges++;
+	}
+
+	/**
+	 * --shardOf--
+	 * Complexity - O(log(#shards))
+	 * @pre the directory lock is held
+	 * @return index of the shard whose range holds k
+	 */
+	private int shardOf(int k) {
+		int lo = 0, hi = this.bounds.length - 1; // bounds[0] <= k, the answer is in [lo, hi]
+		while (lo < hi) {
+			int mid = (lo + hi + 1) >>> 1;
+			if (this.bounds[mid] <= k) {
+				lo = mid;
+			} else {
+				hi = mid - 1;
+			}
+		}
+		return lo;
+	}
+
+	/**
+	 * --lockShards / unlockShards--
+	 * Complexity - O(count)
+	 * @pre the directory read lock is held
+	 * lockShards takes the read locks of shards 0..count-1 in order and returns count,
+	 * unlockShards releases them
+	 */
+	private int lockShards(int count) {
+		for (int j = 0; j < count; j++) {
+			this.shards[j].lock.readLock().lock();
+		}
+		return count;
+	}
+
+	private void unlockShards(int count) {
+		for (int j = count - 1; j >= 0; j--) {
+			this.shards[j].lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * --lockedSize--
+	 * Complexity - O(#shards)
+	 * @pre the read locks of all the shards are held
+	 */
+	private int lockedSize() {
+		int res = 0;
+		for (Shard shard : this.shards) {
+			res += shard.tree.size();
+		}
+		return res;
+	}
+
+	/**
+	 * --Shard CLASS--
+	 * a key range of the tree: its AVLTree and the lock that guards it
+	 */
+	private static final class Shard {
+
+		private final AVLTree tree;
+		private final ReentrantReadWriteLock lock;
+
+		private Shard(AVLTree tree) {
+			this.tree = tree;
+			this.lock = new ReentrantReadWriteLock();
+		}
+	}
+
+}
@@ -20,6 +20,19 @@ public class TreeList {
 		tree = new AVLTree();
 	}
 
+	private TreeList(AVLTree tree) {
+		this.tree = tree;
+	}
+
+	/**
+	 * --FROM ARRAYS-- O(n)
+	 * @pre keys.length == infos.length
+	 * @return a list whose i'th item is (keys[i], infos[i])
+	 */
+	static TreeList fromArrays(int[] keys, String[] infos) {
+		return new TreeList(AVLTree.fromOrdered(keys, infos));
+	}
+
 	public int length() {
 		return tree.size();
 	}
@@ -61,4 +74,29 @@ public class TreeList {
 		return 0;
 	}
 
-}
\ No newline at end of file
+	/**
+	 * --BACKING TREE-- O(1)
+	 * @return the tree that holds the items (its in-order is the list order)
+	 */
+	AVLTree backingTree() {
+		return this.tree;
+	}
+
+	/**
+	 * --HEIGHT-- O(1)
+	 * @return height of the underlying tree (-1 for an empty list)
+	 */
+	int height() {
+		AVLTree.IAVLNode root = this.tree.getRoot();
+		return (root == null) ? -1 : root.getHeight();
+	}
+
+	/**
+	 * --TOTAL ROTATIONS-- O(1)
+	 * @return rotations done by the underlying tree since it was created
+	 */
+	long totalRotations() {
+		return this.tree.getTotalRotations();
+	}
+
+}
\ No newline at end of file
@@ -0,0 +1,284 @@
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntSupplier;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * ---TreeStats---
+ * Operation level statistics of one instrumented tree / list
+ * (InstrumentedAVLTree, InstrumentedTreeList), published through JMX as a TreeStatsMBean.
+ *
+ * the counters are LongAdders and the latency histograms are atomic arrays of log2 buckets,
+ * so a JMX client may read them while the structure is being used.
+ * the owner checks isEnabled() (one volatile read) before it times anything,
+ * so a disabled TreeStats costs almost nothing.
+ */
+public class TreeStats implements TreeStatsMBean {
+
+	public static final int SEARCH = 0, INSERT = 1, DELETE = 2, SELECT = 3;
+	public static final int BUCKETS = 64;
+
+	private static final String[] OP_NAMES = { "search", "insert", "delete", "select" };
+
+	private volatile boolean enabled;
+	private final IntSupplier height, size;
+
+	private final LongAdder[] counts;
+	private final AtomicLongArray latencies; // BUCKETS buckets per operation
+	private final LongAdder rotations, updates, searchPath;
+	private final AtomicInteger maxSearchPath;
+
+	private ObjectName name;
+
+	/**
+	 * --CONSTRUCTOR--
+	 * Complexity - O(1)
+	 * @param height, size - read the current height & size of the owner (called by JMX clients)
+	 */
+	public TreeStats(boolean enabled, IntSupplier height, IntSupplier size) {
+		this.enabled = enabled;
+		this.height = height;
+		this.size = size;
+		this.counts = new LongAdder[OP_NAMES.length];
+		for (int j = 0; j < this.counts.length; j++) {
+			this.counts[j] = new LongAdder();
+		}
+		this.latencies = new AtomicLongArray(OP_NAMES.length * BUCKETS);
+		this.rotations = new LongAdder();
+		this.updates = new LongAdder();
+		this.searchPath = new LongAdder();
+		this.maxSearchPath = new AtomicInteger();
+	}
+
+	/**
+	 * --RECORD--
+	 * Complexity - O(1)
+	 * @param op - SEARCH, INSERT, DELETE or SELECT
+	 * @param nanos - duration of the operation
+	 */
+	public void record(int op, long nanos) {
+		this.counts[op].increment();
+		this.latencies.incrementAndGet(op * BUCKETS + bucket(nanos));
+	}
+
+	/**
+	 * --RECORD UPDATE--
+	 * Complexity - O(1)
+	 * @param rot - rotations done by an insert / delete, -1 if it did not change the structure
+	 */
+	public void recordUpdate(int op, long nanos, int rot) {
+		this.record(op, nanos);
+		if (rot >= 0) {
+			this.updates.increment();
+			this.rotations.add(rot);
+		}
+	}
+
+	/**
+	 * --RECORD SEARCH--
+	 * Complexity - O(1)
+	 * @param path - number of nodes the search visited
+	 */
+	public void recordSearch(long nanos, int path) {
+		this.record(SEARCH, nanos);
+		this.searchPath.add(path);
+		this.maxSearchPath.accumulateAndGet(path, Math::max);
+	}
+
+	/**
+	 * --REGISTER--
+	 * registers this on the platform MBeanServer as "ds:type=TreeStats,name=<name>"
+	 * @return the ObjectName it is registered with
+	 * @throws IllegalStateException if the registration failed (e.g. the name is taken)
+	 */
+	public synchronized ObjectName register(String name) {
+		if (this.name != null) {
+			throw new IllegalStateException("already registered as " + this.name);
+		}
+		try {
+			ObjectName object_name = ObjectName.getInstance("ds:type=TreeStats,name=" + ObjectName.quote(name));
+			ManagementFactory.getPlatformMBeanServer().registerMBean(this, object_name);
+			this.name = object_name;
+			return object_name;
+		} catch (JMException e) {
+			throw new IllegalStateException("can not register TreeStats " + name, e);
+		}
+	}
+
+	/**
+	 * --UNREGISTER--
+	 * @post this is not registered on the platform MBeanServer (nothing if it was not)
+	 */
+	public synchronized void unregister() {
+		if (this.name == null) {
+			return;
+		}
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		try {
+			if (server.isRegistered(this.name)) {
+				server.unregisterMBean(this.name);
+			}
+		} catch (JMException e) {
+			throw new IllegalStateException("can not unregister " + this.name, e);
+		} finally {
+			this.name = null;
+		}
+	}
+
+	@Override
+	public boolean isEnabled() {
+		return this.enabled;
+	}
+
+	@Override
+	public void setEnabled(boolean enabled) {
+		this.enabled = enabled;
+	}
+
+	@Override
+	public long getSearchCount() {
+		return this.counts[SEARCH].sum();
+	}
+
+	@Override
+	public long getInsertCount() {
+		return this.counts[INSERT].sum();
+	}
+
+	@Override
+	public long getDeleteCount() {
+		return this.counts[DELETE].sum();
+	}
+
+	@Override
+	public long getSelectCount() {
+		return this.counts[SELECT].sum();
+	}
+
+	@Override
+	public long getRotationCount() {
+		return this.rotations.sum();
+	}
+
+	@Override
+	public double getRotationsPerUpdate() {
+		long upd = this.updates.sum();
+		return (upd == 0) ? 0 : (double) this.rotations.sum() / upd;
+	}
+
+	@Override
+	public double getAverageSearchPathLength() {
+		long searches = this.counts[SEARCH].sum();
+		return (searches == 0) ? 0 : (double) this.searchPath.sum() / searches;
+	}
+
+	@Override
+	public int getMaxSearchPathLength() {
+		return this.maxSearchPath.get();
+	}
+
+	@Override
+	public int getHeight() {
+		return this.height.getAsInt();
+	}
+
+	@Override
+	public int getSize() {
+		return this.size.getAsInt();
+	}
+
+	@Override
+	public long[] getSearchLatencyHistogram() {
+		return this.histogram(SEARCH);
+	}
+
+	@Override
+	public long[] getInsertLatencyHistogram() {
+		return this.histogram(INSERT);
+	}
+
+	@Override
+	public long[] getDeleteLatencyHistogram() {
+		return this.histogram(DELETE);
+	}
+
+	@Override
+	public long[] getSelectLatencyHistogram() {
+		return this.histogram(SELECT);
+	}
+
+	/**
+	 * --LATENCY PERCENTILE--
+	 * Complexity - O(BUCKETS)
+	 * @param operation - "search", "insert", "delete" or "select"
+	 * @param q - in [0, 1]
+	 * @return upper bound (in nanoseconds) of the bucket that holds the q-quantile, 0 if there are no samples
+	 */
+	@Override
+	public long latencyPercentile(String operation, double q) {
+		if (!(q >= 0 && q <= 1)) { // NaN too
+			throw new IllegalArgumentException("q must be in [0, 1]: " + q);
+		}
+		long[] hist = this.histogram(opIndex(operation));
+		long total = 0;
+		for (long c : hist) {
+			total += c;
+		}
+		if (total == 0) {
+			return 0;
+		}
+		long target = Math.max(1, (long) Math.ceil(q * total));
+		long seen = 0;
+		for (int j = 0; j < hist.length; j++) {
+			seen += hist[j];
+			if (seen >= target) {
+				return (j == BUCKETS - 1) ? Long.MAX_VALUE : (1L << j);
+			}
+		}
+		return Long.MAX_VALUE; //shouldn't be here
+	}
+
+	@Override
+	public void reset() {
+		for (LongAdder c : this.counts) {
+			c.reset();
+		}
+		for (int j = 0; j < this.latencies.length(); j++) {
+			this.latencies.set(j, 0);
+		}
+		this.rotations.reset();
+		this.updates.reset();
+		this.searchPath.reset();
+		this.maxSearchPath.set(0);
+	}
+
+	private long[] histogram(int op) {
+		long[] res = new long[BUCKETS];
+		for (int j = 0; j < BUCKETS; j++) {
+			res[j] = this.latencies.get(op * BUCKETS + j);
+		}
+		return res;
+	}
+
+	private static int opIndex(String operation) {
+		for (int j = 0; j < OP_NAMES.length; j++) {
+			if (OP_NAMES[j].equalsIgnoreCase(operation)) {
+				return j;
+			}
+		}
+		throw new IllegalArgumentException("unknown operation: " + operation);
+	}
+
+	/**
+	 * @return j such that 2^(j-1) <= nanos < 2^j (0 for nanos <= 0)
+	 */
+	private static int bucket(long nanos) {
+		return (nanos <= 0) ? 0 : 64 - Long.numberOfLeadingZeros(nanos);
+	}
+
+}
@@ -0,0 +1,46 @@
+/**
+ * ---TreeStatsMBean---
+ * The JMX management interface of TreeStats (see there).
+ * latencies are in nanoseconds, histogram bucket j counts the operations
+ * that took [2^(j-1), 2^j) nanoseconds (bucket 0 - less than 1 nanosecond).
+ */
+
+public interface TreeStatsMBean {
+
+	public boolean isEnabled();
+
+	public void setEnabled(boolean enabled);
+
+	public long getSearchCount();
+
+	public long getInsertCount();
+
+	public long getDeleteCount();
+
+	public long getSelectCount(); // selectItemByRank of a tree, retrieve of a list
+
+	public long getRotationCount();
+
+	public double getRotationsPerUpdate(); // rotations per insert / delete that changed the structure
+
+	public double getAverageSearchPathLength(); // nodes visited per search
+
+	public int getMaxSearchPathLength();
+
+	public int getHeight();
+
+	public int getSize();
+
+	public long[] getSearchLatencyHistogram();
+
+	public long[] getInsertLatencyHistogram();
+
+	public long[] getDeleteLatencyHistogram();
+
+	public long[] getSelectLatencyHistogram();
+
+	public long latencyPercentile(String operation, double q); // upper bound (nanos) of the q-quantile bucket
+
+	public void reset();
+
+}
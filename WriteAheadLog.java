@@ -0,0 +1,425 @@
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32C;
+
+/**
+ * ---WriteAheadLog---
+ * An append only log of binary mutation records (for DurableAVLTree & DurableTreeList).
+ *
+ * record layout (little endian):
+ *   payload length (int) | CRC32C of the payload (int) | payload:
+ *     op (byte) | a (int) | b (int, LIST_INSERT only) | info length (int, -1 for null) + UTF-8 info (inserts only)
+ *
+ * group commit: records are collected in one direct buffer and written + fsynced together,
+ * when the buffer passes syncBytes, or by a background thread every syncMillis
+ * (syncMillis == 0 --> every record is synced before append returns).
+ * so with batching on, a crash loses at most the last syncMillis of records (never a part of one).
+ *
+ * replay reads the records back in order and stops at the first torn or corrupted record
+ * (the end of the log after a crash), the log is truncated there.
+ */
+public final class WriteAheadLog implements AutoCloseable {
+
+	public static final byte INSERT = 1, DELETE = 2, LIST_INSERT = 3, LIST_DELETE = 4;
+
+	public static final int DEFAULT_SYNC_BYTES = 1 << 20;
+	public static final long DEFAULT_SYNC_MILLIS = 10;
+
+	private static final int RECORD_HEADER = 8; // payload length + CRC
+
+	private final FileChannel ch;
+	private final ByteBuffer buf;
+	private final CRC32C crc;
+	private final int syncBytes;
+	private final ScheduledExecutorService syncer;
+
+	private boolean closed;
+	private IOException failure; // of an earlier write (or background sync), thrown by the next call
+
+	/**
+	 * --OPEN--
+	 * @param file - the log file (created if needed, records are appended at its end)
+	 * @param syncBytes - write & fsync when this many bytes are waiting (> 0)
+	 * @param syncMillis - also write & fsync waiting records every syncMillis ms, 0 - sync every record
+	 */
+	public WriteAheadLog(Path file, int syncBytes, long syncMillis) throws IOException {
+		if (syncBytes <= 0 || syncMillis < 0) {
+			throw new IllegalArgumentException("illegal sync policy: " + syncBytes + " bytes, " + syncMillis + " ms");
+		}
+		this.ch = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+		this.ch.position(this.ch.size());
+		this.syncBytes = syncBytes;
+		this.buf = ByteBuffer.allocateDirect(Math.max(syncBytes, 1 << 12) + (1 << 12)).order(ByteOrder.LITTLE_ENDIAN);
+		this.crc = new CRC32C();
+		if (syncMillis > 0) {
+			this.syncer = Executors.newSingleThreadScheduledExecutor(r -> {
+				Thread t = new Thread(r, "wal-sync " + file.getFileName());
+				t.setDaemon(true);
+				return t;
+			});
+			this.syncer.scheduleWithFixedDelay(this::backgroundSync, syncMillis, syncMillis, TimeUnit.MILLISECONDS);
+		} else {
+			this.syncer = null;
+		}
+	}
+
+	/**
+	 * --LOG INSERT / DELETE-- (AVLTree records)
+	 * Complexity - O(1) + O(|info|), amortized over the group commit
+	 */
+	public synchronized void logInsert(int k, String info) throws IOException {
+		this.append(INSERT, k, 0, info);
+	}
+
+	public synchronized void logDelete(int k) throws IOException {
+		this.append(DELETE, k, 0, null);
+	}
+
+	/**
+	 * --LOG LIST INSERT / LIST DELETE-- (TreeList records)
+	 * Complexity - O(1) + O(|info|), amortized over the group commit
+	 */
+	public synchronized void logListInsert(int i, int k, String info) throws IOException {
+		this.append(LIST_INSERT, i, k, info);
+	}
+
+	public synchronized void logListDelete(int i) throws IOException {
+		this.append(LIST_DELETE, i, 0, null);
+	}
+
+	/**
+	 * --SYNC--
+	 * @post every record appended so far is on the disk
+	 */
+	public synchronized void sync() throws IOException {
+		this.checkOpen();
+		this.writeOut(true);
+	}
+
+	/**
+	 * --CLOSE--
+	 * @post every record is on the disk, the background thread is stopped and the file is closed
+	 */
+	@Override
+	public void close() throws IOException {
+		if (this.syncer != null) {
+			this.syncer.shutdownNow();
+		}
+		synchronized (this) {
+			if (this.closed) {
+				return;
+			}
+			try {
+				if (this.failure == null) {
+					this.writeOut(true);
+				}
+			} finally {
+				this.closed = true;
+				this.ch.close();
+			}
+		}
+	}
+
+	/**
+	 * --REPLAY--
+	 * Complexity - O(size of the log)
+	 * @post the torn / corrupted tail of the log (if any) is cut off
+	 * @return number of records given to handler (in the order they were appended)
+	 */
+	public static long replay(Path file, Handler handler) throws IOException {
+		if (!Files.exists(file)) {
+			return 0;
+		}
+		long count = 0, valid_end = 0;
+		CRC32C crc = new CRC32C();
+		try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+			ByteBuffer in = ByteBuffer.allocate(1 << 20).order(ByteOrder.LITTLE_ENDIAN);
+			in.flip();
+			boolean eof = false;
+			while (true) {
+				// make sure a whole record is in the buffer
+				int need = RECORD_HEADER;
+				if (in.remaining() >= RECORD_HEADER) {
+					int len = in.getInt(in.position());
+					if (len <= 0) {
+						break; // corrupted length
+					}
+					if (valid_end + RECORD_HEADER + (long) len > ch.size()) {
+						break; // torn (or corrupted) record at the end
+					}
+					need = RECORD_HEADER + len;
+				}
+				if (in.remaining() < need) {
+					if (eof) {
+						break; // torn record at the end
+					}
+					if (need > in.capacity()) {
+						ByteBuffer bigger = ByteBuffer.allocate(need).order(ByteOrder.LITTLE_ENDIAN);
+						bigger.put(in);
+						in = bigger;
+					} else {
+						in.compact();
+					}
+					eof = readMore(ch, in);
+					in.flip();
+					continue;
+				}
+
+				int len = in.getInt();
+				int expected_crc = in.getInt();
+				ByteBuffer payload = in.slice().limit(len).order(ByteOrder.LITTLE_ENDIAN);
+				crc.reset();
+				crc.update(payload.duplicate());
+				if ((int) crc.getValue() != expected_crc) {
+					break;
+				}
+				in.position(in.position() + len);
+				if (!dispatch(payload, handler)) {
+					break;
+				}
+				count++;
+				valid_end += RECORD_HEADER + len;
+			}
+			if (valid_end < ch.size()) {
+				ch.truncate(valid_end);
+				ch.force(true);
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * --DIRECTORY LAYOUT-- (of DurableAVLTree & DurableTreeList)
+	 * generation g is snapshot-g.avl (no snapshot for g == 0) + the records after it in wal-g.log.
+	 * a checkpoint writes snapshot-(g+1) and starts the empty wal-(g+1) before it removes generation g,
+	 * so the newest snapshot in the directory and its log always hold the whole state.
+	 */
+
+	static Path snapshotFile(Path dir, long g) {
+		return dir.resolve("snapshot-" + g + ".avl");
+	}
+
+	static Path logFile(Path dir, long g) {
+		return dir.resolve("wal-" + g + ".log");
+	}
+
+	/**
+	 * @return the newest generation that has a snapshot in dir, 0 if there is none
+	 */
+	static long latestGeneration(Path dir) throws IOException {
+		long res = 0;
+		try (DirectoryStream<Path> files = Files.newDirectoryStream(dir, "snapshot-*.avl")) {
+			for (Path f : files) {
+				res = Math.max(res, generationOf(f, "snapshot-", ".avl"));
+			}
+		}
+		return res;
+	}
+
+	/**
+	 * @post the snapshots & logs of the generations before g are deleted
+	 */
+	static void removeOlder(Path dir, long g) throws IOException {
+		try (DirectoryStream<Path> files = Files.newDirectoryStream(dir, "{snapshot-*.avl,wal-*.log}")) {
+			for (Path f : files) {
+				long fg = f.getFileName().toString().startsWith("wal-") ? generationOf(f, "wal-", ".log")
+						: generationOf(f, "snapshot-", ".avl");
+				if (0 <= fg && fg < g) {
+					Files.deleteIfExists(f);
+				}
+			}
+		}
+	}
+
+	/**
+	 * @return g of a file named prefix + g + suffix, -1 if the name is not like that
+	 */
+	private static long generationOf(Path f, String prefix, String suffix) {
+		String name = f.getFileName().toString();
+		try {
+			return Long.parseLong(name.substring(prefix.length(), name.length() - suffix.length()));
+		} catch (NumberFormatException | IndexOutOfBoundsException e) {
+			return -1;
+		}
+	}
+
+	/**
+	 * @post the entries of dir (created / renamed files) are on the disk (where the OS supports it)
+	 */
+	static void syncDirectory(Path dir) {
+		try (FileChannel d = FileChannel.open(dir, StandardOpenOption.READ)) {
+			d.force(true);
+		} catch (IOException e) {
+			// some systems can not open or force a directory
+		}
+	}
+
+	/**
+	 * --HANDLER--
+	 * gets the records of a log in replay
+	 */
+	public interface Handler {
+		public void insert(int k, String info);
+
+		public void delete(int k);
+
+		public void listInsert(int i, int k, String info);
+
+		public void listDelete(int i);
+	}
+
+	/**
+	 * --APPEND--
+	 * @pre holds this's lock
+	 */
+	private void append(byte op, int a, int b, String info) throws IOException {
+		this.checkOpen();
+		byte[] bytes = (info == null) ? null : info.getBytes(StandardCharsets.UTF_8);
+		int len = 1 + 4 + ((op == LIST_INSERT) ? 4 : 0);
+		if (op == INSERT || op == LIST_INSERT) {
+			len += 4 + ((bytes == null) ? 0 : bytes.length);
+		}
+		try {
+			if (this.buf.remaining() < RECORD_HEADER + len) {
+				this.writeOut(false);
+				if (this.buf.capacity() < RECORD_HEADER + len) { // a huge info --> a record of its own
+					this.writeRecord(ByteBuffer.allocate(RECORD_HEADER + len).order(ByteOrder.LITTLE_ENDIAN), op, a, b, bytes, len);
+					this.writeOut(true);
+					return;
+				}
+			}
+			this.writeRecord(this.buf, op, a, b, bytes, len);
+			if (this.syncer == null || this.buf.position() >= this.syncBytes) {
+				this.writeOut(true);
+			}
+		} catch (IOException e) { // the file may hold a part of the records --> no more appends, reopen to recover
+			this.failure = e;
+			throw e;
+		}
+	}
+
+	private void writeRecord(ByteBuffer to, byte op, int a, int b, byte[] bytes, int len) throws IOException {
+		int start = to.position();
+		to.putInt(len).putInt(0);
+		to.put(op).putInt(a);
+		if (op == LIST_INSERT) {
+			to.putInt(b);
+		}
+		if (op == INSERT || op == LIST_INSERT) {
+			if (bytes == null) {
+				to.putInt(-1);
+			} else {
+				to.putInt(bytes.length).put(bytes);
+			}
+		}
+		this.crc.reset();
+		this.crc.update(to.duplicate().position(start + RECORD_HEADER).limit(to.position()));
+		to.putInt(start + 4, (int) this.crc.getValue());
+		if (to != this.buf) {
+			to.flip();
+			while (to.hasRemaining()) {
+				this.ch.write(to);
+			}
+		}
+	}
+
+	/**
+	 * --WRITE OUT--
+	 * @pre holds this's lock
+	 * @post the buffered records are written to the file (and forced to the disk if force)
+	 */
+	private void writeOut(boolean force) throws IOException {
+		boolean wrote = this.buf.position() > 0;
+		this.buf.flip();
+		while (this.buf.hasRemaining()) {
+			this.ch.write(this.buf);
+		}
+		this.buf.clear();
+		if (force && wrote) {
+			this.ch.force(false);
+		}
+	}
+
+	private synchronized void backgroundSync() {
+		if (this.closed || this.failure != null || this.buf.position() == 0) {
+			return;
+		}
+		try {
+			this.writeOut(true);
+		} catch (IOException e) {
+			this.failure = e;
+		}
+	}
+
+	private void checkOpen() throws IOException {
+		if (this.closed) {
+			throw new IllegalStateException("the log is closed");
+		}
+		if (this.failure != null) {
+			throw new IOException("an earlier write of the log failed", this.failure);
+		}
+	}
+
+	/**
+	 * @return true if the end of the file was reached
+	 */
+	private static boolean readMore(FileChannel ch, ByteBuffer in) throws IOException {
+		while (in.hasRemaining()) {
+			if (ch.read(in) < 0) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * @return false if the payload is malformed
+	 */
+	private static boolean dispatch(ByteBuffer p, Handler handler) {
+		try {
+			byte op = p.get();
+			int a = p.getInt();
+			switch (op) {
+			case INSERT:
+				handler.insert(a, readInfo(p));
+				return true;
+			case DELETE:
+				handler.delete(a);
+				return true;
+			case LIST_INSERT:
+				int k = p.getInt();
+				handler.listInsert(a, k, readInfo(p));
+				return true;
+			case LIST_DELETE:
+				handler.listDelete(a);
+				return true;
+			default:
+				return false;
+			}
+		} catch (BufferUnderflowException | NegativeArraySizeException e) {
+			return false;
+		}
+	}
+
+	private static String readInfo(ByteBuffer p) {
+		int len = p.getInt();
+		if (len < 0) {
+			return null;
+		}
+		byte[] bytes = new byte[len];
+		p.get(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+}
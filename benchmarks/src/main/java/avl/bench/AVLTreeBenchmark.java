@@ -0,0 +1,92 @@
+package avl.bench;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import avl.AVLTree;
+
+/**
+ * ---AVLTreeBenchmark---
+ * search / insert / delete on an AVLTree of `size` keys (0, 2, 4, ...; inserted in random order),
+ * with the operated keys drawn from a RANDOM, SEQUENTIAL or ZIPF distribution.
+ *
+ * insert and delete are measured in pairs, so the tree keeps its size between invocations:
+ * insertDelete - insert of a missing (odd) key, then its delete
+ * deleteInsert - delete of an existing (even) key, then its re-insert
+ * fingerSearch - search through one AVLTree.Finger that follows the key stream
+ */
+
+@State(Scope.Thread)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class AVLTreeBenchmark {
+
+	@Param({ "1000", "100000", "1000000" })
+	public int size;
+
+	@Param({ "RANDOM", "SEQUENTIAL", "ZIPF" })
+	public KeyStreams.Distribution distribution;
+
+	private AVLTree tree;
+	private AVLTree.Finger finger;
+	private int[] indices;
+	private int cursor;
+
+	@Setup
+	public void setup() {
+		Random rnd = new Random(42);
+		this.tree = new AVLTree();
+		for (int j : KeyStreams.shuffled(this.size, rnd)) {
+			this.tree.insert(2 * j, "info" + j);
+		}
+		this.finger = this.tree.finger();
+		this.indices = KeyStreams.indices(this.distribution, this.size, 7);
+		this.cursor = 0;
+	}
+
+	private int next() {
+		return this.indices[this.cursor++ & KeyStreams.MASK];
+	}
+
+	@Benchmark
+	public String search() {
+		return this.tree.search(2 * this.next());
+	}
+
+	@Benchmark
+	public String fingerSearch() {
+		return this.finger.search(2 * this.next());
+	}
+
+	@Benchmark
+	public String searchMiss() {
+		return this.tree.search(2 * this.next() + 1);
+	}
+
+	@Benchmark
+	public int insertDelete() {
+		int k = 2 * this.next() + 1;
+		this.tree.insert(k, "new");
+		return this.tree.delete(k);
+	}
+
+	@Benchmark
+	public int deleteInsert() {
+		int k = 2 * this.next();
+		this.tree.delete(k);
+		return this.tree.insert(k, "again");
+	}
+
+}
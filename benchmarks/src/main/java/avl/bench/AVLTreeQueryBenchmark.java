@@ -0,0 +1,64 @@
+package avl.bench;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import avl.AVLTree;
+import avl.Item;
+
+/**
+ * ---AVLTreeQueryBenchmark---
+ * selectItemByRank (uniform random ranks), keysToArray and infoToArray on an AVLTree of `size` keys.
+ */
+
+@State(Scope.Thread)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class AVLTreeQueryBenchmark {
+
+	@Param({ "1000", "100000", "1000000" })
+	public int size;
+
+	private AVLTree tree;
+	private int[] ranks;
+	private int cursor;
+
+	@Setup
+	public void setup() {
+		Random rnd = new Random(42);
+		this.tree = new AVLTree();
+		for (int j : KeyStreams.shuffled(this.size, rnd)) {
+			this.tree.insert(2 * j, "info" + j);
+		}
+		this.ranks = KeyStreams.indices(KeyStreams.Distribution.RANDOM, this.size, 7);
+		this.cursor = 0;
+	}
+
+	@Benchmark
+	public Item selectItemByRank() {
+		return this.tree.selectItemByRank(this.ranks[this.cursor++ & KeyStreams.MASK] + 1);
+	}
+
+	@Benchmark
+	public int[] keysToArray() {
+		return this.tree.keysToArray();
+	}
+
+	@Benchmark
+	public String[] infoToArray() {
+		return this.tree.infoToArray();
+	}
+
+}
@@ -0,0 +1,39 @@
+package avl.bench;
+
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * ---BenchmarkRunner---
+ * Main class of benchmarks.jar: the usual JMH command line,
+ * with throughput + average time modes and the GC profiler (allocation rate) always on.
+ *
+ * java -jar benchmarks/target/benchmarks.jar [JMH options, e.g. AVLTreeBenchmark -p size=1000]
+ */
+
+public final class BenchmarkRunner {
+
+	private BenchmarkRunner() {
+	}
+
+	public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+		CommandLineOptions cmd = new CommandLineOptions(args);
+		OptionsBuilder opts = new OptionsBuilder();
+		opts.parent(cmd);
+		if (cmd.getBenchModes().isEmpty()) {
+			opts.mode(Mode.Throughput).mode(Mode.AverageTime);
+		}
+		boolean has_gc = cmd.getProfilers().stream().anyMatch(p -> p.getKlass().equals("gc")
+				|| p.getKlass().equals(GCProfiler.class.getName()));
+		if (!has_gc) {
+			opts.addProfiler(GCProfiler.class);
+		}
+		new Runner(opts.build()).run();
+	}
+
+}
@@ -0,0 +1,72 @@
+package avl.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import avl.CircularList;
+import avl.Item;
+
+/**
+ * ---CircularListBenchmark---
+ * CircularList retrieve / insert / delete at the head, middle or tail,
+ * for a list of capacity maxLen that is filled up to `fill` of it.
+ * insert and delete are measured in pairs, so the list keeps its length between invocations.
+ */
+
+@State(Scope.Thread)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class CircularListBenchmark {
+
+	@Param({ "10000" })
+	public int maxLen;
+
+	@Param({ "0.1", "0.5", "0.9", "0.99" })
+	public double fill;
+
+	@Param({ "HEAD", "MIDDLE", "TAIL" })
+	public ListPosition position;
+
+	private CircularList list;
+
+	@Setup
+	public void setup() {
+		this.list = new CircularList(this.maxLen);
+		int len = Math.max(1, Math.min(this.maxLen - 1, (int) (this.maxLen * this.fill)));
+		for (int j = 0; j < len; j++) {
+			this.list.insert(j, j, "info" + j);
+		}
+	}
+
+	@Benchmark
+	public Item retrieve() {
+		return this.list.retrieve(this.position.existing(this.list.getLen()));
+	}
+
+	@Benchmark
+	public int insertDelete() {
+		int i = this.position.insertion(this.list.getLen());
+		this.list.insert(i, -1, "new");
+		return this.list.delete(i);
+	}
+
+	@Benchmark
+	public int deleteInsert() {
+		int i = this.position.existing(this.list.getLen());
+		Item item = this.list.retrieve(i);
+		this.list.delete(i);
+		return this.list.insert(i, item.getKey(), item.getInfo());
+	}
+
+}
@@ -0,0 +1,168 @@
+package avl.bench;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import avl.AVLTree;
+import avl.ConcurrentAVLTree;
+
+/**
+ * ---ConcurrentBenchmark---
+ * read scaling of a shared tree of `size` keys under contention:
+ * a ConcurrentAVLTree (optimistic reads, a lock per changed node) vs an AVLTree behind a
+ * ReentrantReadWriteLock.
+ * groups: reads1 / reads4 - 1 / 4 threads searching (no writer),
+ *         mixed - 3 threads searching + 1 thread inserting & deleting odd keys,
+ *         readMostly - 16 threads, each doing 90% searches and 10% inserts or deletes of odd keys
+ *         (-tg 1 / -tg 4 / ... gives the scaling curve).
+ * per thread scores are reported by JMH for every method of a group.
+ */
+
+@State(Scope.Group)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ConcurrentBenchmark {
+
+	@Param({ "100000", "1000000" })
+	public int size;
+
+	@Param({ "optimistic", "rwlock" })
+	public String impl;
+
+	private ConcurrentAVLTree optimistic;
+	private AVLTree locked;
+	private ReentrantReadWriteLock lock;
+	private final AtomicLong seeds = new AtomicLong();
+
+	@Setup
+	public void setup() {
+		this.optimistic = null;
+		this.locked = null;
+		if (this.impl.equals("optimistic")) {
+			this.optimistic = new ConcurrentAVLTree();
+		} else {
+			this.locked = new AVLTree();
+			this.lock = new ReentrantReadWriteLock();
+		}
+		for (int k : KeyStreams.shuffled(this.size, new Random(1))) {
+			this.insert(2 * k, "info" + k);
+		}
+	}
+
+	/**
+	 * the key stream of one thread (every thread has its own seed)
+	 */
+	@State(Scope.Thread)
+	public static class Cursor {
+		private int[] keys;
+		private int pos;
+
+		@Setup
+		public void setup(ConcurrentBenchmark bench) {
+			this.keys = KeyStreams.indices(KeyStreams.Distribution.RANDOM, bench.size, bench.seeds.incrementAndGet());
+			this.pos = 0;
+		}
+
+		private int next() {
+			return this.keys[this.pos++ & KeyStreams.MASK];
+		}
+	}
+
+	@Benchmark
+	@Group("reads1")
+	@GroupThreads(1)
+	public String search1(Cursor cursor) {
+		return this.search(2 * cursor.next());
+	}
+
+	@Benchmark
+	@Group("reads4")
+	@GroupThreads(4)
+	public String search4(Cursor cursor) {
+		return this.search(2 * cursor.next());
+	}
+
+	@Benchmark
+	@Group("mixed")
+	@GroupThreads(3)
+	public String mixedSearch(Cursor cursor) {
+		return this.search(2 * cursor.next());
+	}
+
+	@Benchmark
+	@Group("mixed")
+	@GroupThreads(1)
+	public int mixedInsertDelete(Cursor cursor) {
+		int k = 2 * cursor.next() + 1; // odd keys are not in the tree
+		this.insert(k, "new");
+		return this.delete(k);
+	}
+
+	@Benchmark
+	@Group("readMostly")
+	@GroupThreads(16)
+	public String readMostly(Cursor cursor) {
+		int j = cursor.next();
+		if (j % 10 != 0) {
+			return this.search(2 * j);
+		}
+		int k = 2 * j + 1;
+		if (this.insert(k, "new") == -1) {
+			this.delete(k);
+		}
+		return null;
+	}
+
+	private String search(int k) {
+		if (this.optimistic != null) {
+			return this.optimistic.search(k);
+		}
+		this.lock.readLock().lock();
+		try {
+			return this.locked.search(k);
+		} finally {
+			this.lock.readLock().unlock();
+		}
+	}
+
+	private int insert(int k, String i) {
+		if (this.optimistic != null) {
+			return this.optimistic.insert(k, i);
+		}
+		this.lock.writeLock().lock();
+		try {
+			return this.locked.insert(k, i);
+		} finally {
+			this.lock.writeLock().unlock();
+		}
+	}
+
+	private int delete(int k) {
+		if (this.optimistic != null) {
+			return this.optimistic.delete(k);
+		}
+		this.lock.writeLock().lock();
+		try {
+			return this.locked.delete(k);
+		} finally {
+			this.lock.writeLock().unlock();
+		}
+	}
+
+}
@@ -0,0 +1,75 @@
+package avl.bench;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import avl.DurableAVLTree;
+
+/**
+ * ---DurableBenchmark---
+ * insert + delete on a DurableAVLTree of `size` keys, with the write-ahead log
+ * group committed every syncMillis ms (or every 1MB of records).
+ * the score counts the pair as one operation (two log records).
+ */
+
+@State(Scope.Thread)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class DurableBenchmark {
+
+	@Param({ "100000" })
+	public int size;
+
+	@Param({ "1", "10" })
+	public long syncMillis;
+
+	private Path dir;
+	private DurableAVLTree tree;
+	private int next;
+
+	@Setup
+	public void setup() throws IOException {
+		this.dir = Files.createTempDirectory("avl-durable");
+		this.tree = DurableAVLTree.open(this.dir, 1 << 20, this.syncMillis);
+		for (int j = 0; j < this.size; j++) {
+			this.tree.insert(2 * j, "info" + j);
+		}
+		this.tree.checkpoint();
+		this.next = 0;
+	}
+
+	@TearDown
+	public void tearDown() throws IOException {
+		this.tree.close();
+		try (Stream<Path> files = Files.walk(this.dir)) {
+			for (Path f : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) {
+				Files.delete(f);
+			}
+		}
+	}
+
+	@Benchmark
+	public int insertDelete() throws IOException {
+		int k = 2 * (this.next++ % this.size) + 1;
+		this.tree.insert(k, "new");
+		return this.tree.delete(k);
+	}
+
+}
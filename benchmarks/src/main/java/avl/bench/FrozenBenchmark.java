@@ -0,0 +1,94 @@
+package avl.bench;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import avl.AVLTree;
+import avl.FrozenAVLTree;
+import avl.Item;
+
+/**
+ * ---FrozenBenchmark---
+ * search / rank / select on an AVLTree of `size` random keys vs its freeze() copy.
+ * (100M keys need a big heap: -p size=100000000 -jvmArgsAppend -Xmx16g)
+ */
+
+@State(Scope.Thread)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class FrozenBenchmark {
+
+	@Param({ "1000000", "10000000" })
+	public int size;
+
+	private AVLTree tree;
+	private FrozenAVLTree frozen;
+	private int[] keys, ranks;
+	private int cursor;
+
+	@Setup
+	public void setup() {
+		Random rnd = new Random(42);
+		int[] all = new int[this.size];
+		this.tree = new AVLTree();
+		for (int j = 0; j < this.size; j++) {
+			int k;
+			do {
+				k = rnd.nextInt();
+			} while (this.tree.insert(k, "info") == -1);
+			all[j] = k;
+		}
+		this.frozen = this.tree.freeze();
+		this.keys = new int[KeyStreams.LENGTH];
+		this.ranks = new int[KeyStreams.LENGTH];
+		for (int j = 0; j < KeyStreams.LENGTH; j++) {
+			this.keys[j] = all[rnd.nextInt(this.size)];
+			this.ranks[j] = 1 + rnd.nextInt(this.size);
+		}
+		this.cursor = 0;
+	}
+
+	@Benchmark
+	public String treeSearch() {
+		return this.tree.search(this.keys[this.cursor++ & KeyStreams.MASK]);
+	}
+
+	@Benchmark
+	public String frozenSearch() {
+		return this.frozen.search(this.keys[this.cursor++ & KeyStreams.MASK]);
+	}
+
+	@Benchmark
+	public int treeRank() {
+		int k = this.keys[this.cursor++ & KeyStreams.MASK];
+		return this.tree.countInRange(Integer.MIN_VALUE, k);
+	}
+
+	@Benchmark
+	public int frozenRank() {
+		return this.frozen.rank(this.keys[this.cursor++ & KeyStreams.MASK]);
+	}
+
+	@Benchmark
+	public Item treeSelect() {
+		return this.tree.selectItemByRank(this.ranks[this.cursor++ & KeyStreams.MASK]);
+	}
+
+	@Benchmark
+	public Item frozenSelect() {
+		return this.frozen.selectItemByRank(this.ranks[this.cursor++ & KeyStreams.MASK]);
+	}
+
+}
@@ -0,0 +1,106 @@
+package avl.bench;
+
+import java.util.Random;
+
+/**
+ * ---KeyStreams---
+ * Pre generated key / index sequences for the benchmarks,
+ * so that no random number is drawn inside a measured method.
+ */
+
+public final class KeyStreams {
+
+	/** length of every stream (a power of two, so a cursor can wrap with a mask) */
+	public static final int LENGTH = 1 << 16;
+	public static final int MASK = LENGTH - 1;
+
+	public enum Distribution {
+		RANDOM, SEQUENTIAL, ZIPF
+	}
+
+	private static final double ZIPF_EXPONENT = 1.1;
+
+	private KeyStreams() {
+	}
+
+	/**
+	 * --INDICES--
+	 * @return LENGTH indices in [0, n) drawn from the given distribution:
+	 *         RANDOM - uniform, SEQUENTIAL - 0, 1, 2, ... (wrapping), ZIPF - rank j with probability ~ 1/(j+1)^1.1
+	 *         (the hot ranks are scattered over [0, n), so the hot keys are not all in one subtree)
+	 */
+	public static int[] indices(Distribution dist, int n, long seed) {
+		Random rnd = new Random(seed);
+		int[] res = new int[LENGTH];
+		switch (dist) {
+		case RANDOM:
+			for (int j = 0; j < LENGTH; j++) {
+				res[j] = rnd.nextInt(n);
+			}
+			break;
+		case SEQUENTIAL:
+			for (int j = 0; j < LENGTH; j++) {
+				res[j] = j % n;
+			}
+			break;
+		case ZIPF:
+			double[] cdf = zipfCdf(n);
+			int[] scatter = shuffled(n, rnd);
+			for (int j = 0; j < LENGTH; j++) {
+				res[j] = scatter[sample(cdf, rnd.nextDouble())];
+			}
+			break;
+		default:
+			throw new IllegalArgumentException(String.valueOf(dist));
+		}
+		return res;
+	}
+
+	/**
+	 * --SHUFFLED--
+	 * @return a random permutation of 0 .. n-1
+	 */
+	public static int[] shuffled(int n, Random rnd) {
+		int[] res = new int[n];
+		for (int j = 0; j < n; j++) {
+			res[j] = j;
+		}
+		for (int j = n - 1; j > 0; j--) {
+			int r = rnd.nextInt(j + 1);
+			int tmp = res[j];
+			res[j] = res[r];
+			res[r] = tmp;
+		}
+		return res;
+	}
+
+	private static double[] zipfCdf(int n) {
+		double[] cdf = new double[n];
+		double sum = 0;
+		for (int j = 0; j < n; j++) {
+			sum += 1.0 / Math.pow(j + 1, ZIPF_EXPONENT);
+			cdf[j] = sum;
+		}
+		for (int j = 0; j < n; j++) {
+			cdf[j] /= sum;
+		}
+		return cdf;
+	}
+
+	/**
+	 * @return the first index j with u <= cdf[j] (binary search)
+	 */
+	private static int sample(double[] cdf, double u) {
+		int lo = 0, hi = cdf.length - 1;
+		while (lo < hi) {
+			int mid = (lo + hi) >>> 1;
+			if (cdf[mid] < u) {
+				lo = mid + 1;
+			} else {
+				hi = mid;
+			}
+		}
+		return lo;
+	}
+
+}
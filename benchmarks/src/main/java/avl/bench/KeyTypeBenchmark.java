@@ -0,0 +1,114 @@
+package avl.bench;
+
+import java.util.Comparator;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import avl.AVLTree;
+import avl.GenericAVLTree;
+import avl.LongAVLTree;
+
+/**
+ * ---KeyTypeBenchmark---
+ * search / insert + delete with the same keys (0, 2, 4, ...; inserted in random order, RANDOM key stream)
+ * on an AVLTree (int keys), a LongAVLTree (long keys) and a GenericAVLTree<Long, String>
+ * (boxed keys through a Comparator). the Long keys of the stream are boxed in the setup,
+ * so the generic scores are the tree's cost, not the boxing's.
+ * insertDelete - insert of a missing (odd) key, then its delete (the tree keeps its size)
+ */
+
+@State(Scope.Thread)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class KeyTypeBenchmark {
+
+	@Param({ "1000", "100000", "1000000" })
+	public int size;
+
+	@Param({ "int", "long", "generic" })
+	public String impl;
+
+	private AVLTree intTree;
+	private LongAVLTree longTree;
+	private GenericAVLTree<Long, String> genericTree;
+	private int[] indices;
+	private Long[] hits, misses; // 2 * index, 2 * index + 1 (boxed once, for the generic tree)
+	private int cursor;
+
+	@Setup
+	public void setup() {
+		this.intTree = null;
+		this.longTree = null;
+		this.genericTree = null;
+		if (this.impl.equals("int")) {
+			this.intTree = new AVLTree();
+		} else if (this.impl.equals("long")) {
+			this.longTree = new LongAVLTree();
+		} else {
+			this.genericTree = new GenericAVLTree<>(Comparator.naturalOrder());
+		}
+		for (int j : KeyStreams.shuffled(this.size, new Random(42))) {
+			this.insert(2 * j, (long) (2 * j), "info" + j);
+		}
+		this.indices = KeyStreams.indices(KeyStreams.Distribution.RANDOM, this.size, 7);
+		this.hits = new Long[KeyStreams.LENGTH];
+		this.misses = new Long[KeyStreams.LENGTH];
+		for (int j = 0; j < KeyStreams.LENGTH; j++) {
+			this.hits[j] = 2L * this.indices[j];
+			this.misses[j] = 2L * this.indices[j] + 1;
+		}
+		this.cursor = 0;
+	}
+
+	@Benchmark
+	public String search() {
+		int j = this.cursor++ & KeyStreams.MASK;
+		if (this.intTree != null) {
+			return this.intTree.search(2 * this.indices[j]);
+		}
+		if (this.longTree != null) {
+			return this.longTree.search(2L * this.indices[j]);
+		}
+		return this.genericTree.search(this.hits[j]);
+	}
+
+	@Benchmark
+	public int insertDelete() {
+		int j = this.cursor++ & KeyStreams.MASK;
+		int k = 2 * this.indices[j] + 1;
+		this.insert(k, this.misses[j], "new");
+		if (this.intTree != null) {
+			return this.intTree.delete(k);
+		}
+		if (this.longTree != null) {
+			return this.longTree.delete(k);
+		}
+		return this.genericTree.delete(this.misses[j]);
+	}
+
+	/**
+	 * inserts the same key into the benchmarked tree: k as an int, a long or the boxed boxed_k
+	 */
+	private int insert(int k, Long boxed_k, String i) {
+		if (this.intTree != null) {
+			return this.intTree.insert(k, i);
+		}
+		if (this.longTree != null) {
+			return this.longTree.insert(k, i);
+		}
+		return this.genericTree.insert(boxed_k, i);
+	}
+
+}
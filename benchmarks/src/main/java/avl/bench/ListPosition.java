@@ -0,0 +1,40 @@
+package avl.bench;
+
+/**
+ * ---ListPosition---
+ * where in a list a benchmark inserts / retrieves / deletes
+ */
+
+public enum ListPosition {
+	HEAD, MIDDLE, TAIL;
+
+	/**
+	 * @param len - current length of the list (> 0)
+	 * @return index of an existing item at this position
+	 */
+	public int existing(int len) {
+		switch (this) {
+		case HEAD:
+			return 0;
+		case MIDDLE:
+			return len / 2;
+		default:
+			return len - 1;
+		}
+	}
+
+	/**
+	 * @param len - current length of the list
+	 * @return index for a new item at this position (TAIL appends)
+	 */
+	public int insertion(int len) {
+		switch (this) {
+		case HEAD:
+			return 0;
+		case MIDDLE:
+			return len / 2;
+		default:
+			return len;
+		}
+	}
+}
@@ -0,0 +1,81 @@
+package avl.bench;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import avl.AVLSetOperations;
+import avl.AVLTree;
+
+/**
+ * ---SetOperationsBenchmark---
+ * union / intersection / difference of two AVLTrees of `size` keys each
+ * (a - 0, 2, 4, ...; b - 0, 3, 6, ...; a third of a's keys are in b),
+ * sequential (cutoff = Integer.MAX_VALUE) vs forked on the common ForkJoinPool (the default cutoff).
+ * the operations consume their operands, so both trees are rebuilt (AVLTree.fromSorted, not measured)
+ * before every invocation. one operation takes milliseconds, -bm ss gives single shot times.
+ */
+
+@State(Scope.Thread)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class SetOperationsBenchmark {
+
+	@Param({ "100000", "1000000", "10000000" })
+	public int size;
+
+	@Param({ "2147483647", "4096" }) // sequential, AVLSetOperations.DEFAULT_CUTOFF
+	public int cutoff;
+
+	private int[] keysA, keysB;
+	private String[] infos;
+	private AVLTree a, b;
+
+	@Setup
+	public void setup() {
+		this.keysA = new int[this.size];
+		this.keysB = new int[this.size];
+		for (int j = 0; j < this.size; j++) {
+			this.keysA[j] = 2 * j;
+			this.keysB[j] = 3 * j;
+		}
+		this.infos = new String[this.size];
+		Arrays.fill(this.infos, "info");
+	}
+
+	@Setup(Level.Invocation)
+	public void build() {
+		this.a = null; // the old trees can be collected while the new ones are built
+		this.b = null;
+		this.a = AVLTree.fromSorted(this.keysA, this.infos);
+		this.b = AVLTree.fromSorted(this.keysB, this.infos);
+	}
+
+	@Benchmark
+	public AVLTree union() {
+		return AVLSetOperations.union(this.a, this.b, this.cutoff);
+	}
+
+	@Benchmark
+	public AVLTree intersection() {
+		return AVLSetOperations.intersection(this.a, this.b, this.cutoff);
+	}
+
+	@Benchmark
+	public AVLTree difference() {
+		return AVLSetOperations.difference(this.a, this.b, this.cutoff);
+	}
+
+}
@@ -0,0 +1,97 @@
+package avl.bench;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import avl.ConcurrentAVLTree;
+import avl.ShardedAVLTree;
+
+/**
+ * ---ShardedBenchmark---
+ * insert + delete of random keys by 4 threads on one shared tree of `size` keys:
+ * a ConcurrentAVLTree (a lock per changed node) vs a ShardedAVLTree (a lock per key range).
+ * the score counts the pair as one operation.
+ */
+
+@State(Scope.Benchmark)
+@Fork(1)
+@Threads(4)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ShardedBenchmark {
+
+	@Param({ "100000", "1000000" })
+	public int size;
+
+	@Param({ "concurrent", "sharded" })
+	public String impl;
+
+	@Param({ "16384" })
+	public int maxShardSize;
+
+	private ConcurrentAVLTree concurrent;
+	private ShardedAVLTree sharded;
+	private final AtomicLong seeds = new AtomicLong();
+
+	@Setup
+	public void setup() {
+		this.concurrent = null;
+		this.sharded = null;
+		if (this.impl.equals("sharded")) {
+			this.sharded = new ShardedAVLTree(1, this.maxShardSize);
+		} else {
+			this.concurrent = new ConcurrentAVLTree();
+		}
+		for (int k : KeyStreams.shuffled(this.size, new Random(1))) {
+			this.insert(2 * k, "info" + k);
+		}
+	}
+
+	/**
+	 * the key stream of one thread (every thread has its own seed)
+	 */
+	@State(Scope.Thread)
+	public static class Cursor {
+		private int[] keys;
+		private int pos;
+
+		@Setup
+		public void setup(ShardedBenchmark bench) {
+			this.keys = KeyStreams.indices(KeyStreams.Distribution.RANDOM, bench.size, bench.seeds.incrementAndGet());
+			this.pos = 0;
+		}
+
+		private int next() {
+			return this.keys[this.pos++ & KeyStreams.MASK];
+		}
+	}
+
+	@Benchmark
+	public int insertDelete(Cursor cursor) {
+		int k = 2 * cursor.next() + 1; // odd keys are not in the tree
+		this.insert(k, "new");
+		return this.delete(k);
+	}
+
+	private int insert(int k, String i) {
+		return (this.sharded != null) ? this.sharded.insert(k, i) : this.concurrent.insert(k, i);
+	}
+
+	private int delete(int k) {
+		return (this.sharded != null) ? this.sharded.delete(k) : this.concurrent.delete(k);
+	}
+
+}
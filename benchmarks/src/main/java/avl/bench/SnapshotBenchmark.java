@@ -0,0 +1,110 @@
+package avl.bench;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import avl.AVLSnapshot;
+import avl.AVLTree;
+
+/**
+ * ---SnapshotBenchmark---
+ * save & load of an AVLTree of `size` keys: the binary AVLSnapshot file vs the text path
+ * (keysToArray / infoToArray written as "key TAB info" lines, loaded back with insert).
+ */
+
+@State(Scope.Thread)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class SnapshotBenchmark {
+
+	@Param({ "100000", "1000000" })
+	public int size;
+
+	private AVLTree tree;
+	private Path binary, text, out;
+
+	@Setup
+	public void setup() throws IOException {
+		Random rnd = new Random(42);
+		this.tree = new AVLTree();
+		while (this.tree.size() < this.size) {
+			int k = rnd.nextInt();
+			this.tree.insert(k, "info-" + k);
+		}
+		this.binary = Files.createTempFile("avl-bench", ".snapshot");
+		this.text = Files.createTempFile("avl-bench", ".txt");
+		this.out = Files.createTempFile("avl-bench", ".out");
+		AVLSnapshot.write(this.tree, this.binary);
+		saveText(this.tree, this.text);
+	}
+
+	@TearDown
+	public void tearDown() throws IOException {
+		Files.deleteIfExists(this.binary);
+		Files.deleteIfExists(this.text);
+		Files.deleteIfExists(this.out);
+	}
+
+	@Benchmark
+	public Path saveBinary() throws IOException {
+		AVLSnapshot.write(this.tree, this.out);
+		return this.out;
+	}
+
+	@Benchmark
+	public AVLTree loadBinary() throws IOException {
+		return AVLSnapshot.readTree(this.binary);
+	}
+
+	@Benchmark
+	public Path saveText() throws IOException {
+		saveText(this.tree, this.out);
+		return this.out;
+	}
+
+	@Benchmark
+	public AVLTree loadText() throws IOException {
+		AVLTree res = new AVLTree();
+		try (BufferedReader in = Files.newBufferedReader(this.text, StandardCharsets.UTF_8)) {
+			String line;
+			while ((line = in.readLine()) != null) {
+				int tab = line.indexOf('\t');
+				res.insert(Integer.parseInt(line, 0, tab, 10), line.substring(tab + 1));
+			}
+		}
+		return res;
+	}
+
+	private static void saveText(AVLTree tree, Path path) throws IOException {
+		int[] keys = tree.keysToArray();
+		String[] infos = tree.infoToArray();
+		try (BufferedWriter w = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+			for (int j = 0; j < keys.length; j++) {
+				w.write(Integer.toString(keys[j]));
+				w.write('\t');
+				w.write(infos[j]);
+				w.newLine();
+			}
+		}
+	}
+
+}
@@ -0,0 +1,64 @@
+package avl.bench;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import avl.AVLTree;
+import avl.Item;
+
+/**
+ * ---StreamBenchmark---
+ * a reduction over every entry of an AVLTree of `size` keys (built once by AVLTree.fromSorted),
+ * entries() vs entries().parallel() - the parallel stream splits the tree by its subtree sizes.
+ * sum - the keys summed as longs, count - the entries whose info is non-empty.
+ */
+
+@State(Scope.Benchmark)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class StreamBenchmark {
+
+	@Param({ "1000000", "10000000" })
+	public int size;
+
+	@Param({ "false", "true" })
+	public boolean parallel;
+
+	private AVLTree tree;
+
+	@Setup
+	public void setup() {
+		int[] keys = new int[this.size];
+		for (int j = 0; j < this.size; j++) {
+			keys[j] = 2 * j;
+		}
+		String[] infos = new String[this.size];
+		Arrays.fill(infos, "info");
+		this.tree = AVLTree.fromSorted(keys, infos);
+	}
+
+	@Benchmark
+	public long sum() {
+		return (this.parallel ? this.tree.entries().parallel() : this.tree.entries())
+				.mapToLong(Item::getKey).sum();
+	}
+
+	@Benchmark
+	public long count() {
+		return (this.parallel ? this.tree.entries().parallel() : this.tree.entries())
+				.filter(item -> !item.getInfo().isEmpty()).count();
+	}
+
+}
@@ -0,0 +1,67 @@
+package avl.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import avl.Item;
+import avl.TreeList;
+
+/**
+ * ---TreeListBenchmark---
+ * TreeList retrieve / insert / delete at the head, middle or tail of a list of `size` items.
+ * insert and delete are measured in pairs, so the list keeps its length between invocations.
+ */
+
+@State(Scope.Thread)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class TreeListBenchmark {
+
+	@Param({ "1000", "100000" })
+	public int size;
+
+	@Param({ "HEAD", "MIDDLE", "TAIL" })
+	public ListPosition position;
+
+	private TreeList list;
+
+	@Setup
+	public void setup() {
+		this.list = new TreeList();
+		for (int j = 0; j < this.size; j++) {
+			this.list.insert(j, j, "info" + j);
+		}
+	}
+
+	@Benchmark
+	public Item retrieve() {
+		return this.list.retrieve(this.position.existing(this.list.length()));
+	}
+
+	@Benchmark
+	public int insertDelete() {
+		int i = this.position.insertion(this.list.length());
+		this.list.insert(i, -1, "new");
+		return this.list.delete(i);
+	}
+
+	@Benchmark
+	public int deleteInsert() {
+		int i = this.position.existing(this.list.length());
+		Item item = this.list.retrieve(i);
+		this.list.delete(i);
+		return this.list.insert(i, item.getKey(), item.getInfo());
+	}
+
+}
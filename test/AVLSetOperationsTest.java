@@ -0,0 +1,158 @@
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * ---AVLSetOperationsTest---
+ * union / intersection / difference, checked against a TreeSet (a TreeMap of counts for
+ * multisets), with & without forking.
+ */
+public class AVLSetOperationsTest {
+
+	private static final AVLTree.Augmentation SUM = AVLTree.Augmentation.sum((k, info) -> k);
+
+	@Test
+	public void resultKeepsTheAugmentation() {
+		for (int cutoff : new int[] { 1, Integer.MAX_VALUE }) { // forked & sequential
+			for (int op = 0; op < 3; op++) {
+				Random rnd = new Random(22 + op);
+				TreeSet<Integer> ka = randomKeys(rnd, 3000), kb = randomKeys(rnd, 1000);
+				AVLTree a = treeOf(ka), b = treeOf(kb);
+				a.setAugmentation(SUM);
+				b.setAugmentation(SUM);
+
+				TreeSet<Integer> expected = new TreeSet<>(ka);
+				AVLTree res;
+				if (op == 0) {
+					expected.addAll(kb);
+					res = AVLSetOperations.union(a, b, cutoff);
+				} else if (op == 1) {
+					expected.retainAll(kb);
+					res = AVLSetOperations.intersection(a, b, cutoff);
+				} else {
+					expected.removeAll(kb);
+					res = AVLSetOperations.difference(a, b, cutoff);
+				}
+
+				assertSame(SUM, res.getAugmentation());
+				assertArrayEquals(expected.stream().mapToInt(Integer::intValue).toArray(), res.keysToArray());
+				assertEquals(sum(expected), res.aggregate());
+				for (int lo = 0; lo < 10000; lo += 997) { // ranges read the aggregates of inner nodes
+					assertEquals(sum(expected.subSet(lo, true, lo + 2500, true)), res.aggregate(lo, lo + 2500));
+				}
+			}
+		}
+	}
+
+	@Test
+	public void differentAugmentationsAreRejected() {
+		AVLTree a = treeOf(randomKeys(new Random(1), 10)), b = treeOf(randomKeys(new Random(2), 10));
+		a.setAugmentation(SUM);
+		assertThrows(IllegalArgumentException.class, () -> AVLSetOperations.union(a, b));
+		b.setAugmentation(AVLTree.Augmentation.sum((k, info) -> k));
+		assertThrows(IllegalArgumentException.class, () -> AVLSetOperations.intersection(a, b));
+		assertEquals(10, a.size()); // nothing was consumed
+		assertEquals(10, b.size());
+	}
+
+	@Test
+	public void multisetCountsAreCombined() {
+		for (int cutoff : new int[] { 1, Integer.MAX_VALUE }) {
+			for (int op = 0; op < 3; op++) {
+				Random rnd = new Random(24 + op);
+				TreeMap<Integer, Integer> ca = randomCounts(rnd, 2000), cb = randomCounts(rnd, 2000);
+				AVLTree a = bagOf(ca, "a"), b = bagOf(cb, "b");
+
+				TreeMap<Integer, Integer> expected = new TreeMap<>(ca);
+				AVLTree res;
+				if (op == 0) { // sum
+					cb.forEach((k, c) -> expected.merge(k, c, Integer::sum));
+					res = AVLSetOperations.union(a, b, cutoff);
+				} else if (op == 1) { // min
+					expected.keySet().retainAll(cb.keySet());
+					expected.replaceAll((k, c) -> Math.min(c, cb.get(k)));
+					res = AVLSetOperations.intersection(a, b, cutoff);
+				} else { // subtract, drop if <= 0
+					cb.forEach((k, c) -> expected.computeIfPresent(k, (key, old) -> (old - c > 0) ? old - c : null));
+					res = AVLSetOperations.difference(a, b, cutoff);
+				}
+
+				assertTrue(res.isMultiset());
+				int size = 0;
+				for (Map.Entry<Integer, Integer> e : expected.entrySet()) {
+					size += e.getValue();
+					assertEquals(e.getValue().intValue(), res.count(e.getKey()), "count of " + e.getKey());
+					assertEquals(size, res.rank(e.getKey()));
+					assertEquals((ca.containsKey(e.getKey()) ? "a" : "b") + e.getKey(), res.search(e.getKey()));
+				}
+				assertEquals(size, res.size());
+				assertEquals(size, res.keysToArray().length);
+			}
+		}
+	}
+
+	@Test
+	public void multisetWithASet() {
+		AVLTree a = new AVLTree(true), b = new AVLTree();
+		a.insert(1, "a");
+		a.insert(1, "a");
+		a.insert(2, "a");
+		b.insert(1, "b");
+		b.insert(3, "b");
+		AVLTree res = AVLSetOperations.union(a, b);
+		assertTrue(res.isMultiset());
+		assertArrayEquals(new int[] { 1, 1, 1, 2, 3 }, res.keysToArray());
+	}
+
+	private static TreeMap<Integer, Integer> randomCounts(Random rnd, int n) {
+		TreeMap<Integer, Integer> counts = new TreeMap<>();
+		for (int j = 0; j < n; j++) {
+			counts.merge(rnd.nextInt(1500), 1, Integer::sum);
+		}
+		return counts;
+	}
+
+	private static AVLTree bagOf(Map<Integer, Integer> counts, String prefix) {
+		AVLTree tree = new AVLTree(true);
+		counts.forEach((k, c) -> {
+			for (int j = 0; j < c; j++) {
+				tree.insert(k, prefix + k);
+			}
+		});
+		return tree;
+	}
+
+	private static TreeSet<Integer> randomKeys(Random rnd, int n) {
+		TreeSet<Integer> keys = new TreeSet<>();
+		while (keys.size() < n) {
+			keys.add(rnd.nextInt(10000));
+		}
+		return keys;
+	}
+
+	private static AVLTree treeOf(Iterable<Integer> keys) {
+		AVLTree tree = new AVLTree();
+		for (int k : keys) {
+			tree.insert(k, "v" + k);
+		}
+		return tree;
+	}
+
+	private static long sum(Iterable<Integer> keys) {
+		long res = 0;
+		for (int k : keys) {
+			res += k;
+		}
+		return res;
+	}
+
+}
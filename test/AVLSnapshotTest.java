@@ -0,0 +1,106 @@
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * ---AVLSnapshotTest---
+ * a tree or a list read back from a snapshot equals the one that was written (including null and
+ * non-ASCII infos), and damaged files, truncated files and files of the other kind are refused.
+ */
+public class AVLSnapshotTest {
+
+	@TempDir
+	Path dir;
+
+	private static AVLTree randomTree(int n, long seed) {
+		Random rnd = new Random(seed);
+		AVLTree tree = new AVLTree();
+		while (tree.size() < n) {
+			int k = rnd.nextInt();
+			tree.insert(k, (k % 5 == 0) ? null : "ב" + k); // null & multi-byte infos
+		}
+		return tree;
+	}
+
+	@Test
+	public void treeRoundTrip() throws IOException {
+		for (int n : new int[] {0, 1, 7, 1000}) {
+			AVLTree tree = randomTree(n, n);
+			Path path = dir.resolve("tree" + n + ".avls");
+			AVLSnapshot.write(tree, path);
+			AVLTree read = AVLSnapshot.readTree(path);
+			assertArrayEquals(tree.keysToArray(), read.keysToArray());
+			assertArrayEquals(tree.infoToArray(), read.infoToArray());
+			AVLTreeChecks.checkStructure(read);
+		}
+	}
+
+	@Test
+	public void writeReplacesAnOldSnapshot() throws IOException {
+		Path path = dir.resolve("tree.avls");
+		AVLSnapshot.write(randomTree(500, 1), path);
+		AVLTree tree = randomTree(20, 2);
+		AVLSnapshot.write(tree, path);
+		assertArrayEquals(tree.keysToArray(), AVLSnapshot.readTree(path).keysToArray());
+		try (var files = Files.list(dir)) {
+			assertEquals(1, files.count()); // no temporary file is left behind
+		}
+	}
+
+	@Test
+	public void listRoundTrip() throws IOException {
+		TreeList list = new TreeList();
+		for (int i = 0; i < 300; i++) {
+			list.insert(i / 2, 300 - i, (i % 7 == 0) ? null : "s" + i); // not sorted by key
+		}
+		Path path = dir.resolve("list.avls");
+		AVLSnapshot.write(list, path);
+		TreeList read = AVLSnapshot.readList(path);
+		assertEquals(list.length(), read.length());
+		for (int i = 0; i < list.length(); i++) {
+			assertEquals(list.retrieve(i).getKey(), read.retrieve(i).getKey());
+			assertEquals(list.retrieve(i).getInfo(), read.retrieve(i).getInfo());
+		}
+	}
+
+	@Test
+	public void damagedFilesAreRefused() throws IOException {
+		Path path = dir.resolve("tree.avls");
+		AVLSnapshot.write(randomTree(100, 3), path);
+		byte[] good = Files.readAllBytes(path);
+
+		byte[] flipped = good.clone();
+		flipped[AVLSnapshot.HEADER_BYTES + 13] ^= 1; // a bit in the body
+		Files.write(path, flipped);
+		IOException e = assertThrows(IOException.class, () -> AVLSnapshot.readTree(path));
+		assertTrue(e.getMessage().contains("checksum"));
+
+		Files.write(path, Arrays.copyOf(good, good.length - 1));
+		assertThrows(IOException.class, () -> AVLSnapshot.readTree(path));
+		Files.write(path, Arrays.copyOf(good, 10));
+		assertThrows(IOException.class, () -> AVLSnapshot.readTree(path));
+
+		byte[] magic = good.clone();
+		magic[0] = 'X';
+		Files.write(path, magic);
+		assertThrows(IOException.class, () -> AVLSnapshot.readTree(path));
+	}
+
+	@Test
+	public void kindIsChecked() throws IOException {
+		Path path = dir.resolve("tree.avls");
+		AVLSnapshot.write(randomTree(10, 4), path);
+		assertThrows(IOException.class, () -> AVLSnapshot.readList(path));
+		assertThrows(IllegalArgumentException.class, () -> AVLSnapshot.write(new AVLTree(true), path));
+	}
+}
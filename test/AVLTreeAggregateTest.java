@@ -0,0 +1,113 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.Random;
+import java.util.TreeMap;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * ---AVLTreeAggregateTest---
+ * aggregate() and aggregate(lo, hi) agree with a brute force fold over a TreeMap, for a
+ * commutative (sum, max) and a non commutative ("first") augmentation, after insert, delete,
+ * split and join.
+ */
+public class AVLTreeAggregateTest {
+
+	private static final AVLTree.Augmentation SUM = AVLTree.Augmentation.sum((k, info) -> info.length() + 1000L * k);
+	private static final AVLTree.Augmentation MAX = AVLTree.Augmentation.max((k, info) -> info.length());
+	// the key of the first item: associative, but not commutative (checks the key order)
+	private static final AVLTree.Augmentation FIRST = AVLTree.Augmentation.of(Long.MIN_VALUE,
+			(a, b) -> (a == Long.MIN_VALUE) ? b : a, (k, info) -> k);
+
+	private static long fold(AVLTree.Augmentation aug, TreeMap<Integer, String> map, int lo, int hi) {
+		long res = aug.identity();
+		if (lo <= hi) {
+			for (var e : map.subMap(lo, true, hi, true).entrySet()) {
+				res = aug.combine(res, aug.value(e.getKey(), e.getValue()));
+			}
+		}
+		return res;
+	}
+
+	private static void check(AVLTree tree, TreeMap<Integer, String> map, Random rnd) {
+		AVLTree.Augmentation aug = tree.getAugmentation();
+		assertEquals(fold(aug, map, Integer.MIN_VALUE, Integer.MAX_VALUE), tree.aggregate());
+		for (int j = 0; j < 30; j++) {
+			int lo = rnd.nextInt(2200) - 100, hi = lo + rnd.nextInt(600) - 50; // some empty ranges too
+			assertEquals(fold(aug, map, lo, hi), tree.aggregate(lo, hi));
+		}
+		assertEquals(fold(aug, map, Integer.MIN_VALUE, Integer.MAX_VALUE), tree.aggregate(Integer.MIN_VALUE, Integer.MAX_VALUE));
+	}
+
+	@Test
+	public void insertAndDeleteKeepTheAggregate() {
+		for (AVLTree.Augmentation aug : new AVLTree.Augmentation[] {SUM, MAX, FIRST}) {
+			Random rnd = new Random(22);
+			AVLTree tree = new AVLTree();
+			TreeMap<Integer, String> map = new TreeMap<>();
+			for (int k = 0; k < 100; k++) { // set on a tree that already has items
+				tree.insert(2 * k, "x".repeat(k % 13));
+				map.put(2 * k, "x".repeat(k % 13));
+			}
+			tree.setAugmentation(aug);
+			check(tree, map, rnd);
+			for (int j = 0; j < 3000; j++) {
+				int k = rnd.nextInt(2000);
+				if (rnd.nextBoolean()) {
+					String info = "x".repeat(rnd.nextInt(20));
+					if (tree.insert(k, info) != -1) {
+						map.put(k, info);
+					}
+				} else {
+					tree.delete(k);
+					map.remove(k);
+				}
+				if (j % 100 == 0) {
+					check(tree, map, rnd);
+				}
+			}
+			check(tree, map, rnd);
+			AVLTreeChecks.checkStructure(tree);
+		}
+	}
+
+	@Test
+	public void splitAndJoinKeepTheAggregate() {
+		Random rnd = new Random(23);
+		for (int round = 0; round < 50; round++) {
+			AVLTree tree = new AVLTree();
+			tree.setAugmentation(FIRST);
+			TreeMap<Integer, String> map = new TreeMap<>();
+			int n = rnd.nextInt(300);
+			for (int j = 0; j < n; j++) {
+				int k = rnd.nextInt(2000);
+				if (tree.insert(k, "i" + k) != -1) {
+					map.put(k, "i" + k);
+				}
+			}
+			int at = rnd.nextInt(2000);
+			map.remove(at);
+			AVLTree[] parts = tree.split(at);
+			check(parts[0], new TreeMap<>(map.headMap(at)), rnd);
+			check(parts[1], new TreeMap<>(map.tailMap(at)), rnd);
+
+			AVLTree joined = AVLTree.join(parts[0], at, "i" + at, parts[1]);
+			map.put(at, "i" + at);
+			check(joined, map, rnd);
+			AVLTreeChecks.checkStructure(joined);
+		}
+	}
+
+	@Test
+	public void noAugmentationIsAnError() {
+		AVLTree tree = new AVLTree();
+		tree.insert(1, "a");
+		assertThrows(IllegalStateException.class, () -> tree.aggregate());
+		assertThrows(IllegalStateException.class, () -> tree.aggregate(0, 5));
+		tree.setAugmentation(SUM);
+		assertEquals(1001, tree.aggregate());
+		tree.setAugmentation(null);
+		assertThrows(IllegalStateException.class, () -> tree.aggregate());
+	}
+}
@@ -0,0 +1,95 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Random;
+import java.util.TreeMap;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * ---AVLTreeCacheTest---
+ * a tree with the search cache gives the same answers as a TreeMap under hot-key workloads,
+ * deleted (or swapped) nodes are never returned from the cache, and the counters add up.
+ */
+public class AVLTreeCacheTest {
+
+	@Test
+	public void hotKeysAgreeWithATreeMap() {
+		Random rnd = new Random(18);
+		AVLTree tree = new AVLTree();
+		tree.enableSearchCache(16); // small, so slots collide
+		TreeMap<Integer, String> expected = new TreeMap<>();
+		for (int j = 0; j < 50000; j++) {
+			int k = (rnd.nextInt(4) == 0) ? rnd.nextInt(2000) : rnd.nextInt(32); // mostly hot keys
+			switch (rnd.nextInt(3)) {
+			case 0:
+				assertEquals(expected.containsKey(k) ? -1 : 0, Math.min(0, tree.insert(k, "v" + j)));
+				expected.putIfAbsent(k, "v" + j);
+				break;
+			case 1:
+				assertEquals(expected.containsKey(k), tree.delete(k) != -1);
+				expected.remove(k);
+				break;
+			default:
+				assertEquals(expected.get(k), tree.search(k));
+			}
+		}
+		AVLTreeChecks.checkStructure(tree);
+		assertTrue(tree.getCacheHits() > 0);
+		assertTrue(tree.getCacheMisses() > 0);
+	}
+
+	@Test
+	public void countersAndHitRate() {
+		AVLTree tree = new AVLTree();
+		for (int k = 0; k < 100; k++) {
+			tree.insert(k, "v" + k);
+		}
+		assertThrows(IllegalArgumentException.class, () -> tree.enableSearchCache(0));
+		tree.enableSearchCache(256);
+		assertEquals(0, tree.getCacheHitRate());
+		assertEquals("v7", tree.search(7)); // miss, then cached
+		assertEquals("v7", tree.search(7));
+		assertEquals("v7", tree.search(7));
+		assertNull(tree.search(1000)); // absent keys are never cached
+		assertNull(tree.search(1000));
+		assertEquals(2, tree.getCacheHits());
+		assertEquals(3, tree.getCacheMisses());
+		assertEquals(0.4, tree.getCacheHitRate(), 1e-9);
+
+		tree.disableSearchCache();
+		assertEquals("v7", tree.search(7));
+		assertEquals(2, tree.getCacheHits()); // counters stay as they were
+		tree.enableSearchCache(256);
+		assertEquals(0, tree.getCacheHits());
+		assertEquals(0, tree.getCacheMisses());
+	}
+
+	@Test
+	public void deletedAndSwappedNodesLeaveTheCache() {
+		AVLTree tree = new AVLTree();
+		for (int k = 0; k < 64; k++) {
+			tree.insert(k, "v" + k);
+		}
+		tree.enableSearchCache(1024);
+		for (int k = 0; k < 64; k++) {
+			tree.search(k); // every node is cached
+		}
+		int root = tree.getRoot().getKey(); // two children, so delete swaps in its successor
+		assertEquals("v" + (root + 1), tree.search(root + 1));
+		tree.delete(root);
+		assertNull(tree.search(root));
+		assertEquals("v" + (root + 1), tree.search(root + 1));
+		for (int k = 0; k < 64; k += 2) {
+			tree.delete(k);
+		}
+		for (int k = 0; k < 64; k++) {
+			assertEquals((k % 2 == 1 && k != root) ? "v" + k : null, tree.search(k));
+		}
+		AVLTree[] parts = tree.split(31); // the tree gives its nodes away
+		assertNull(tree.search(33));
+		assertEquals("v33", parts[1].search(33));
+	}
+}
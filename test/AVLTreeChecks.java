@@ -0,0 +1,56 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * ---AVLTreeChecks---
+ * structure checks of an AVLTree for the tests: key order, parent links, heights, sizes and balance.
+ */
+final class AVLTreeChecks {
+
+	private AVLTreeChecks() {
+	}
+
+	/**
+	 * checks the whole tree and that size() is the size of the root
+	 */
+	static void checkStructure(AVLTree tree) {
+		AVLTree.AVLNode root = (AVLTree.AVLNode) tree.getRoot();
+		if (root == null) {
+			assertEquals(0, tree.size());
+			return;
+		}
+		assertNull(root.getParent());
+		checkedHeight(root, Long.MIN_VALUE, Long.MAX_VALUE);
+		assertEquals(tree.size(), root.getSize());
+	}
+
+	/**
+	 * @return the height of node's subtree (-1 for an empty one), after checking it
+	 */
+	private static int checkedHeight(AVLTree.AVLNode node, long lo, long hi) {
+		if (node == null) {
+			return -1;
+		}
+		assertTrue(lo < node.getKey() && node.getKey() < hi, "key " + node.getKey() + " out of order");
+		AVLTree.AVLNode left = (AVLTree.AVLNode) node.getLeft();
+		AVLTree.AVLNode right = (AVLTree.AVLNode) node.getRight();
+		int size = node.getCount();
+		if (left != null) {
+			assertSame(node, left.getParent());
+			size += left.getSize();
+		}
+		if (right != null) {
+			assertSame(node, right.getParent());
+			size += right.getSize();
+		}
+		int hL = checkedHeight(left, lo, node.getKey());
+		int hR = checkedHeight(right, node.getKey(), hi);
+		assertTrue(Math.abs(hL - hR) <= 1, "node " + node.getKey() + " is out of balance");
+		assertEquals(1 + Math.max(hL, hR), node.getHeight(), "height of " + node.getKey());
+		assertEquals(size, node.getSize(), "size of " + node.getKey());
+		return node.getHeight();
+	}
+
+}
@@ -0,0 +1,98 @@
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Random;
+import java.util.TreeMap;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * ---AVLTreeFingerTest---
+ * lookups, inserts and deletes through a Finger agree with the tree (and a TreeMap), the finger
+ * moves as documented, and it becomes invalid when its node leaves the tree.
+ */
+public class AVLTreeFingerTest {
+
+	@Test
+	public void localOperationsAgreeWithATreeMap() {
+		Random rnd = new Random(17);
+		AVLTree tree = new AVLTree();
+		TreeMap<Integer, String> expected = new TreeMap<>();
+		AVLTree.Finger finger = tree.finger();
+		int k = 5000;
+		for (int j = 0; j < 40000; j++) {
+			k = Math.floorMod(k + rnd.nextInt(41) - 20, 10000); // a walk with locality
+			switch (rnd.nextInt(4)) {
+			case 0:
+				assertEquals(expected.containsKey(k), finger.insert(k, "v" + k) == -1);
+				expected.putIfAbsent(k, "v" + k);
+				assertEquals(k, finger.getKey());
+				break;
+			case 1:
+				assertEquals(!expected.containsKey(k), finger.delete(k) == -1);
+				if (expected.remove(k) != null && !expected.isEmpty()) { // on the successor, or the predecessor of the maximum
+					Integer to = expected.higherKey(k);
+					assertEquals((to != null) ? to : expected.lowerKey(k), Integer.valueOf(finger.getKey()));
+				}
+				break;
+			case 2:
+				assertEquals(expected.get(k), finger.search(k));
+				break;
+			default:
+				assertEquals(expected.get(k), tree.search(k)); // through the tree, the finger stays valid
+				if (rnd.nextBoolean()) {
+					tree.insert(k + 1, "w");
+					expected.putIfAbsent(k + 1, "w");
+				}
+			}
+		}
+		AVLTreeChecks.checkStructure(tree);
+		assertArrayEquals(expected.keySet().stream().mapToInt(Integer::intValue).toArray(), tree.keysToArray());
+	}
+
+	@Test
+	public void nextAndPrevScanInOrder() {
+		AVLTree tree = new AVLTree();
+		for (int k = 0; k < 500; k++) {
+			tree.insert(3 * k, "v" + k);
+		}
+		AVLTree.Finger finger = tree.finger();
+		int n = 1;
+		assertEquals(0, finger.getKey());
+		assertFalse(finger.prev());
+		while (finger.next()) {
+			assertEquals(3 * n, finger.getKey());
+			assertEquals("v" + n, finger.getValue());
+			n++;
+		}
+		assertEquals(500, n);
+		while (finger.prev()) {
+			n--;
+		}
+		assertEquals(1, n);
+	}
+
+	@Test
+	public void invalidWhenItsNodeLeavesTheTree() {
+		AVLTree tree = new AVLTree();
+		for (int k = 0; k < 100; k++) {
+			tree.insert(k, "v" + k);
+		}
+		AVLTree.Finger finger = tree.finger();
+		assertEquals("v50", finger.search(50));
+		tree.delete(49); // another key, the finger stays
+		assertTrue(finger.isValid());
+		tree.delete(50);
+		assertFalse(finger.isValid());
+		assertThrows(IllegalStateException.class, finger::getKey);
+		assertEquals("v70", finger.search(70)); // restarts from the root
+		assertTrue(finger.isValid());
+
+		tree.split(10);
+		assertFalse(finger.isValid());
+	}
+
+}
@@ -0,0 +1,72 @@
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * ---AVLTreeFromSortedTest---
+ * AVLTree.fromSorted builds a balanced tree of every size, that works like one built by inserts,
+ * and rejects keys that are not strictly increasing.
+ */
+public class AVLTreeFromSortedTest {
+
+	@Test
+	public void everySizeIsBalanced() {
+		for (int n = 0; n <= 300; n++) {
+			int[] keys = new int[n];
+			String[] infos = new String[n];
+			for (int j = 0; j < n; j++) {
+				keys[j] = 3 * j - 100;
+				infos[j] = "v" + j;
+			}
+			AVLTree tree = AVLTree.fromSorted(keys, infos);
+			AVLTreeChecks.checkStructure(tree);
+			assertEquals(n, tree.size());
+			assertArrayEquals(keys, tree.keysToArray());
+			assertArrayEquals(infos, tree.infoToArray());
+			if (n > 0) {
+				assertEquals("v0", tree.min());
+				assertEquals("v" + (n - 1), tree.max());
+				// the height of a perfectly balanced tree: floor(log2(n))
+				assertEquals(31 - Integer.numberOfLeadingZeros(n), tree.getRoot().getHeight());
+			} else {
+				assertTrue(tree.empty());
+				assertNull(tree.min());
+			}
+		}
+	}
+
+	@Test
+	public void worksLikeAnInsertedTree() {
+		int n = 1000;
+		int[] keys = new int[n];
+		String[] infos = new String[n];
+		for (int j = 0; j < n; j++) {
+			keys[j] = 2 * j;
+			infos[j] = "v" + j;
+		}
+		AVLTree tree = AVLTree.fromSorted(keys, infos);
+		for (int k = 1; k < 2 * n; k += 2) {
+			assertTrue(tree.insert(k, "odd") >= 0);
+		}
+		for (int k = 0; k < 2 * n; k += 4) {
+			assertTrue(tree.delete(k) >= 0);
+		}
+		AVLTreeChecks.checkStructure(tree);
+		assertEquals(n + n / 2, tree.size());
+		assertEquals("v1", tree.search(2));
+		assertNull(tree.search(4));
+		assertEquals(-1, tree.insert(6, "again"));
+	}
+
+	@Test
+	public void rejectsBadInput() {
+		assertThrows(IllegalArgumentException.class, () -> AVLTree.fromSorted(new int[] { 1, 3, 2 }, new String[3]));
+		assertThrows(IllegalArgumentException.class, () -> AVLTree.fromSorted(new int[] { 1, 1 }, new String[2]));
+		assertThrows(IllegalArgumentException.class, () -> AVLTree.fromSorted(new int[] { 1, 2 }, new String[1]));
+	}
+
+}
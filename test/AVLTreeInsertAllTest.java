@@ -0,0 +1,62 @@
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.TreeMap;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * ---AVLTreeInsertAllTest---
+ * insertAll of a sorted batch into a tree gives the same contents as inserting the batch one
+ * key at a time, keeps the tree balanced, and reports the keys that were already there.
+ */
+public class AVLTreeInsertAllTest {
+
+	@Test
+	public void sameAsOneByOne() {
+		Random rnd = new Random(13);
+		for (int round = 0; round < 100; round++) {
+			AVLTree tree = new AVLTree();
+			TreeMap<Integer, String> expected = new TreeMap<>();
+			int n = rnd.nextInt(3000);
+			for (int j = 0; j < n; j++) {
+				int k = rnd.nextInt(10000);
+				tree.insert(k, "old");
+				expected.putIfAbsent(k, "old");
+			}
+
+			int b = 1 + rnd.nextInt(round % 2 == 0 ? 50 : 5000); // small and big batches
+			int[] batch = new int[b];
+			for (int j = 0; j < b; j++) {
+				batch[j] = rnd.nextInt(10000);
+			}
+			Arrays.sort(batch);
+			String[] infos = new String[b];
+			for (int j = 0; j < b; j++) {
+				infos[j] = "new" + j;
+			}
+			int[] expectedCodes = new int[b];
+			for (int j = 0; j < b; j++) {
+				expectedCodes[j] = (expected.putIfAbsent(batch[j], infos[j]) == null) ? 0 : -1;
+			}
+
+			assertArrayEquals(expectedCodes, tree.insertAll(batch, infos));
+			AVLTreeChecks.checkStructure(tree);
+			assertArrayEquals(expected.keySet().stream().mapToInt(Integer::intValue).toArray(), tree.keysToArray());
+			assertArrayEquals(expected.values().toArray(new String[0]), tree.infoToArray());
+			assertEquals(expected.firstEntry().getValue(), tree.min());
+			assertEquals(expected.lastEntry().getValue(), tree.max());
+		}
+	}
+
+	@Test
+	public void rejectsBadInput() {
+		AVLTree tree = new AVLTree();
+		assertThrows(IllegalArgumentException.class, () -> tree.insertAll(new int[] { 2, 1 }, new String[2]));
+		assertThrows(IllegalArgumentException.class, () -> tree.insertAll(new int[] { 1, 2 }, new String[1]));
+	}
+
+}
@@ -0,0 +1,97 @@
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Random;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * ---AVLTreeJoinSplitTest---
+ * join and split of AVLTrees of very different heights keep the keys, the order and the balance,
+ * and empty the trees they take their nodes from.
+ */
+public class AVLTreeJoinSplitTest {
+
+	@Test
+	public void joinTreesOfDifferentHeights() {
+		int[] sizes = { 0, 1, 2, 7, 100, 5000 };
+		for (int nl : sizes) {
+			for (int nr : sizes) {
+				AVLTree left = range(0, nl);
+				AVLTree right = range(nl + 1, nr);
+				AVLTree joined = AVLTree.join(left, nl, "mid", right);
+				AVLTreeChecks.checkStructure(joined);
+				assertEquals(nl + nr + 1, joined.size());
+				assertEquals("mid", joined.search(nl));
+				int[] keys = joined.keysToArray();
+				for (int j = 0; j < keys.length; j++) {
+					assertEquals(j, keys[j]);
+				}
+				assertTrue(left.empty());
+				assertTrue(right.empty());
+			}
+		}
+	}
+
+	@Test
+	public void joinRejectsOverlappingKeys() {
+		assertThrows(IllegalArgumentException.class, () -> AVLTree.join(range(0, 10), 5, "x", range(20, 10)));
+		assertThrows(IllegalArgumentException.class, () -> AVLTree.join(range(0, 10), 15, "x", range(12, 10)));
+	}
+
+	@Test
+	public void splitAtEveryKind() {
+		Random rnd = new Random(5);
+		for (int round = 0; round < 200; round++) {
+			AVLTree tree = new AVLTree();
+			TreeMap<Integer, String> expected = new TreeMap<>();
+			int n = rnd.nextInt(2000);
+			for (int j = 0; j < n; j++) {
+				int k = rnd.nextInt(4000);
+				tree.insert(k, "v" + k);
+				expected.put(k, "v" + k);
+			}
+			int k = rnd.nextInt(4200) - 100; // sometimes out of the range of keys
+			AVLTree[] parts = tree.split(k);
+			assertTrue(tree.empty());
+			AVLTreeChecks.checkStructure(parts[0]);
+			AVLTreeChecks.checkStructure(parts[1]);
+			assertArrayEquals(keys(expected.headMap(k, false)), parts[0].keysToArray());
+			assertArrayEquals(keys(expected.tailMap(k, false)), parts[1].keysToArray());
+			assertEquals(expected.headMap(k, false).isEmpty() ? null : expected.lowerEntry(k).getValue(),
+					parts[0].max());
+			assertEquals(expected.tailMap(k, false).isEmpty() ? null : expected.higherEntry(k).getValue(),
+					parts[1].min());
+			assertNull(parts[0].search(k));
+			assertNull(parts[1].search(k));
+
+			// joined back (without k, if it was there) they make the whole tree again
+			if (!parts[0].empty()) {
+				int last = parts[0].keysToArray()[parts[0].size() - 1];
+				AVLTree[] lower = parts[0].split(last);
+				AVLTree back = AVLTree.join(lower[0], last, "v" + last, parts[1]);
+				AVLTreeChecks.checkStructure(back);
+				expected.remove(k);
+				assertArrayEquals(keys(expected), back.keysToArray());
+			}
+		}
+	}
+
+	private static AVLTree range(int from, int n) {
+		AVLTree tree = new AVLTree();
+		for (int k = from; k < from + n; k++) { // one by one, so the shape is not the perfect one of fromSorted
+			tree.insert(k, "v");
+		}
+		return tree;
+	}
+
+	private static int[] keys(SortedMap<Integer, String> map) {
+		return map.keySet().stream().mapToInt(Integer::intValue).toArray();
+	}
+
+}
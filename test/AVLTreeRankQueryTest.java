@@ -0,0 +1,89 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeMap;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * ---AVLTreeRankQueryTest---
+ * rank(key), quantile(q) and kthAfter(key, k) agree with a sorted copy of a TreeMap,
+ * for keys in and out of the tree, the edge quantiles and out of range k.
+ */
+public class AVLTreeRankQueryTest {
+
+	private static void assertItem(int key, String info, Item item) {
+		assertEquals(key, item.getKey());
+		assertEquals(info, item.getInfo());
+	}
+
+	private static void check(AVLTree tree, TreeMap<Integer, String> map, Random rnd) {
+		List<Integer> keys = new ArrayList<>(map.keySet());
+		int n = keys.size();
+		for (int j = 0; j < 50; j++) {
+			int key = rnd.nextInt(1200) - 100;
+			assertEquals(map.headMap(key, true).size(), tree.rank(key));
+
+			int k = rnd.nextInt(n + 3) - 1; // also k < 1 and past the end
+			int after = map.headMap(key, true).size() + k; // rank of the answer
+			if (k < 1 || after > n) {
+				assertNull(tree.kthAfter(key, k));
+			} else {
+				int expected = keys.get(after - 1);
+				assertItem(expected, map.get(expected), tree.kthAfter(key, k));
+			}
+
+			double q = rnd.nextDouble();
+			if (n == 0) {
+				assertNull(tree.quantile(q));
+			} else {
+				int expected = keys.get(Math.max((int) Math.ceil(q * n), 1) - 1);
+				assertItem(expected, map.get(expected), tree.quantile(q));
+			}
+		}
+		assertEquals(0, tree.rank(Integer.MIN_VALUE));
+		assertEquals(n, tree.rank(Integer.MAX_VALUE));
+		assertNull(tree.kthAfter(Integer.MAX_VALUE, 1));
+		if (n > 0) {
+			assertItem(keys.get(0), map.get(keys.get(0)), tree.quantile(0));
+			assertItem(keys.get(n - 1), map.get(keys.get(n - 1)), tree.quantile(1));
+			assertItem(keys.get(n / 2), map.get(keys.get(n / 2)), tree.kthAfter(Integer.MIN_VALUE, n / 2 + 1));
+		}
+	}
+
+	@Test
+	public void agreesWithATreeMap() {
+		Random rnd = new Random(23);
+		AVLTree tree = new AVLTree();
+		TreeMap<Integer, String> map = new TreeMap<>();
+		check(tree, map, rnd);
+		for (int j = 0; j < 4000; j++) {
+			int k = rnd.nextInt(1000);
+			if (rnd.nextInt(3) != 0) {
+				tree.insert(k, "v" + k);
+				map.putIfAbsent(k, "v" + k);
+			} else {
+				tree.delete(k);
+				map.remove(k);
+			}
+			if (j % 200 == 0) {
+				check(tree, map, rnd);
+			}
+		}
+		check(tree, map, rnd);
+	}
+
+	@Test
+	public void quantileOutOfRangeIsAnError() {
+		AVLTree tree = new AVLTree();
+		tree.insert(1, "a");
+		assertThrows(IllegalArgumentException.class, () -> tree.quantile(-0.1));
+		assertThrows(IllegalArgumentException.class, () -> tree.quantile(1.5));
+		assertThrows(IllegalArgumentException.class, () -> tree.quantile(Double.NaN));
+		assertThrows(IllegalArgumentException.class, () -> new AVLTree().quantile(2)); // checked also when empty
+	}
+}
@@ -0,0 +1,36 @@
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * ---AVLTreeStreamTest---
+ * entries() and entries().parallel() of an AVLTree give the items in key order, each once.
+ */
+public class AVLTreeStreamTest {
+
+	@Test
+	public void parallelStreamSeesEveryItem() {
+		AVLTree tree = new AVLTree();
+		Random rnd = new Random(9);
+		long sum = 0;
+		while (tree.size() < 100000) {
+			int k = rnd.nextInt(1 << 24);
+			if (tree.insert(k, Integer.toString(k)) != -1) {
+				sum += k;
+			}
+		}
+		assertEquals(sum, tree.entries().mapToLong(Item::getKey).sum());
+		assertEquals(sum, tree.entries().parallel().mapToLong(Item::getKey).sum());
+		assertEquals(tree.size(), tree.entries().parallel().count());
+		assertArrayEquals(tree.keysToArray(), tree.entries().parallel().mapToInt(Item::getKey).toArray());
+		assertEquals(0, tree.entries().parallel().filter(x -> !x.getInfo().equals(Integer.toString(x.getKey()))).count());
+	}
+
+	@Test
+	public void emptyTree() {
+		assertEquals(0, new AVLTree().entries().parallel().count());
+	}
+}
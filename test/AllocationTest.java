@@ -0,0 +1,117 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.management.ManagementFactory;
+
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+/**
+ * ---AllocationTest---
+ * the bytes this thread allocates around search / select / insert / delete loops of an AVLTree:
+ * the lookups allocate nothing, and an insert only its node (with the node's Item).
+ */
+public class AllocationTest {
+
+	private static final int N = 1 << 14;
+	private static final int ROUNDS = 20; // warm-up rounds, so the loops are measured after the JIT
+
+	// a node is about 60 bytes and its Item about 24, with headers and padding - this is a loose bound
+	private static final long NODE_BYTES_BOUND = 160;
+	private static final long SLACK = 16 * 1024; // the counter itself and the JIT may allocate a little
+
+	private static com.sun.management.ThreadMXBean bean;
+
+	@BeforeAll
+	public static void allocationCounter() {
+		java.lang.management.ThreadMXBean b = ManagementFactory.getThreadMXBean();
+		Assumptions.assumeTrue(b instanceof com.sun.management.ThreadMXBean);
+		bean = (com.sun.management.ThreadMXBean) b;
+		Assumptions.assumeTrue(bean.isThreadAllocatedMemorySupported());
+		bean.setThreadAllocatedMemoryEnabled(true);
+	}
+
+	private static long allocated() {
+		return bean.getThreadAllocatedBytes(Thread.currentThread().getId());
+	}
+
+	private static AVLTree filled() {
+		AVLTree tree = new AVLTree();
+		for (int i = 0; i < N; i++) {
+			tree.insert(i * 2, "v");
+		}
+		return tree;
+	}
+
+	private static int searches(AVLTree tree) {
+		int found = 0;
+		for (int i = 0; i < 2 * N; i++) {
+			if (tree.search(i) != null) {
+				found++;
+			}
+		}
+		return found;
+	}
+
+	private static int selects(AVLTree tree) {
+		int sum = 0;
+		for (int r = 1; r <= N; r++) {
+			sum += tree.selectItemByRank(r).getKey();
+		}
+		return sum;
+	}
+
+	@Test
+	public void searchAllocatesNothing() {
+		AVLTree tree = filled();
+		for (int i = 0; i < ROUNDS; i++) {
+			searches(tree);
+		}
+		long before = allocated();
+		int found = searches(tree);
+		long bytes = allocated() - before;
+		assertEquals(N, found);
+		assertTrue(bytes < SLACK, bytes + " bytes allocated by " + 2 * N + " searches");
+	}
+
+	@Test
+	public void selectAllocatesNothing() {
+		AVLTree tree = filled();
+		for (int i = 0; i < ROUNDS; i++) {
+			selects(tree);
+		}
+		long before = allocated();
+		selects(tree);
+		long bytes = allocated() - before;
+		assertTrue(bytes < SLACK, bytes + " bytes allocated by " + N + " selects");
+		assertSame(tree.selectItemByRank(1), tree.selectItemByRank(1)); // the node's own Item
+	}
+
+	@Test
+	public void insertAllocatesOnlyTheNodes() {
+		AVLTree tree = filled();
+		for (int i = 0; i < ROUNDS; i++) { // odd keys in and out again
+			for (int k = 1; k < 2 * N; k += 2) {
+				tree.insert(k, "w");
+			}
+			for (int k = 1; k < 2 * N; k += 2) {
+				tree.delete(k);
+			}
+		}
+		long before = allocated();
+		for (int k = 1; k < 2 * N; k += 2) {
+			tree.insert(k, "w");
+		}
+		long inserted = allocated() - before;
+		before = allocated();
+		for (int k = 1; k < 2 * N; k += 2) {
+			tree.delete(k);
+		}
+		long deleted = allocated() - before;
+		assertEquals(N, tree.size());
+		assertTrue(inserted < N * NODE_BYTES_BOUND + SLACK, inserted + " bytes allocated by " + N + " inserts");
+		assertTrue(deleted < SLACK, deleted + " bytes allocated by " + N + " deletes");
+	}
+}
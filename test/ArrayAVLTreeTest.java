@@ -0,0 +1,67 @@
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * ---ArrayAVLTreeTest---
+ * an ArrayAVLTree does the same rotations and gives the same answers as an AVLTree
+ * for the same operations, also after its deleted slots are reused.
+ */
+public class ArrayAVLTreeTest {
+
+	@Test
+	public void sameAsAVLTree() {
+		Random rnd = new Random(2);
+		AVLTree expected = new AVLTree();
+		ArrayAVLTree tree = new ArrayAVLTree(4); // small, so the arrays grow too
+		for (int j = 0; j < 40000; j++) {
+			int k = rnd.nextInt(5000);
+			if (rnd.nextInt(3) != 0) {
+				assertEquals(expected.insert(k, "v" + k), tree.insert(k, "v" + k));
+			} else {
+				assertEquals(expected.delete(k), tree.delete(k));
+			}
+			assertEquals(expected.search(k), tree.search(k));
+			if (j % 4000 == 0) {
+				check(expected, tree);
+			}
+		}
+		check(expected, tree);
+	}
+
+	@Test
+	public void deleteAllAndReuse() {
+		ArrayAVLTree tree = new ArrayAVLTree();
+		for (int round = 0; round < 3; round++) {
+			for (int k = 0; k < 1000; k++) {
+				assertTrue(tree.insert(k, "r" + round) >= 0);
+			}
+			assertEquals(1000, tree.size());
+			assertEquals("r" + round, tree.min());
+			for (int k = 999; k >= 0; k--) {
+				assertTrue(tree.delete(k) >= 0);
+			}
+			assertTrue(tree.empty());
+			assertNull(tree.min());
+			assertNull(tree.max());
+			assertEquals(-1, tree.delete(0));
+		}
+	}
+
+	private static void check(AVLTree expected, ArrayAVLTree tree) {
+		assertEquals(expected.size(), tree.size());
+		assertEquals(expected.min(), tree.min());
+		assertEquals(expected.max(), tree.max());
+		assertArrayEquals(expected.keysToArray(), tree.keysToArray());
+		assertArrayEquals(expected.infoToArray(), tree.infoToArray());
+		for (int r = 1; r <= expected.size(); r += 37) {
+			assertEquals(expected.selectItemByRank(r).getKey(), tree.selectItemByRank(r).getKey());
+		}
+	}
+
+}
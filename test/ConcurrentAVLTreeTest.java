@@ -0,0 +1,168 @@
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * ---ConcurrentAVLTreeTest---
+ * a ConcurrentAVLTree behaves like a TreeMap on one thread, and under writers on several threads
+ * the readers always find the keys nobody deletes, and the tree ends up holding exactly the keys
+ * of the writers and strictly AVL balanced (the relaxed balance is repaired).
+ */
+public class ConcurrentAVLTreeTest {
+
+	private static final int WRITERS = 4;
+	private static final int READERS = 2;
+	private static final int STRIDE = WRITERS + 1; // writer t owns the keys k with k % STRIDE == t, the rest stay
+
+	@Test
+	public void behavesLikeATreeMap() {
+		Random rnd = new Random(11);
+		ConcurrentAVLTree tree = new ConcurrentAVLTree();
+		TreeMap<Integer, String> expected = new TreeMap<>();
+		assertNull(tree.min());
+		assertEquals(0, tree.keysToArray().length);
+
+		for (int j = 0; j < 50000; j++) {
+			int k = rnd.nextInt(3000);
+			if (rnd.nextBoolean()) {
+				String info = (k % 7 == 0) ? null : "v" + k;
+				assertEquals(expected.containsKey(k), tree.insert(k, info) == -1);
+				if (!expected.containsKey(k)) {
+					expected.put(k, info);
+				}
+			} else {
+				assertEquals(!expected.containsKey(k), tree.delete(k) == -1);
+				expected.remove(k);
+			}
+			assertEquals(expected.get(k), tree.search(k));
+		}
+		assertTrue(tree.isBalanced());
+		check(tree, expected);
+
+		for (int k : expected.keySet().toArray(new Integer[0])) {
+			assertTrue(tree.delete(k) >= 0);
+			expected.remove(k);
+		}
+		assertTrue(tree.empty());
+		assertNull(tree.max());
+		assertTrue(tree.isBalanced());
+	}
+
+	@Test
+	public void sequentialInsertsRotate() {
+		ConcurrentAVLTree tree = new ConcurrentAVLTree();
+		int rotations = 0;
+		for (int k = 0; k < 1023; k++) {
+			rotations += tree.insert(k, "v");
+		}
+		assertTrue(rotations > 0);
+		assertTrue(tree.isBalanced());
+		assertEquals(1023, tree.size());
+	}
+
+	@Test
+	public void writersAndReadersOnManyThreads() throws InterruptedException {
+		final int range = 50000;
+		final int ops = 200000;
+		ConcurrentAVLTree tree = new ConcurrentAVLTree();
+		final int last = (range - 1) / STRIDE * STRIDE + WRITERS;
+		for (int k = WRITERS; k < range; k += STRIDE) {
+			tree.insert(k, "stay" + k);
+		}
+
+		AtomicReference<Throwable> failure = new AtomicReference<>();
+		AtomicBoolean done = new AtomicBoolean();
+		boolean[][] present = new boolean[WRITERS][range];
+		Thread[] writers = new Thread[WRITERS];
+		for (int t = 0; t < WRITERS; t++) {
+			final int owner = t;
+			writers[t] = new Thread(() -> {
+				Random rnd = new Random(owner);
+				boolean[] mine = present[owner];
+				for (int j = 0; j < ops && failure.get() == null; j++) {
+					int k = rnd.nextInt(range / STRIDE) * STRIDE + owner;
+					if (rnd.nextInt(3) != 0) {
+						check(failure, (tree.insert(k, "v" + k) == -1) == mine[k], "insert " + k);
+						mine[k] = true;
+					} else {
+						check(failure, (tree.delete(k) == -1) == !mine[k], "delete " + k);
+						mine[k] = false;
+					}
+				}
+			});
+		}
+		Thread[] readers = new Thread[READERS];
+		for (int t = 0; t < READERS; t++) {
+			final int seed = 100 + t;
+			readers[t] = new Thread(() -> {
+				Random rnd = new Random(seed);
+				while (!done.get() && failure.get() == null) {
+					int k = rnd.nextInt(range / STRIDE) * STRIDE + WRITERS;
+					check(failure, ("stay" + k).equals(tree.search(k)), "search " + k);
+					check(failure, ("stay" + last).equals(tree.max()), "max"); // the biggest key stays
+				}
+			});
+		}
+		for (Thread t : readers) {
+			t.start();
+		}
+		for (Thread t : writers) {
+			t.start();
+		}
+		for (Thread t : writers) {
+			t.join();
+		}
+		done.set(true);
+		for (Thread t : readers) {
+			t.join();
+		}
+		if (failure.get() != null) {
+			throw new AssertionError(failure.get());
+		}
+
+		TreeMap<Integer, String> expected = new TreeMap<>();
+		for (int k = 0; k < range; k++) {
+			if (k % STRIDE == WRITERS) {
+				expected.put(k, "stay" + k);
+			} else if (present[k % STRIDE][k]) {
+				expected.put(k, "v" + k);
+			}
+		}
+		assertTrue(tree.isBalanced());
+		check(tree, expected);
+	}
+
+	private static void check(AtomicReference<Throwable> failure, boolean ok, String what) {
+		if (!ok) {
+			failure.compareAndSet(null, new AssertionError(what));
+		}
+	}
+
+	/**
+	 * checks size, order, min / max and select
+	 */
+	private static void check(ConcurrentAVLTree tree, TreeMap<Integer, String> expected) {
+		assertEquals(expected.size(), tree.size());
+		assertArrayEquals(expected.keySet().stream().mapToInt(Integer::intValue).toArray(), tree.keysToArray());
+		assertArrayEquals(expected.values().toArray(new String[0]), tree.infoToArray());
+		assertEquals(expected.firstEntry().getValue(), tree.min());
+		assertEquals(expected.lastEntry().getValue(), tree.max());
+		int rank = 0;
+		for (int k : expected.keySet()) {
+			rank++;
+			if (rank % 97 == 1) {
+				assertEquals(k, tree.selectItemByRank(rank).getKey());
+			}
+		}
+		assertNull(tree.selectItemByRank(expected.size() + 1));
+	}
+
+}
@@ -0,0 +1,83 @@
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * ---FrozenAVLTreeTest---
+ * search, rank, select, min / max and the arrays of a FrozenAVLTree agree with the AVLTree it
+ * was frozen from, for every size up to a few full Eytzinger levels, and it does not see later changes.
+ */
+public class FrozenAVLTreeTest {
+
+	private static void checkSame(AVLTree tree, FrozenAVLTree frozen, Random rnd) {
+		int n = tree.size();
+		assertEquals(n, frozen.size());
+		assertEquals(tree.empty(), frozen.empty());
+		assertEquals(tree.min(), frozen.min());
+		assertEquals(tree.max(), frozen.max());
+		assertArrayEquals(tree.keysToArray(), frozen.keysToArray());
+		assertArrayEquals(tree.infoToArray(), frozen.infoToArray());
+		for (int r = 0; r <= n + 1; r++) {
+			Item expected = (r >= 1 && r <= n) ? tree.selectItemByRank(r) : null;
+			Item actual = frozen.selectItemByRank(r);
+			if (expected == null) {
+				assertNull(actual);
+			} else {
+				assertEquals(expected.getKey(), actual.getKey());
+				assertEquals(expected.getInfo(), actual.getInfo());
+			}
+		}
+		int[] probes = {Integer.MIN_VALUE, Integer.MAX_VALUE, -1, 0, 1};
+		for (int k : probes) {
+			assertEquals(tree.search(k), frozen.search(k));
+			assertEquals(tree.rank(k), frozen.rank(k));
+		}
+		for (int k : tree.keysToArray()) { // every key, and its neighbours
+			for (int d = -1; d <= 1; d++) {
+				assertEquals(tree.search(k + d), frozen.search(k + d));
+				assertEquals(tree.rank(k + d), frozen.rank(k + d));
+			}
+		}
+		for (int j = 0; j < 200; j++) {
+			int k = rnd.nextInt(4 * n + 10) - 2 * n;
+			assertEquals(tree.search(k), frozen.search(k));
+			assertEquals(tree.rank(k), frozen.rank(k));
+		}
+	}
+
+	@Test
+	public void agreesWithTheTreeForEverySize() {
+		Random rnd = new Random(21);
+		AVLTree tree = new AVLTree();
+		for (int n = 0; n <= 130; n++) { // crosses the 2^k - 1 full levels a few times
+			checkSame(tree, tree.freeze(), rnd);
+			int k;
+			do {
+				k = rnd.nextInt(6 * (n + 1)) - 3 * (n + 1);
+			} while (tree.search(k) != null);
+			tree.insert(k, "v" + k);
+		}
+	}
+
+	@Test
+	public void laterChangesAreNotSeen() {
+		Random rnd = new Random(22);
+		AVLTree tree = new AVLTree();
+		for (int k = 0; k < 1000; k += 3) {
+			tree.insert(k, "v" + k);
+		}
+		FrozenAVLTree frozen = tree.freeze();
+		int[] keys = tree.keysToArray();
+		tree.delete(0);
+		tree.insert(1, "new");
+		assertEquals("v0", frozen.search(0));
+		assertNull(frozen.search(1));
+		assertArrayEquals(keys, frozen.keysToArray());
+		assertEquals(1, frozen.rank(1));
+		checkSame(tree, tree.freeze(), rnd);
+	}
+}
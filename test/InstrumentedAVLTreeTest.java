@@ -0,0 +1,89 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * ---InstrumentedAVLTreeTest---
+ * the counters, search path lengths and percentiles of an InstrumentedAVLTree.
+ */
+public class InstrumentedAVLTreeTest {
+
+	@Test
+	public void countsOperationsAndRotations() {
+		InstrumentedAVLTree tree = new InstrumentedAVLTree();
+		int rotations = 0;
+		for (int k = 1; k <= 7; k++) {
+			rotations += tree.insert(k, "v" + k);
+		}
+		assertEquals(-1, tree.insert(4, "again"));
+		int deleted = tree.delete(7);
+		assertTrue(deleted >= 0);
+		rotations += deleted;
+		tree.selectItemByRank(2);
+
+		TreeStats stats = tree.getStats();
+		assertEquals(8, stats.getInsertCount());
+		assertEquals(1, stats.getDeleteCount());
+		assertEquals(1, stats.getSelectCount());
+		assertEquals(rotations, stats.getRotationCount());
+		assertEquals(6, stats.getSize());
+		assertEquals(tree.height(), stats.getHeight());
+		assertTrue(stats.latencyPercentile("insert", 0.5) > 0);
+	}
+
+	@Test
+	public void searchPathLengths() {
+		InstrumentedAVLTree tree = new InstrumentedAVLTree();
+		for (int k = 1; k <= 7; k++) { // ascending inserts of 1..7 end in the perfect tree rooted at 4
+			tree.insert(k, "v" + k);
+		}
+		assertEquals("v4", tree.search(4)); // the root: 1 node
+		assertEquals("v1", tree.search(1)); // a leaf: 3 nodes
+		assertEquals(null, tree.search(8)); // a miss below the leaf 7: 3 nodes
+
+		TreeStats stats = tree.getStats();
+		assertEquals(3, stats.getSearchCount());
+		assertEquals(7.0 / 3, stats.getAverageSearchPathLength(), 1e-9);
+		assertEquals(3, stats.getMaxSearchPathLength());
+	}
+
+	@Test
+	public void cacheHitReadsOneNode() {
+		AVLTree inner = new AVLTree();
+		inner.enableSearchCache(16);
+		InstrumentedAVLTree tree = new InstrumentedAVLTree(inner, true);
+		for (int k = 1; k <= 7; k++) {
+			tree.insert(k, "v" + k);
+		}
+		assertEquals("v1", tree.search(1)); // miss: 3 nodes, then cached
+		assertEquals("v1", tree.search(1)); // hit: 1 node
+		assertEquals(1, inner.getCacheHits());
+		assertEquals(2.0, tree.getStats().getAverageSearchPathLength(), 1e-9);
+	}
+
+	@Test
+	public void disabledStatsRecordNothing() {
+		InstrumentedAVLTree tree = new InstrumentedAVLTree(new AVLTree(), false);
+		tree.insert(1, "a");
+		tree.search(1);
+		tree.delete(1);
+		TreeStats stats = tree.getStats();
+		assertEquals(0, stats.getInsertCount() + stats.getSearchCount() + stats.getDeleteCount());
+		assertEquals(0, stats.latencyPercentile("search", 0.99));
+
+		stats.setEnabled(true);
+		tree.search(1);
+		assertEquals(1, stats.getSearchCount());
+	}
+
+	@Test
+	public void percentileRejectsIllegalQ() {
+		TreeStats stats = new InstrumentedAVLTree().getStats();
+		assertThrows(IllegalArgumentException.class, () -> stats.latencyPercentile("search", Double.NaN));
+		assertThrows(IllegalArgumentException.class, () -> stats.latencyPercentile("search", 1.5));
+		assertThrows(IllegalArgumentException.class, () -> stats.latencyPercentile("search", -0.1));
+	}
+
+}
@@ -0,0 +1,87 @@
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * ---KeyTypeTreesTest---
+ * LongAVLTree (keys beyond the int range) and GenericAVLTree (keys in a Comparator's order)
+ * do the same rotations as an AVLTree and answer like a TreeMap.
+ */
+public class KeyTypeTreesTest {
+
+	private static final long SHIFT = 1L << 40; // every long key is out of the int range
+
+	@Test
+	public void longTreeMatchesAVLTree() {
+		Random rnd = new Random(10);
+		AVLTree ints = new AVLTree();
+		LongAVLTree longs = new LongAVLTree();
+		TreeMap<Long, String> expected = new TreeMap<>();
+		for (int j = 0; j < 30000; j++) {
+			int k = rnd.nextInt(4000) - 2000;
+			long lk = k * SHIFT;
+			if (rnd.nextInt(3) != 0) {
+				assertEquals(ints.insert(k, "v" + k), longs.insert(lk, "v" + k));
+				expected.putIfAbsent(lk, "v" + k);
+			} else {
+				assertEquals(ints.delete(k), longs.delete(lk));
+				expected.remove(lk);
+			}
+			assertEquals(expected.get(lk), longs.search(lk));
+		}
+
+		assertEquals(expected.size(), longs.size());
+		assertArrayEquals(expected.keySet().stream().mapToLong(Long::longValue).toArray(), longs.keysToArray());
+		assertArrayEquals(expected.values().toArray(new String[0]), longs.infoToArray());
+		assertEquals(expected.firstEntry().getValue(), longs.min());
+		assertEquals(expected.lastEntry().getValue(), longs.max());
+		int rank = 0;
+		for (long k : expected.keySet()) {
+			rank++;
+			assertEquals(k, longs.selectNodeByRank(rank).getKey());
+			assertEquals(rank, longs.rank(k));
+			assertEquals(rank - 1, longs.rank(k - 1));
+		}
+		assertNull(longs.selectNodeByRank(rank + 1));
+	}
+
+	@Test
+	public void genericTreeUsesTheComparator() {
+		Random rnd = new Random(11);
+		Comparator<String> byLength = Comparator.comparingInt(String::length).thenComparing(Comparator.reverseOrder());
+		GenericAVLTree<String, Integer> tree = new GenericAVLTree<>(byLength);
+		TreeMap<String, Integer> expected = new TreeMap<>(byLength);
+		for (int j = 0; j < 20000; j++) {
+			String k = Integer.toString(rnd.nextInt(3000), 7);
+			if (rnd.nextInt(3) != 0) {
+				assertEquals(expected.containsKey(k), tree.insert(k, j) == -1);
+				expected.putIfAbsent(k, j);
+			} else {
+				assertEquals(!expected.containsKey(k), tree.delete(k) == -1);
+				expected.remove(k);
+			}
+			assertEquals(expected.get(k), tree.search(k));
+		}
+
+		assertEquals(expected.size(), tree.size());
+		assertEquals(new ArrayList<>(expected.keySet()), tree.keysToList());
+		assertEquals(new ArrayList<>(expected.values()), tree.valuesToList());
+		assertEquals(expected.firstEntry().getValue(), tree.min());
+		assertEquals(expected.lastEntry().getValue(), tree.max());
+		int rank = 0;
+		for (Map.Entry<String, Integer> e : expected.entrySet()) {
+			rank++;
+			assertEquals(e.getKey(), tree.selectNodeByRank(rank).getKey());
+			assertEquals(rank, tree.rank(e.getKey()));
+		}
+	}
+
+}
@@ -0,0 +1,88 @@
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * ---MultisetTest---
+ * insert / delete / count / rank of an AVLTree in multiset mode, checked against a TreeMap of counts.
+ */
+public class MultisetTest {
+
+	@Test
+	public void copiesAreCounted() {
+		AVLTree tree = new AVLTree(true);
+		assertTrue(tree.isMultiset());
+		tree.insert(5, "a");
+		assertEquals(0, tree.insert(5, "b")); // a copy, no rotations
+		tree.insert(3, "c");
+		tree.insert(5, "d");
+
+		assertEquals(3, tree.count(5));
+		assertEquals(1, tree.count(3));
+		assertEquals(0, tree.count(4));
+		assertEquals(4, tree.size());
+		assertArrayEquals(new int[] { 3, 5, 5, 5 }, tree.keysToArray());
+		assertEquals("a", tree.search(5)); // the copies share the info of the first one
+
+		assertEquals(1, tree.rank(3));
+		assertEquals(1, tree.rank(4));
+		assertEquals(4, tree.rank(5));
+		for (int r = 2; r <= 4; r++) {
+			assertEquals(5, tree.selectItemByRank(r).getKey());
+		}
+
+		tree.delete(5); // one copy goes
+		assertEquals(2, tree.count(5));
+		assertEquals(3, tree.size());
+		tree.delete(5);
+		tree.delete(5);
+		assertEquals(0, tree.count(5));
+		assertEquals(-1, tree.delete(5));
+		assertArrayEquals(new int[] { 3 }, tree.keysToArray());
+	}
+
+	@Test
+	public void randomOperationsMatchCounts() {
+		Random rnd = new Random(15);
+		AVLTree tree = new AVLTree(true);
+		TreeMap<Integer, Integer> counts = new TreeMap<>();
+		int size = 0;
+		for (int op = 0; op < 20000; op++) {
+			int k = rnd.nextInt(300);
+			if (rnd.nextInt(3) == 0) {
+				int res = tree.delete(k);
+				if (counts.containsKey(k)) {
+					assertTrue(res >= 0);
+					size--;
+					if (counts.merge(k, -1, Integer::sum) == 0) {
+						counts.remove(k);
+					}
+				} else {
+					assertEquals(-1, res);
+				}
+			} else {
+				assertTrue(tree.insert(k, "v" + k) >= 0);
+				counts.merge(k, 1, Integer::sum);
+				size++;
+			}
+
+			if (op % 500 == 0) {
+				assertEquals(size, tree.size());
+				int rank = 0;
+				for (Map.Entry<Integer, Integer> e : counts.entrySet()) {
+					rank += e.getValue();
+					assertEquals(e.getValue().intValue(), tree.count(e.getKey()));
+					assertEquals(rank, tree.rank(e.getKey()));
+					assertEquals(e.getKey().intValue(), tree.selectItemByRank(rank).getKey());
+				}
+			}
+		}
+	}
+
+}
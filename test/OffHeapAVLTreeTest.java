@@ -0,0 +1,85 @@
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.management.BufferPoolMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * ---OffHeapAVLTreeTest---
+ * an OffHeapAVLTree checked against a TreeMap (arena growth, slab compaction), and its close().
+ */
+public class OffHeapAVLTreeTest {
+
+	private static final String[] INFOS = { null, "", "a", "héllo", "日本語", "😀" };
+
+	@Test
+	public void matchesATreeMap() {
+		Random rnd = new Random(3);
+		TreeMap<Integer, String> expected = new TreeMap<>();
+		try (OffHeapAVLTree tree = new OffHeapAVLTree(4)) { // grows many times
+			for (int op = 0; op < 30000; op++) {
+				int k = rnd.nextInt(2000);
+				if (rnd.nextInt(3) == 0) {
+					assertEquals(expected.containsKey(k), tree.delete(k) != -1);
+					expected.remove(k);
+				} else {
+					String info = INFOS[rnd.nextInt(INFOS.length)];
+					info = (info == null) ? null : info + op; // new bytes every time --> the slab is compacted
+					assertEquals(expected.containsKey(k), tree.insert(k, info) == -1);
+					if (!expected.containsKey(k)) { // (putIfAbsent would replace a null info)
+						expected.put(k, info);
+					}
+				}
+			}
+			check(tree, expected);
+		}
+	}
+
+	@Test
+	public void closeFreesTheDirectMemory() {
+		OffHeapAVLTree tree = new OffHeapAVLTree(1 << 20); // 32MB of nodes + 8MB of slab
+		tree.insert(1, "a");
+		long before = directMemoryUsed();
+		tree.close();
+		assertTrue(before - directMemoryUsed() >= 32 << 20, "the buffers were not freed on close");
+		assertThrows(IllegalStateException.class, () -> tree.search(1));
+		tree.close(); // closing again does nothing
+	}
+
+	@Test
+	public void capacityIsChecked() {
+		assertThrows(IllegalArgumentException.class, () -> new OffHeapAVLTree(Integer.MAX_VALUE / 16));
+	}
+
+	private static void check(OffHeapAVLTree tree, TreeMap<Integer, String> expected) {
+		assertEquals(expected.size(), tree.size());
+		assertArrayEquals(expected.keySet().stream().mapToInt(Integer::intValue).toArray(), tree.keysToArray());
+		assertArrayEquals(expected.values().toArray(new String[0]), tree.infoToArray());
+		assertEquals(expected.firstEntry().getValue(), tree.min());
+		assertEquals(expected.lastEntry().getValue(), tree.max());
+		int rank = 0;
+		for (Map.Entry<Integer, String> e : expected.entrySet()) {
+			rank++;
+			assertEquals(e.getValue(), tree.search(e.getKey()));
+			assertEquals(e.getKey().intValue(), tree.selectItemByRank(rank).getKey());
+		}
+		assertEquals(null, tree.search(-1));
+	}
+
+	private static long directMemoryUsed() {
+		for (BufferPoolMXBean pool : ManagementFactory.getPlatformMXBeans(BufferPoolMXBean.class)) {
+			if (pool.getName().equals("direct")) {
+				return pool.getMemoryUsed();
+			}
+		}
+		throw new IllegalStateException("no direct buffer pool");
+	}
+
+}
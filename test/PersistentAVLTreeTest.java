@@ -0,0 +1,80 @@
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeMap;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * ---PersistentAVLTreeTest---
+ * a PersistentAVLTree does the same rotations as an AVLTree, and every snapshot keeps the
+ * contents it had when it was taken while the tree goes on changing.
+ */
+public class PersistentAVLTreeTest {
+
+	@Test
+	public void snapshotsKeepTheirVersion() {
+		Random rnd = new Random(12);
+		AVLTree mutable = new AVLTree();
+		PersistentAVLTree tree = new PersistentAVLTree();
+		TreeMap<Integer, String> expected = new TreeMap<>();
+		List<PersistentAVLTree> snapshots = new ArrayList<>();
+		List<TreeMap<Integer, String>> versions = new ArrayList<>();
+
+		for (int j = 0; j < 20000; j++) {
+			int k = rnd.nextInt(2000);
+			if (rnd.nextInt(3) != 0) {
+				assertEquals(mutable.insert(k, "v" + j), tree.insert(k, "v" + j));
+				expected.putIfAbsent(k, "v" + j);
+			} else {
+				assertEquals(mutable.delete(k), tree.delete(k));
+				expected.remove(k);
+			}
+			if (j % 1000 == 0) {
+				snapshots.add(tree.snapshot());
+				versions.add(new TreeMap<>(expected));
+			}
+		}
+		check(tree, expected);
+		for (int v = 0; v < snapshots.size(); v++) {
+			assertTrue(snapshots.get(v).isFrozen());
+			check(snapshots.get(v), versions.get(v));
+		}
+	}
+
+	@Test
+	public void snapshotCanNotBeModified() {
+		PersistentAVLTree tree = new PersistentAVLTree();
+		tree.insert(1, "a");
+		PersistentAVLTree snapshot = tree.snapshot();
+		assertFalse(tree.isFrozen());
+		assertThrows(UnsupportedOperationException.class, () -> snapshot.insert(2, "b"));
+		assertThrows(UnsupportedOperationException.class, () -> snapshot.delete(1));
+		tree.delete(1);
+		assertTrue(tree.empty());
+		assertEquals("a", snapshot.search(1));
+	}
+
+	private static void check(PersistentAVLTree tree, TreeMap<Integer, String> expected) {
+		assertEquals(expected.size(), tree.size());
+		assertArrayEquals(expected.keySet().stream().mapToInt(Integer::intValue).toArray(), tree.keysToArray());
+		assertArrayEquals(expected.values().toArray(new String[0]), tree.infoToArray());
+		if (!expected.isEmpty()) {
+			assertEquals(expected.firstEntry().getValue(), tree.min());
+			assertEquals(expected.lastEntry().getValue(), tree.max());
+		}
+		int rank = 0;
+		for (int k : expected.keySet()) {
+			rank++;
+			assertEquals(expected.get(k), tree.search(k));
+			assertEquals(k, tree.selectItemByRank(rank).getKey());
+		}
+	}
+
+}
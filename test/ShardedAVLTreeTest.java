@@ -0,0 +1,85 @@
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Random;
+import java.util.TreeMap;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * ---ShardedAVLTreeTest---
+ * the shards split when they grow and merge when they shrink, and the tree keeps behaving
+ * like one AVLTree (checked against a TreeMap) through all of it.
+ */
+public class ShardedAVLTreeTest {
+
+	private static final int MAX_SHARD_SIZE = 64;
+
+	@Test
+	public void splitsAndMergesKeepTheContents() {
+		Random rnd = new Random(25);
+		ShardedAVLTree tree = new ShardedAVLTree(1, MAX_SHARD_SIZE);
+		TreeMap<Integer, String> expected = new TreeMap<>();
+
+		for (int j = 0; j < 5000; j++) {
+			int k = rnd.nextInt();
+			assertEquals(expected.containsKey(k), tree.insert(k, "v" + k) == -1);
+			expected.put(k, "v" + k);
+		}
+		assertTrue(tree.getSplitCount() > 0);
+		check(tree, expected);
+
+		while (expected.size() > 10) {
+			int k = expected.firstKey() + rnd.nextInt(Integer.MAX_VALUE);
+			Integer victim = expected.ceilingKey(k);
+			if (victim == null) {
+				victim = expected.firstKey();
+			}
+			assertTrue(tree.delete(victim) >= 0);
+			expected.remove(victim);
+			assertEquals(-1, tree.delete(victim));
+		}
+		assertTrue(tree.getMergeCount() > 0);
+		check(tree, expected);
+	}
+
+	@Test
+	public void sequentialKeysSplitTheLastShard() {
+		ShardedAVLTree tree = new ShardedAVLTree(4, MAX_SHARD_SIZE);
+		TreeMap<Integer, String> expected = new TreeMap<>();
+		for (int k = 0; k < 3000; k++) {
+			tree.insert(k, null);
+			expected.put(k, null);
+		}
+		check(tree, expected);
+		for (int k = 0; k < 3000; k += 3) {
+			tree.delete(k);
+			expected.remove(k);
+		}
+		check(tree, expected);
+	}
+
+	/**
+	 * checks size, order, min / max, rank / select and that no shard is over its maximum
+	 * (n keys need at least n / MAX_SHARD_SIZE shards)
+	 */
+	private static void check(ShardedAVLTree tree, TreeMap<Integer, String> expected) {
+		int n = expected.size();
+		assertEquals(n, tree.size());
+		assertTrue(tree.getShardCount() >= (n + MAX_SHARD_SIZE - 1) / MAX_SHARD_SIZE);
+		assertArrayEquals(expected.keySet().stream().mapToInt(Integer::intValue).toArray(), tree.keysToArray());
+		assertArrayEquals(expected.values().toArray(new String[0]), tree.infoToArray());
+		assertEquals(expected.firstEntry().getValue(), tree.min());
+		assertEquals(expected.lastEntry().getValue(), tree.max());
+
+		int rank = 0;
+		for (int k : expected.keySet()) {
+			rank++;
+			assertEquals(rank, tree.rank(k));
+			assertEquals(k, tree.selectItemByRank(rank).getKey());
+			assertEquals(expected.get(k), tree.search(k));
+		}
+	}
+
+}
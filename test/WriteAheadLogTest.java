@@ -0,0 +1,131 @@
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * ---WriteAheadLogTest---
+ * replay of a log with a torn or corrupted tail, and recovery of a DurableAVLTree.
+ */
+public class WriteAheadLogTest {
+
+	@TempDir
+	Path dir;
+
+	@Test
+	public void replayCutsTornTail() throws IOException {
+		Path file = this.dir.resolve("wal.log");
+		long[] ends = writeLog(file, 5);
+		try (FileChannel ch = FileChannel.open(file, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+			ch.write(ByteBuffer.wrap(new byte[] { 40, 0, 0, 0, 1, 2, 3 })); // the start of a record that never ended
+		}
+
+		List<String> ops = new ArrayList<>();
+		assertEquals(5, WriteAheadLog.replay(file, recorder(ops)));
+		assertEquals(List.of("insert 0 info0", "insert 1 info1", "insert 2 info2", "insert 3 info3", "delete 4"), ops);
+		assertEquals(ends[4], Files.size(file));
+	}
+
+	@Test
+	public void replayStopsAtCorruptedRecord() throws IOException {
+		Path file = this.dir.resolve("wal.log");
+		long[] ends = writeLog(file, 5);
+		try (FileChannel ch = FileChannel.open(file, StandardOpenOption.WRITE)) {
+			ch.write(ByteBuffer.wrap(new byte[] { 'X' }), ends[2] - 1); // last info byte of the 3rd record --> bad CRC
+		}
+
+		List<String> ops = new ArrayList<>();
+		assertEquals(2, WriteAheadLog.replay(file, recorder(ops)));
+		assertEquals(List.of("insert 0 info0", "insert 1 info1"), ops);
+		assertEquals(ends[1], Files.size(file));
+
+		// the log is cut at the bad record, so the next replay sees the same prefix & appends go after it
+		assertEquals(2, WriteAheadLog.replay(file, recorder(new ArrayList<>())));
+		try (WriteAheadLog log = new WriteAheadLog(file, WriteAheadLog.DEFAULT_SYNC_BYTES, 0)) {
+			log.logDelete(7);
+		}
+		ops.clear();
+		assertEquals(3, WriteAheadLog.replay(file, recorder(ops)));
+		assertEquals("delete 7", ops.get(2));
+	}
+
+	@Test
+	public void durableTreeRecovers() throws IOException {
+		Path tree_dir = this.dir.resolve("tree");
+		try (DurableAVLTree tree = DurableAVLTree.open(tree_dir, WriteAheadLog.DEFAULT_SYNC_BYTES, 0)) {
+			for (int k = 0; k < 100; k++) {
+				tree.insert(k, "v" + k);
+			}
+			tree.checkpoint();
+			for (int k = 0; k < 100; k += 2) {
+				tree.delete(k);
+			}
+			assertEquals(-1, tree.insert(1, "again")); // not logged
+			tree.insert(1000, null);
+		}
+
+		try (DurableAVLTree tree = DurableAVLTree.open(tree_dir)) {
+			assertEquals(51, tree.size());
+			assertEquals("v1", tree.search(1));
+			assertEquals(null, tree.search(2));
+			assertEquals(null, tree.search(1000));
+			int[] keys = tree.keysToArray();
+			assertEquals(1000, keys[keys.length - 1]);
+			assertArrayEquals(new int[] { 1, 3, 5 }, new int[] { keys[0], keys[1], keys[2] });
+		}
+	}
+
+	/**
+	 * writes n records (inserts, the last one a delete), one at a time
+	 * @return ends[j] := size of the file after record j
+	 */
+	private static long[] writeLog(Path file, int n) throws IOException {
+		long[] ends = new long[n];
+		try (WriteAheadLog log = new WriteAheadLog(file, WriteAheadLog.DEFAULT_SYNC_BYTES, 0)) {
+			for (int j = 0; j < n; j++) {
+				if (j < n - 1) {
+					log.logInsert(j, "info" + j);
+				} else {
+					log.logDelete(j);
+				}
+				ends[j] = Files.size(file);
+			}
+		}
+		return ends;
+	}
+
+	private static WriteAheadLog.Handler recorder(List<String> ops) {
+		return new WriteAheadLog.Handler() {
+			@Override
+			public void insert(int k, String info) {
+				ops.add("insert " + k + " " + info);
+			}
+
+			@Override
+			public void delete(int k) {
+				ops.add("delete " + k);
+			}
+
+			@Override
+			public void listInsert(int i, int k, String info) {
+				ops.add("listInsert " + i + " " + k + " " + info);
+			}
+
+			@Override
+			public void listDelete(int i) {
+				ops.add("listDelete " + i);
+			}
+		};
+	}
+
+}